@@ -0,0 +1,51 @@
+package com.crossixanalytics.sorting.csvsortmanager.benchmark;
+
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic benchmark datasets written to a temporary directory.
+ */
+final class BenchmarkData {
+    static final long SEED = 20240214L;
+
+    private BenchmarkData() {
+    }
+
+    static Path createTempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory("csvsortmanager-" + prefix);
+    }
+
+    static int[] randomRecords(int count) {
+        Random random = new Random(SEED);
+        int[] records = new int[count];
+        for (int i = 0; i < count; i++) {
+            records[i] = random.nextInt();
+        }
+        return records;
+    }
+
+    static void writeRecords(Path file, int[] records, int from, int to) throws IOException {
+        try (IntRecordWriter writer = IntRecordWriter.open(file.toString(), IOConstants.WRITE_BUFFER_SIZE)) {
+            for (int i = from; i < to; i++) {
+                writer.writeRecord(records[i]);
+            }
+        }
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.crossixanalytics.sorting.csvsortmanager.benchmark;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.KeyDistribution;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortAlgorithm;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
+import com.crossixanalytics.sorting.csvsortmanager.processor.CSVSortProcessor;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.ByteSizeParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole job of {@link CSVSortProcessor#processCSVFile()}: generating the input, generating the runs and merging.
+ * Every invocation sorts with a new processor, so its metrics and record count do not carry over between invocations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class EndToEndBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public int recordCount;
+
+    @Param({"false", "true"})
+    public boolean multiProcessing;
+
+    @Param({"1", "4"})
+    public int threadCount;
+
+    @Param({"COMPARISON", "RADIX"})
+    public SortAlgorithm sortAlgorithm;
+
+    @Param({"UNIFORM"})
+    public KeyDistribution keyDistribution;
+
+    @Param({"64m"})
+    public String memoryBudget;
+
+    private Path directory;
+    private SortOptions sortOptions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkData.createTempDirectory("end-to-end");
+        sortOptions = new SortOptions()
+                .setSortAlgorithm(sortAlgorithm)
+                .setThreadCount(threadCount)
+                .setSeed(BenchmarkData.SEED)
+                .setKeyDistribution(keyDistribution)
+                .setMemoryBudget(ByteSizeParser.parseByteSize(memoryBudget));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void processCSVFile(RecordCounter counter) {
+        new CSVSortProcessor(directory.resolve("input.csv").toString(), recordCount, multiProcessing, sortOptions).processCSVFile();
+        counter.records += recordCount;
+    }
+}
@@ -0,0 +1,79 @@
+package com.crossixanalytics.sorting.csvsortmanager.benchmark;
+
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileMergerImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVLoserTreeFileMergerImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVParallelRangeFileMergerImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileMerger;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging sorted runs into a single output file, across total record counts, run counts and merge threads.
+ * The thread count only applies to the parallel range merger.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MergerBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public int recordCount;
+
+    @Param({"4", "20", "100"})
+    public int runCount;
+
+    @Param({"heap", "loserTree", "parallelRange"})
+    public String merger;
+
+    @Param({"1", "4"})
+    public int threadCount;
+
+    private Path directory;
+    private List<String> sortedFiles;
+    private String outputFilePath;
+    private CSVFileMerger fileMerger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkData.createTempDirectory("merger");
+        int[] records = BenchmarkData.randomRecords(recordCount);
+        sortedFiles = new ArrayList<>();
+        for (int run = 0; run < runCount; run++) {
+            int from = (int) ((long) recordCount * run / runCount);
+            int to = (int) ((long) recordCount * (run + 1) / runCount);
+            Arrays.sort(records, from, to);
+            Path runFile = directory.resolve(IOConstants.SORTED_FILE_PREFIX + run + IOConstants.FILE_TYPE);
+            BenchmarkData.writeRecords(runFile, records, from, to);
+            sortedFiles.add(runFile.toString());
+        }
+        outputFilePath = directory.resolve(IOConstants.FINAL_SORTED_FILENAME).toString();
+
+        if ("heap".equals(merger)) {
+            fileMerger = new CSVFileMergerImpl();
+        } else if ("loserTree".equals(merger)) {
+            fileMerger = new CSVLoserTreeFileMergerImpl();
+        } else {
+            fileMerger = new CSVParallelRangeFileMergerImpl(threadCount, IOConstants.RUN_READ_BUFFER_SIZE, IOConstants.WRITE_BUFFER_SIZE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void mergeCSVFiles(RecordCounter counter) throws IOException {
+        fileMerger.mergeCSVFiles(sortedFiles, outputFilePath);
+        counter.records += recordCount;
+    }
+}
@@ -0,0 +1,67 @@
+package com.crossixanalytics.sorting.csvsortmanager.benchmark;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.ReaderType;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileReaderImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVMappedFileReaderImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a whole CSV file of integer records, into a primitive buffer and into the legacy boxed list.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReaderBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public int recordCount;
+
+    @Param({"BUFFERED", "MAPPED"})
+    public ReaderType readerType;
+
+    private Path directory;
+    private String inputFilePath;
+    private long fileSize;
+    private CSVFileReader reader;
+    private IntRecordBuffer records;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkData.createTempDirectory("reader");
+        Path inputFile = directory.resolve("input.csv");
+        BenchmarkData.writeRecords(inputFile, BenchmarkData.randomRecords(recordCount), 0, recordCount);
+        inputFilePath = inputFile.toString();
+        fileSize = Files.size(inputFile);
+        reader = readerType == ReaderType.MAPPED ? new CSVMappedFileReaderImpl() : new CSVFileReaderImpl();
+        records = new IntRecordBuffer(recordCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public IntRecordBuffer readCSVRecordRange(RecordCounter counter) throws IOException {
+        reader.readCSVRecordRange(inputFilePath, 0, fileSize, records);
+        counter.records += records.size();
+        return records;
+    }
+
+    @Benchmark
+    public List<Integer> readCSVRecordsBoxed(RecordCounter counter) throws IOException {
+        List<Integer> boxedRecords = reader.readCSVRecords(inputFilePath, recordCount, 0);
+        counter.records += boxedRecords.size();
+        return boxedRecords;
+    }
+}
@@ -0,0 +1,48 @@
+package com.crossixanalytics.sorting.csvsortmanager.benchmark;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortAlgorithm;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVRadixSorterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVSingleFileSorterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVSingleFileSorter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting a partition of random integer records. Each operation includes copying the unsorted records
+ * into the partition buffer, which is linear and small next to the sort itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SorterBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public int recordCount;
+
+    @Param({"COMPARISON", "RADIX"})
+    public SortAlgorithm sortAlgorithm;
+
+    private int[] unsortedRecords;
+    private IntRecordBuffer records;
+    private CSVSingleFileSorter sorter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        unsortedRecords = BenchmarkData.randomRecords(recordCount);
+        records = new IntRecordBuffer(recordCount);
+        sorter = sortAlgorithm == SortAlgorithm.RADIX ? new CSVRadixSorterImpl() : new CSVSingleFileSorterImpl();
+    }
+
+    @Benchmark
+    public IntRecordBuffer sortSingleCSVFileRecords(RecordCounter counter) {
+        records.clear();
+        records.addAll(unsortedRecords, 0, unsortedRecords.length);
+        sorter.sortSingleCSVFileRecords(records);
+        counter.records += records.size();
+        return records;
+    }
+}
@@ -0,0 +1,54 @@
+package com.crossixanalytics.sorting.csvsortmanager.benchmark;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileWriterImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a sorted run of integer records with different output buffer sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class WriterBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public int recordCount;
+
+    @Param({"8192", "1048576", "4194304"})
+    public int ioBufferSize;
+
+    private Path directory;
+    private String outputFilePath;
+    private IntRecordBuffer records;
+    private CSVFileWriterImpl writer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkData.createTempDirectory("writer");
+        outputFilePath = directory.resolve("sorted_file_part_0.csv").toString();
+        int[] sortedRecords = BenchmarkData.randomRecords(recordCount);
+        Arrays.sort(sortedRecords);
+        records = new IntRecordBuffer(recordCount);
+        records.addAll(sortedRecords, 0, recordCount);
+        writer = new CSVFileWriterImpl(ioBufferSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void writeSortedRecords(RecordCounter counter) throws IOException {
+        writer.writeSortedRecords(outputFilePath, records);
+        counter.records += records.size();
+    }
+}
@@ -1,35 +1,119 @@
 package com.crossixanalytics.sorting.csvsortmanager;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
 import com.crossixanalytics.sorting.csvsortmanager.processor.CSVSortProcessor;
+import com.crossixanalytics.sorting.csvsortmanager.processor.CSVStreamSortProcessor;
 import com.crossixanalytics.sorting.csvsortmanager.util.evaluators.CommandLineEvaluator;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
 // -f src/main/resources/templates/input.csv -n 1000 -M
 public class CSVSortManagerApplication {
     private static final Logger logger = LoggerFactory.getLogger(CSVSortManagerApplication.class);
+    private static final String STANDARD_STREAM = "-"; // Reads stdin as the input path, writes stdout as the output path
 
     public static void main(String[] args) {
+        int exitCode = run(args);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Runs the application with the given command-line arguments. A failed stream sort exits non-zero, so a pipeline
+     * can tell it from an empty or partial output; file jobs log their own failures.
+     *
+     * @param args The command-line arguments.
+     * @return The exit code of the process: 0 on success, 1 on invalid arguments or a failed stream sort.
+     */
+    public static int run(String[] args) {
         Options options = CommandLineEvaluator.buildOptions();
         CommandLine cmdArgs = CommandLineEvaluator.parseArguments(args, options);
         if (cmdArgs == null) {
             logger.error("Failed to parse command-line arguments.");
             CommandLineEvaluator.printHelper(new HelpFormatter(), options);
-            return;
+            return 1;
         }
 
+        String filePath = cmdArgs.getOptionValue("f");
+        String outputFilePath = cmdArgs.getOptionValue("o");
+        boolean streaming = STANDARD_STREAM.equals(filePath) || STANDARD_STREAM.equals(outputFilePath);
         try {
-            String filePath = cmdArgs.getOptionValue("f");
-            int numberOfRecords = Integer.parseInt(cmdArgs.getOptionValue("n"));
             boolean isMultiProcessing = cmdArgs.hasOption("M");
-            CSVSortProcessor csvSortProcessor = new CSVSortProcessor(filePath, numberOfRecords, isMultiProcessing);
+            SortOptions sortOptions = CommandLineEvaluator.buildSortOptions(cmdArgs);
+            if (streaming) {
+                if (cmdArgs.hasOption("n")) {
+                    throw new IllegalArgumentException("Generating the input (-n) needs an input file path, not the standard input");
+                }
+                if (isMultiProcessing) {
+                    logger.warn("Multi-threaded processing (-M) does not apply to stream sorts, which read and sort the stream on one thread");
+                }
+                sortStream(filePath, outputFilePath, sortOptions);
+                return 0;
+            }
+            CSVSortProcessor csvSortProcessor;
+            if (cmdArgs.hasOption("o")) {
+                csvSortProcessor = new CSVSortProcessor(filePath, outputFilePath, isMultiProcessing, sortOptions);
+            } else if (cmdArgs.hasOption("n")) {
+                long numberOfRecords = Long.parseLong(cmdArgs.getOptionValue("n"));
+                csvSortProcessor = new CSVSortProcessor(filePath, numberOfRecords, isMultiProcessing, sortOptions);
+            } else {
+                throw new IllegalArgumentException("Either the number of records to generate (-n) or an output file path (-o) is required");
+            }
             csvSortProcessor.processCSVFile();
+            return 0;
         } catch (NumberFormatException e) {
             logger.error("Number of records must be an integer.", e);
-            CommandLineEvaluator.printHelper(new HelpFormatter(), options);
+            printHelper(options, streaming);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid command-line option: {}", e.getMessage());
+            printHelper(options, streaming);
         } catch (Exception e) {
             logger.error("An unexpected error occurred: {}", e.getMessage(), e);
         }
+        return 1;
+    }
+
+    /**
+     * Prints the usage, unless the standard output carries the sorted records.
+     */
+    private static void printHelper(Options options, boolean streaming) {
+        if (!streaming) {
+            CommandLineEvaluator.printHelper(new HelpFormatter(), options);
+        }
     }
-}
 
+    /**
+     * Sorts between streams, either of which may be a file: "-" as the input path reads the standard input, and "-"
+     * (or no output path with the standard input) as the output path writes the standard output, so the sort can sit
+     * in a Unix pipeline. The logs go to the standard error.
+     */
+    private static void sortStream(String inputFilePath, String outputFilePath, SortOptions sortOptions) throws IOException, InterruptedException, ExecutionException {
+        boolean standardOutput = outputFilePath == null || STANDARD_STREAM.equals(outputFilePath);
+        InputStream input = STANDARD_STREAM.equals(inputFilePath) ? System.in : Files.newInputStream(Paths.get(inputFilePath));
+        try {
+            OutputStream output = standardOutput ? System.out : Files.newOutputStream(Paths.get(outputFilePath));
+            try {
+                CSVStreamSortProcessor.sort(input, output, sortOptions);
+                if (output == System.out && System.out.checkError()) {
+                    throw new IOException("Could not write the sorted records to the standard output"); // PrintStream swallows its write errors
+                }
+            } finally {
+                if (output != System.out) {
+                    output.close(); // The standard streams stay open for the rest of the process
+                }
+            }
+        } finally {
+            if (input != System.in) {
+                input.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * An {@link IntRecordBuffer} whose records live off the Java heap, in a direct byte buffer viewed as native-order ints.
+ * Large partitions then neither count against the maximum heap size nor get copied or scanned by the garbage collector,
+ * while the buffer is still allocated once and reused across partitions like an on-heap one.
+ * It has no backing array, so sorters and writers access its records through {@link #getDirectRecords()}.
+ * Direct memory is capped by the JVM's -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ */
+public class DirectIntRecordBuffer extends IntRecordBuffer {
+    public static final int MAX_CAPACITY = (Integer.MAX_VALUE - 8) / Integer.BYTES; // A direct buffer holds below 2 GB
+
+    private IntBuffer records;
+
+    public DirectIntRecordBuffer(int initialCapacity) {
+        super(0); // The on-heap array stays unused
+        this.records = allocate(Math.max(initialCapacity, 1));
+    }
+
+    /**
+     * Allocates a direct int buffer of native byte order.
+     *
+     * @param capacity The number of ints of the buffer, at most {@link #MAX_CAPACITY}.
+     * @return The new buffer.
+     */
+    public static IntBuffer allocate(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("An off-heap record buffer cannot exceed " + MAX_CAPACITY + " records");
+        }
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    @Override
+    public void add(int record) {
+        if (size == records.capacity()) {
+            ensureCapacity(size + 1);
+        }
+        records.put(size++, record);
+    }
+
+    @Override
+    public void addAll(int[] source, int offset, int length) {
+        ensureCapacity(size + length);
+        records.position(size);
+        records.put(source, offset, length);
+        size += length;
+    }
+
+    @Override
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return records.get(index);
+    }
+
+    /**
+     * Makes sure the direct buffer can hold at least the given number of records, replacing it with a larger one if not.
+     * The old buffer's memory is released once it is garbage collected.
+     *
+     * @param minCapacity The minimum number of records the buffer should be able to hold.
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= records.capacity()) {
+            return;
+        }
+        long grownCapacity = Math.max((long) records.capacity() + (records.capacity() >> 1), minCapacity);
+        IntBuffer grown = allocate((int) Math.min(grownCapacity, MAX_CAPACITY));
+        records.position(0).limit(size);
+        grown.put(records);
+        records = grown;
+    }
+
+    @Override
+    public int capacity() {
+        return records.capacity();
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    /**
+     * Not supported, since the records are not held in an array.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public int[] getRecords() {
+        throw new UnsupportedOperationException("Off-heap record buffers have no backing array, use getDirectRecords()");
+    }
+
+    /**
+     * Direct access to the off-heap records; only the first {@link #size()} elements are valid records.
+     * Its position and limit are not significant, so it should be accessed with absolute gets and puts.
+     *
+     * @return The direct int buffer holding the records.
+     */
+    public IntBuffer getDirectRecords() {
+        return records;
+    }
+}
@@ -0,0 +1,105 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable buffer of primitive int records.
+ * Holds a partition of CSV records at ~4 bytes per record instead of a boxed List of Integers,
+ * and can be cleared and refilled across partitions without reallocating its backing array.
+ * {@link DirectIntRecordBuffer} holds the records off the heap instead.
+ */
+public class IntRecordBuffer {
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private int[] records;
+    protected int size;
+
+    public IntRecordBuffer() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public IntRecordBuffer(int initialCapacity) {
+        this.records = new int[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Appends a single record to the end of the buffer, growing the backing array if needed.
+     *
+     * @param record The record value to append.
+     */
+    public void add(int record) {
+        if (size == records.length) {
+            ensureCapacity(size + 1);
+        }
+        records[size++] = record;
+    }
+
+    /**
+     * Appends a range of an int array to the end of the buffer.
+     *
+     * @param source The array to copy the records from.
+     * @param offset The index of the first record to copy.
+     * @param length The number of records to copy.
+     */
+    public void addAll(int[] source, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(source, offset, records, size, length);
+        size += length;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return records[index];
+    }
+
+    /**
+     * Makes sure the backing array can hold at least the given number of records.
+     *
+     * @param minCapacity The minimum number of records the buffer should be able to hold.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= records.length) {
+            return;
+        }
+        long grownCapacity = Math.max((long) records.length + (records.length >> 1), minCapacity);
+        records = Arrays.copyOf(records, (int) Math.min(grownCapacity, MAX_ARRAY_SIZE));
+    }
+
+    /**
+     * Resets the buffer to an empty state while keeping its backing array for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return records.length;
+    }
+
+    /**
+     * @return true if the records are held off the heap, without a backing array.
+     */
+    public boolean isDirect() {
+        return false;
+    }
+
+    /**
+     * Direct access to the backing array; only the first {@link #size()} elements are valid records.
+     *
+     * @return The backing array of the buffer.
+     */
+    public int[] getRecords() {
+        return records;
+    }
+}
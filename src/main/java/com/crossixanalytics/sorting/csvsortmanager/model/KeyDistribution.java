@@ -0,0 +1,28 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+/**
+ * The distributions of the integer keys of a generated input file.
+ */
+public enum KeyDistribution {
+    UNIFORM,
+    ZIPFIAN,
+    SORTED,
+    REVERSE,
+    DUPLICATES;
+
+    /**
+     * Resolves a key distribution from its command-line name, ignoring case.
+     *
+     * @param name The command-line name of the key distribution (e.g. "zipfian").
+     * @return The matching key distribution.
+     * @throws IllegalArgumentException If no key distribution matches the given name.
+     */
+    public static KeyDistribution fromName(String name) {
+        for (KeyDistribution keyDistribution : values()) {
+            if (keyDistribution.name().equalsIgnoreCase(name.trim())) {
+                return keyDistribution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown key distribution: " + name);
+    }
+}
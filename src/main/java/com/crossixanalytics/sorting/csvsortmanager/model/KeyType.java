@@ -0,0 +1,39 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+/**
+ * The types a sort key column is compared as.
+ */
+public enum KeyType {
+    /**
+     * A signed 64-bit integer.
+     */
+    LONG,
+    /**
+     * A floating-point number, NaN sorting after positive infinity.
+     */
+    DOUBLE,
+    /**
+     * The text of the field, compared by Unicode code point.
+     */
+    STRING,
+    /**
+     * An ISO-8601 date (2024-01-31) or local date-time (2024-01-31T13:45:00 or with a space instead of the 'T').
+     */
+    DATE;
+
+    /**
+     * Resolves a key type from its command-line name, ignoring case.
+     *
+     * @param name The command-line name of the key type (e.g. "long").
+     * @return The matching key type.
+     * @throws IllegalArgumentException If no key type matches the given name.
+     */
+    public static KeyType fromName(String name) {
+        for (KeyType keyType : values()) {
+            if (keyType.name().equalsIgnoreCase(name.trim())) {
+                return keyType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown key type: " + name);
+    }
+}
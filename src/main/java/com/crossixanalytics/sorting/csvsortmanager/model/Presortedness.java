@@ -0,0 +1,50 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+/**
+ * The result of a presortedness scan of an input file: how the records are already ordered, and for few ascending
+ * natural runs, where each of them starts.
+ */
+public class Presortedness {
+    /**
+     * The kinds of presortedness which have a fast path.
+     */
+    public enum Kind {
+        SORTED,
+        REVERSE_SORTED,
+        NATURAL_RUNS,
+        UNSORTED
+    }
+
+    private final Kind kind;
+    private final long[] naturalRunOffsets;
+    private final boolean canonical;
+
+    /**
+     * @param kind              How the records are ordered.
+     * @param naturalRunOffsets The byte offsets of the line starts of the ascending natural runs, in file order.
+     * @param canonical         Whether the file is exactly in the output format, one "value\n" line per record.
+     */
+    public Presortedness(Kind kind, long[] naturalRunOffsets, boolean canonical) {
+        this.kind = kind;
+        this.naturalRunOffsets = naturalRunOffsets;
+        this.canonical = canonical;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * The ascending natural runs start at these offsets, each one ending where the next one starts
+     * and the last one at the end of the file. Only known for {@link Kind#SORTED} and {@link Kind#NATURAL_RUNS}.
+     *
+     * @return The start offsets of the natural runs.
+     */
+    public long[] getNaturalRunOffsets() {
+        return naturalRunOffsets;
+    }
+
+    public boolean isCanonical() {
+        return canonical;
+    }
+}
@@ -0,0 +1,25 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+/**
+ * The ways a partition of the input file can be read into memory.
+ */
+public enum ReaderType {
+    BUFFERED,
+    MAPPED;
+
+    /**
+     * Resolves a reader type from its command-line name, ignoring case.
+     *
+     * @param name The command-line name of the reader type (e.g. "mapped").
+     * @return The matching reader type.
+     * @throws IllegalArgumentException If no reader type matches the given name.
+     */
+    public static ReaderType fromName(String name) {
+        for (ReaderType readerType : values()) {
+            if (readerType.name().equalsIgnoreCase(name.trim())) {
+                return readerType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reader type: " + name);
+    }
+}
@@ -0,0 +1,160 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.SortKeyEncoder;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable buffer of CSV rows with their normalized sort keys.
+ * Every record is stored in a single byte arena as its normalized key immediately followed by the row's bytes
+ * (without the line break), and addressed by three parallel int arrays: the offset of the key, the key length
+ * and the row length. Keys compare as unsigned bytes, so sorting never looks at the row text again.
+ * The first 8 bytes of every key are also kept as a primitive prefix in a parallel long array (see
+ * {@link SortKeyEncoder#prefix}), which decides most comparisons without reaching into the arena.
+ */
+public class RowRecordBuffer {
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private byte[] data;
+    private int dataSize;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private int[] rowLengths;
+    private long[] keyPrefixes;
+    private int size;
+
+    public RowRecordBuffer() {
+        this(DEFAULT_INITIAL_CAPACITY * 64, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialDataCapacity   The initial size in bytes of the arena holding the keys and rows.
+     * @param initialRecordCapacity The initial number of records the buffer can address.
+     */
+    public RowRecordBuffer(int initialDataCapacity, int initialRecordCapacity) {
+        this.data = new byte[Math.max(initialDataCapacity, 1)];
+        int recordCapacity = Math.max(initialRecordCapacity, 1);
+        this.keyOffsets = new int[recordCapacity];
+        this.keyLengths = new int[recordCapacity];
+        this.rowLengths = new int[recordCapacity];
+        this.keyPrefixes = new long[recordCapacity];
+    }
+
+    /**
+     * Appends a record, growing the arena and the record arrays if needed.
+     *
+     * @param key       The bytes of the normalized key.
+     * @param keyLength The length of the normalized key.
+     * @param row       The bytes holding the row.
+     * @param rowOffset The offset of the row's first byte.
+     * @param rowLength The length of the row, without its line break.
+     */
+    public void add(byte[] key, int keyLength, byte[] row, int rowOffset, int rowLength) {
+        if (size == keyOffsets.length) {
+            ensureRecordCapacity(size + 1);
+        }
+        ensureDataCapacity((long) dataSize + keyLength + rowLength);
+        keyOffsets[size] = dataSize;
+        keyLengths[size] = keyLength;
+        rowLengths[size] = rowLength;
+        keyPrefixes[size] = SortKeyEncoder.prefix(key, 0, keyLength);
+        System.arraycopy(key, 0, data, dataSize, keyLength);
+        System.arraycopy(row, rowOffset, data, dataSize + keyLength, rowLength);
+        dataSize += keyLength + rowLength;
+        size++;
+    }
+
+    /**
+     * Compares the normalized keys of two records of the buffer.
+     *
+     * @param first  The index of the first record.
+     * @param second The index of the second record.
+     * @return A negative number, zero or a positive number as the first key sorts before, with or after the second.
+     */
+    public int compare(int first, int second) {
+        if (keyPrefixes[first] != keyPrefixes[second]) {
+            return keyPrefixes[first] < keyPrefixes[second] ? -1 : 1;
+        }
+        return SortKeyEncoder.compare(data, keyOffsets[first], keyLengths[first], data, keyOffsets[second], keyLengths[second]);
+    }
+
+    /**
+     * Direct access to the arena; a record's key starts at {@link #getKeyOffset(int)} and its row follows the key.
+     *
+     * @return The arena holding the keys and rows.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Direct access to the key prefixes, valid in the first {@link #size()} elements.
+     *
+     * @return The key prefixes, indexed like the records.
+     */
+    public long[] getKeyPrefixes() {
+        return keyPrefixes;
+    }
+
+    public int getKeyOffset(int index) {
+        return keyOffsets[index];
+    }
+
+    public int getKeyLength(int index) {
+        return keyLengths[index];
+    }
+
+    public int getRowOffset(int index) {
+        return keyOffsets[index] + keyLengths[index];
+    }
+
+    public int getRowLength(int index) {
+        return rowLengths[index];
+    }
+
+    /**
+     * Resets the buffer to an empty state while keeping its arena and record arrays for reuse.
+     */
+    public void clear() {
+        size = 0;
+        dataSize = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of bytes of keys and rows held by the buffer.
+     */
+    public int dataSize() {
+        return dataSize;
+    }
+
+    private void ensureRecordCapacity(int minCapacity) {
+        if (minCapacity <= keyOffsets.length) {
+            return;
+        }
+        int capacity = (int) Math.min(Math.max((long) keyOffsets.length + (keyOffsets.length >> 1), minCapacity), MAX_ARRAY_SIZE);
+        keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+        keyLengths = Arrays.copyOf(keyLengths, capacity);
+        rowLengths = Arrays.copyOf(rowLengths, capacity);
+        keyPrefixes = Arrays.copyOf(keyPrefixes, capacity);
+    }
+
+    private void ensureDataCapacity(long minCapacity) {
+        if (minCapacity <= data.length) {
+            return;
+        }
+        if (minCapacity > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("A partition of rows cannot exceed " + MAX_ARRAY_SIZE + " bytes of keys and rows");
+        }
+        long grownCapacity = Math.max((long) data.length + (data.length >> 1), minCapacity);
+        data = Arrays.copyOf(data, (int) Math.min(grownCapacity, MAX_ARRAY_SIZE));
+    }
+}
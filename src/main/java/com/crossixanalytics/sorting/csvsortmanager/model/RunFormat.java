@@ -0,0 +1,40 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+
+/**
+ * The on-disk formats of the sorted runs and intermediate merge files. The final output is always text.
+ */
+public enum RunFormat {
+    TEXT(IOConstants.FILE_TYPE),
+    BINARY(IOConstants.BINARY_RUN_FILE_TYPE);
+
+    private final String fileType;
+
+    RunFormat(String fileType) {
+        this.fileType = fileType;
+    }
+
+    /**
+     * @return The file extension of the run files in this format.
+     */
+    public String getFileType() {
+        return fileType;
+    }
+
+    /**
+     * Resolves a run format from its command-line name, ignoring case.
+     *
+     * @param name The command-line name of the run format (e.g. "binary").
+     * @return The matching run format.
+     * @throws IllegalArgumentException If no run format matches the given name.
+     */
+    public static RunFormat fromName(String name) {
+        for (RunFormat runFormat : values()) {
+            if (runFormat.name().equalsIgnoreCase(name.trim())) {
+                return runFormat;
+            }
+        }
+        throw new IllegalArgumentException("Unknown run format: " + name);
+    }
+}
@@ -0,0 +1,31 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+/**
+ * The strategies for generating the sorted runs of the input file.
+ */
+public enum RunGeneration {
+    /**
+     * Sorts fixed-size partitions of the input, one run per partition.
+     */
+    PARTITION,
+    /**
+     * Streams the input through a selection heap, producing runs of about twice the memory size on random input.
+     */
+    REPLACEMENT_SELECTION;
+
+    /**
+     * Resolves a run generation strategy from its command-line name, ignoring case and accepting '-' for '_'.
+     *
+     * @param name The command-line name of the strategy (e.g. "replacement-selection").
+     * @return The matching strategy.
+     * @throws IllegalArgumentException If no strategy matches the given name.
+     */
+    public static RunGeneration fromName(String name) {
+        for (RunGeneration runGeneration : values()) {
+            if (runGeneration.name().equalsIgnoreCase(name.trim().replace('-', '_'))) {
+                return runGeneration;
+            }
+        }
+        throw new IllegalArgumentException("Unknown run generation strategy: " + name);
+    }
+}
@@ -0,0 +1,25 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+/**
+ * The in-memory sort algorithms available for sorting a single partition of records.
+ */
+public enum SortAlgorithm {
+    COMPARISON,
+    RADIX;
+
+    /**
+     * Resolves a sort algorithm from its command-line name, ignoring case.
+     *
+     * @param name The command-line name of the algorithm (e.g. "radix").
+     * @return The matching sort algorithm.
+     * @throws IllegalArgumentException If no algorithm matches the given name.
+     */
+    public static SortAlgorithm fromName(String name) {
+        for (SortAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name.trim())) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort algorithm: " + name);
+    }
+}
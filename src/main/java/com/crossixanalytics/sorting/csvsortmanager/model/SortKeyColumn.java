@@ -0,0 +1,41 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+/**
+ * One column of a {@link SortKeySpec}: which field of the row, how it is compared and in which direction.
+ */
+public class SortKeyColumn {
+    private final int columnIndex;
+    private final KeyType keyType;
+    private final boolean descending;
+
+    /**
+     * @param columnIndex The zero-based index of the field in the row.
+     * @param keyType     The type the field is compared as.
+     * @param descending  Set to true to sort the column in descending order.
+     */
+    public SortKeyColumn(int columnIndex, KeyType keyType, boolean descending) {
+        if (columnIndex < 0) {
+            throw new IllegalArgumentException("Key column index must not be negative: " + columnIndex);
+        }
+        this.columnIndex = columnIndex;
+        this.keyType = keyType;
+        this.descending = descending;
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public KeyType getKeyType() {
+        return keyType;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    @Override
+    public String toString() {
+        return columnIndex + ":" + keyType.name().toLowerCase() + ":" + (descending ? "desc" : "asc");
+    }
+}
@@ -0,0 +1,81 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The sort key of multi-column CSV rows: the key columns in order of precedence, each with its type and direction.
+ * Rows are compared by the first column, ties by the second, and so on.
+ */
+public class SortKeySpec {
+    private final List<SortKeyColumn> columns;
+
+    public SortKeySpec(List<SortKeyColumn> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("A sort key needs at least one column");
+        }
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    }
+
+    /**
+     * Parses a key spec from its command-line form: comma-separated columns of the form
+     * {@code index[:type[:asc|desc]]}, e.g. {@code "2:long:desc,0:string"}. The type defaults to string
+     * and the direction to ascending.
+     *
+     * @param spec The command-line form of the key spec.
+     * @return The parsed key spec.
+     * @throws IllegalArgumentException If the spec is malformed.
+     */
+    public static SortKeySpec parse(String spec) {
+        List<SortKeyColumn> columns = new ArrayList<>();
+        for (String column : spec.split(",")) {
+            String[] parts = column.trim().split(":");
+            if (parts.length > 3 || parts[0].isEmpty()) {
+                throw new IllegalArgumentException("Malformed key column '" + column + "', expected index[:type[:asc|desc]]");
+            }
+            int columnIndex;
+            try {
+                columnIndex = Integer.parseInt(parts[0].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Key column index must be an integer: " + parts[0]);
+            }
+            KeyType keyType = parts.length > 1 ? KeyType.fromName(parts[1]) : KeyType.STRING;
+            boolean descending = false;
+            if (parts.length > 2) {
+                String direction = parts[2].trim();
+                if (direction.equalsIgnoreCase("desc")) {
+                    descending = true;
+                } else if (!direction.equalsIgnoreCase("asc")) {
+                    throw new IllegalArgumentException("Unknown sort direction: " + parts[2]);
+                }
+            }
+            columns.add(new SortKeyColumn(columnIndex, keyType, descending));
+        }
+        return new SortKeySpec(columns);
+    }
+
+    public List<SortKeyColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return The highest column index of the key, which bounds how much of a row has to be split into fields.
+     */
+    public int getMaxColumnIndex() {
+        int maxColumnIndex = 0;
+        for (SortKeyColumn column : columns) {
+            maxColumnIndex = Math.max(maxColumnIndex, column.getColumnIndex());
+        }
+        return maxColumnIndex;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        for (SortKeyColumn column : columns) {
+            spec.append(spec.length() > 0 ? "," : "").append(column);
+        }
+        return spec.toString();
+    }
+}
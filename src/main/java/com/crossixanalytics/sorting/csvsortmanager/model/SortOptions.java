@@ -0,0 +1,200 @@
+package com.crossixanalytics.sorting.csvsortmanager.model;
+
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+
+/**
+ * Tunable settings of a sort job which are not part of the basic input (file path, number of records, mode).
+ * Every setting has a default, so a plain {@code new SortOptions()} reproduces the default behavior.
+ */
+public class SortOptions {
+    private SortAlgorithm sortAlgorithm = SortAlgorithm.COMPARISON;
+    private ReaderType readerType = ReaderType.MAPPED;
+    private int ioBufferSize = IOConstants.WRITE_BUFFER_SIZE;
+    private boolean parallelFinalMerge;
+    private long memoryBudget; // 0 selects the default share of the heap
+    private long offHeapBudget; // 0 holds the partitions on the heap
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private Long seed; // null selects a different random dataset on every run
+    private KeyDistribution keyDistribution = KeyDistribution.UNIFORM;
+    private RunFormat runFormat = RunFormat.TEXT;
+    private RunGeneration runGeneration = RunGeneration.PARTITION;
+    private boolean presortednessScan = true;
+    private boolean resume;
+    private long prefetchBudget; // 0 reads the merged runs synchronously
+    private long progressIntervalSeconds; // 0 disables the progress output
+    private String metricsFilePath; // null only logs the metrics summary
+    private SortKeySpec keySpec; // null sorts one integer per line
+    private char fieldDelimiter = ',';
+    private boolean headerRow;
+
+    public SortAlgorithm getSortAlgorithm() {
+        return sortAlgorithm;
+    }
+
+    public SortOptions setSortAlgorithm(SortAlgorithm sortAlgorithm) {
+        this.sortAlgorithm = sortAlgorithm;
+        return this;
+    }
+
+    public ReaderType getReaderType() {
+        return readerType;
+    }
+
+    public SortOptions setReaderType(ReaderType readerType) {
+        this.readerType = readerType;
+        return this;
+    }
+
+    public int getIoBufferSize() {
+        return ioBufferSize;
+    }
+
+    public SortOptions setIoBufferSize(int ioBufferSize) {
+        this.ioBufferSize = ioBufferSize;
+        return this;
+    }
+
+    public boolean isParallelFinalMerge() {
+        return parallelFinalMerge;
+    }
+
+    public SortOptions setParallelFinalMerge(boolean parallelFinalMerge) {
+        this.parallelFinalMerge = parallelFinalMerge;
+        return this;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public SortOptions setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        return this;
+    }
+
+    public long getOffHeapBudget() {
+        return offHeapBudget;
+    }
+
+    public SortOptions setOffHeapBudget(long offHeapBudget) {
+        this.offHeapBudget = offHeapBudget;
+        return this;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public SortOptions setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public SortOptions setSeed(Long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public KeyDistribution getKeyDistribution() {
+        return keyDistribution;
+    }
+
+    public SortOptions setKeyDistribution(KeyDistribution keyDistribution) {
+        this.keyDistribution = keyDistribution;
+        return this;
+    }
+
+    public RunFormat getRunFormat() {
+        return runFormat;
+    }
+
+    public SortOptions setRunFormat(RunFormat runFormat) {
+        this.runFormat = runFormat;
+        return this;
+    }
+
+    public RunGeneration getRunGeneration() {
+        return runGeneration;
+    }
+
+    public SortOptions setRunGeneration(RunGeneration runGeneration) {
+        this.runGeneration = runGeneration;
+        return this;
+    }
+
+    public boolean isPresortednessScan() {
+        return presortednessScan;
+    }
+
+    public SortOptions setPresortednessScan(boolean presortednessScan) {
+        this.presortednessScan = presortednessScan;
+        return this;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public SortOptions setResume(boolean resume) {
+        this.resume = resume;
+        return this;
+    }
+
+    public long getPrefetchBudget() {
+        return prefetchBudget;
+    }
+
+    public SortOptions setPrefetchBudget(long prefetchBudget) {
+        this.prefetchBudget = prefetchBudget;
+        return this;
+    }
+
+    public long getProgressIntervalSeconds() {
+        return progressIntervalSeconds;
+    }
+
+    public SortOptions setProgressIntervalSeconds(long progressIntervalSeconds) {
+        this.progressIntervalSeconds = progressIntervalSeconds;
+        return this;
+    }
+
+    public String getMetricsFilePath() {
+        return metricsFilePath;
+    }
+
+    public SortOptions setMetricsFilePath(String metricsFilePath) {
+        this.metricsFilePath = metricsFilePath;
+        return this;
+    }
+
+    public SortKeySpec getKeySpec() {
+        return keySpec;
+    }
+
+    public SortOptions setKeySpec(SortKeySpec keySpec) {
+        this.keySpec = keySpec;
+        return this;
+    }
+
+    public char getFieldDelimiter() {
+        return fieldDelimiter;
+    }
+
+    public SortOptions setFieldDelimiter(char fieldDelimiter) {
+        this.fieldDelimiter = fieldDelimiter;
+        return this;
+    }
+
+    public boolean isHeaderRow() {
+        return headerRow;
+    }
+
+    public SortOptions setHeaderRow(boolean headerRow) {
+        this.headerRow = headerRow;
+        return this;
+    }
+}
@@ -1,36 +1,77 @@
 package com.crossixanalytics.sorting.csvsortmanager.processor;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.DirectIntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.Presortedness;
+import com.crossixanalytics.sorting.csvsortmanager.model.ReaderType;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunGeneration;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortAlgorithm;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeySpec;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
 import com.crossixanalytics.sorting.csvsortmanager.service.implementations.*;
 import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.*;
 import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.evaluators.PresortednessEvaluator;
 import com.crossixanalytics.sorting.csvsortmanager.util.evaluators.SystemSpecsEvaluator;
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.ProgressReporter;
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.SortMetrics;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.SortKeyEncoder;
+import com.crossixanalytics.sorting.csvsortmanager.util.readers.IntRunReader;
 import com.crossixanalytics.sorting.csvsortmanager.util.validators.CSVNumberOfRecordsValidator;
+import com.crossixanalytics.sorting.csvsortmanager.util.validators.DiskCapacityValidator;
 import com.crossixanalytics.sorting.csvsortmanager.util.validators.FilePathValidator;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Processor class for sorting CSV files.
  * It supports both single-threaded and multithreaded processing modes.
+ * Every phase of a job is measured in its {@link SortMetrics}, summarized as JSON once the job ends.
+ * With a {@link SortKeySpec} in the sort options, the lines are multi-column rows sorted by their key columns
+ * instead of one integer per line.
  */
 
 public class CSVSortProcessor {
     private static final Logger logger = LoggerFactory.getLogger(CSVSortProcessor.class);
+    private static final int PIPELINE_WRITER_THREADS = 1; // A single sequential writer keeps the disk streaming
+    private static final int RECORD_LENGTH_SAMPLE_SIZE = 1 << 16;
+    private static final String RUN_DIRECTORY_PREFIX = "csvsortmanager_runs_";
+    private static final int MAX_NATURAL_RUNS = 64; // Merged straight from the input, without writing runs
+    private static final long REVERSE_BLOCK_SIZE = 1 << 23; // Read forward, written backward by the streaming reverse
+    private static final String PHASE_TOTAL = "total";
+    private static final String PHASE_GENERATE = "generate";
+    private static final String PHASE_PRESORTEDNESS_SCAN = "presortednessScan";
+    private static final String PHASE_PRESORTED_FAST_PATH = "presortedFastPath";
+    private static final String PHASE_IN_MEMORY_SORT = "inMemorySort";
+    private static final String PHASE_PARTITION_PLANNING = "partitionPlanning";
+    private static final String PHASE_RUN_GENERATION = "runGeneration";
+    private static final String PHASE_MERGE = "merge";
     private final String inputFilePath;
-    private final int numberOfRecords;
+    private final String outputFilePath; // null when the input is generated rather than an existing file
+    private final long numberOfRecords;
     private final boolean multiProcessingMode;
+    private final SortOptions sortOptions;
+    private final SortMetrics metrics = new SortMetrics();
+    private long recordsSorted; // Discovered while the runs are generated
+    private String sortedOutputFilePath;
 
     /**
      * Constructs a CSVSortProcessor with specified input file path, number of records, and processing mode.
@@ -39,13 +80,76 @@ public class CSVSortProcessor {
      * @param numberOfRecords     Number of records to process.
      * @param multiProcessingMode Set to true for multi-threaded processing, false for single-threaded.
      */
-    public CSVSortProcessor(String inputFilePath, int numberOfRecords, boolean multiProcessingMode) {
+    public CSVSortProcessor(String inputFilePath, long numberOfRecords, boolean multiProcessingMode) {
+        this(inputFilePath, numberOfRecords, multiProcessingMode, new SortOptions());
+    }
+
+    /**
+     * Constructs a CSVSortProcessor with specified input file path, number of records, processing mode and sort options.
+     *
+     * @param inputFilePath       Path to the input CSV file.
+     * @param numberOfRecords     Number of records to process.
+     * @param multiProcessingMode Set to true for multi-threaded processing, false for single-threaded.
+     * @param sortOptions         Additional tuning options of the sort job.
+     */
+    public CSVSortProcessor(String inputFilePath, long numberOfRecords, boolean multiProcessingMode, SortOptions sortOptions) {
         this.inputFilePath = inputFilePath;
+        this.outputFilePath = null;
         this.numberOfRecords = numberOfRecords;
         this.multiProcessingMode = multiProcessingMode;
+        this.sortOptions = sortOptions;
+    }
+
+    /**
+     * Constructs a CSVSortProcessor which sorts an existing input file into an output file, instead of generating the input.
+     * The number of records is discovered while the input is read. The output may be the input file itself.
+     *
+     * @param inputFilePath       Path to the existing input CSV file.
+     * @param outputFilePath      Path to the sorted output CSV file.
+     * @param multiProcessingMode Set to true for multi-threaded processing, false for single-threaded.
+     * @param sortOptions         Additional tuning options of the sort job.
+     */
+    public CSVSortProcessor(String inputFilePath, String outputFilePath, boolean multiProcessingMode, SortOptions sortOptions) {
+        this.inputFilePath = inputFilePath;
+        this.outputFilePath = outputFilePath;
+        this.numberOfRecords = 0;
+        this.multiProcessingMode = multiProcessingMode;
+        this.sortOptions = sortOptions;
     }
 
     public void processCSVFile() {
+        ProgressReporter progressReporter = sortOptions.getProgressIntervalSeconds() > 0
+                ? new ProgressReporter(metrics, sortOptions.getProgressIntervalSeconds())
+                : null;
+        SortMetrics.Measurement total = metrics.startPhase(PHASE_TOTAL);
+        try {
+            if (outputFilePath != null) {
+                processExistingCSVFile();
+            } else {
+                processGeneratedCSVFile();
+            }
+        } finally {
+            total.stop(recordsSorted, 0, 0);
+            if (progressReporter != null) {
+                progressReporter.close();
+            }
+            reportMetrics();
+        }
+    }
+
+    /**
+     * The metrics of the job, complete once {@link #processCSVFile()} returned.
+     *
+     * @return The per-phase metrics of the job.
+     */
+    public SortMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Generates the input file and sorts it into the output directory next to it.
+     */
+    private void processGeneratedCSVFile() {
         String directoryPrefix = multiProcessingMode ? "multi-threaded-processing" : "single-threaded-processing";
         Path path = Paths.get(inputFilePath);
         Path baseDirectory = path.getParent();
@@ -58,17 +162,431 @@ public class CSVSortProcessor {
 
             if (validateInputs()) {
                 String newInputFilePath = inputDirectory.resolve(path.getFileName()).toString();
-                generateCSVFile(newInputFilePath);
-                List<String> sortedFilePaths = multiProcessingMode
-                        ? processCSVFileMultiThreaded(newInputFilePath, outputDirectory)
-                        : processCSVFileSingleThreaded(newInputFilePath, outputDirectory);
-                mergeSortedFiles(sortedFilePaths, outputDirectory);
+                if (sortOptions.isResume() && Files.isRegularFile(Paths.get(newInputFilePath))
+                        && SortManifest.exists(outputDirectory, describeJob(newInputFilePath))) {
+                    logger.info("Resuming the sort of the previously generated input {}", newInputFilePath);
+                } else {
+                    generateCSVFile(newInputFilePath);
+                }
+                sortCSVFile(newInputFilePath, numberOfRecords, outputDirectory, outputDirectory.resolve(IOConstants.FINAL_SORTED_FILENAME).toString());
             }
         } catch (IOException | InterruptedException | ExecutionException e) {
             logger.error("Error during processing: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * Sorts the existing input file into the output file. The sorted runs are written to a run directory
+     * next to the output, named after it, which is removed once the output is complete. A failed sort leaves
+     * the run directory and its manifest in place, so it can be resumed.
+     */
+    private void processExistingCSVFile() {
+        if (!validateExistingInput()) {
+            return;
+        }
+        Path outputPath = Paths.get(outputFilePath).toAbsolutePath();
+        Path runDirectory = outputPath.resolveSibling(RUN_DIRECTORY_PREFIX + outputPath.getFileName());
+        try {
+            Files.createDirectories(runDirectory);
+            sortCSVFile(inputFilePath, estimateNumberOfRecords(inputFilePath), runDirectory, outputPath.toString());
+            SortJobSupport.deleteRunDirectory(runDirectory);
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            logger.error("Error during processing: {}", e.getMessage(), e);
+            logger.info("Kept the sorted runs in {}, rerun with --resume to continue", runDirectory);
+        }
+    }
+
+    /**
+     * Generates the sorted runs of the input file and merges them into the final output file.
+     *
+     * @param filePath            Path to the input file.
+     * @param numberOfRecords     The (possibly estimated) number of records of the input, which sizes the partitions.
+     * @param runDirectory        Path to the directory for the sorted runs and intermediate merge files.
+     * @param finalOutputFilePath Path to the final sorted file.
+     */
+    private void sortCSVFile(String filePath, long numberOfRecords, Path runDirectory, String finalOutputFilePath) throws IOException, InterruptedException, ExecutionException {
+        sortedOutputFilePath = finalOutputFilePath;
+        if (sortOptions.getKeySpec() != null) {
+            sortCSVRows(filePath, runDirectory, finalOutputFilePath);
+            logger.info("Sorted {} into {}", filePath, finalOutputFilePath);
+            return;
+        }
+        if (sortOptions.isPresortednessScan() && sortPresortedCSVFile(filePath, runDirectory, finalOutputFilePath)) {
+            logger.info("Sorted {} into {}", filePath, finalOutputFilePath);
+            return;
+        }
+        if (sortOptions.getRunGeneration() == RunGeneration.PARTITION && sortInMemory(filePath, numberOfRecords, finalOutputFilePath)) {
+            logger.info("Sorted {} into {}", filePath, finalOutputFilePath);
+            return;
+        }
+        SortManifest manifest = SortManifest.open(runDirectory, describeJob(filePath), sortOptions.isResume());
+        try {
+            List<String> sortedFilePaths;
+            SortMetrics.Measurement runGeneration = metrics.startPhase(PHASE_RUN_GENERATION);
+            if (sortOptions.getRunGeneration() == RunGeneration.REPLACEMENT_SELECTION) {
+                sortedFilePaths = processCSVFileReplacementSelection(filePath, numberOfRecords, runDirectory, manifest);
+            } else if (multiProcessingMode) {
+                sortedFilePaths = processCSVFileMultiThreaded(filePath, numberOfRecords, runDirectory, manifest);
+            } else {
+                sortedFilePaths = processCSVFileSingleThreaded(filePath, numberOfRecords, runDirectory, manifest);
+            }
+            runGeneration.stop(recordsSorted, Files.size(Paths.get(filePath)), SortJobSupport.totalSize(sortedFilePaths));
+            mergeSortedFiles(sortedFilePaths, runDirectory, finalOutputFilePath, manifest);
+            manifest.complete();
+        } finally {
+            manifest.close();
+        }
+        logger.info("Sorted {} into {}", filePath, finalOutputFilePath);
+    }
+
+    /**
+     * Sorts an input which fits the memory budget as a whole - with the scratch copy of its sort, if any - in memory:
+     * one read into a single buffer, one sort and one write of the final output, without any sorted runs or merge.
+     * In multi-threaded mode an on-heap buffer is sorted by a parallel merge sort on the worker threads; otherwise,
+     * and off the heap, the buffer is sorted by the configured partition sorter.
+     * The estimated number of records only comes from a sample of the file, so the buffer is never grown past its
+     * computed capacity: unless the file is too small to hold more records than that, it is read slice by slice,
+     * and an input holding more records falls back to sorted runs.
+     *
+     * @param filePath            Path to the input file.
+     * @param numberOfRecords     The (possibly estimated) number of records of the input.
+     * @param finalOutputFilePath Path to the final sorted file.
+     * @return true if the input was sorted, false if it does not fit the memory budget.
+     */
+    private boolean sortInMemory(String filePath, long numberOfRecords, String finalOutputFilePath) throws IOException, InterruptedException, ExecutionException {
+        boolean offHeap = sortOptions.getOffHeapBudget() > 0;
+        long memoryBudget = offHeap
+                ? SystemSpecsEvaluator.resolveOffHeapBudget(sortOptions.getOffHeapBudget())
+                : SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget());
+        boolean parallel = multiProcessingMode && !offHeap;
+        int bytesPerRecord = SystemSpecsEvaluator.calculateBytesPerRecord(parallel
+                ? SortAlgorithm.RADIX // The parallel merge sort needs a scratch copy too
+                : SortJobSupport.effectiveSortAlgorithm(sortOptions));
+        long maxCapacity = offHeap ? DirectIntRecordBuffer.MAX_CAPACITY : Integer.MAX_VALUE;
+        long fileSize = Files.size(Paths.get(filePath));
+        long maxRecords = fileSize / 2 + 1; // Every record but the last takes a digit and a line break at least
+        long fittingRecords = SystemSpecsEvaluator.calculatePartitionSize(Long.MAX_VALUE, memoryBudget, 1, bytesPerRecord, maxCapacity);
+        if (Math.min(numberOfRecords, maxRecords) > fittingRecords) {
+            return false;
+        }
+        int capacity = (int) Math.min(SystemSpecsEvaluator.calculatePartitionCapacity(Math.min(numberOfRecords, maxRecords)), maxRecords);
+
+        SortMetrics.Measurement inMemorySort = metrics.startPhase(PHASE_IN_MEMORY_SORT);
+        IntRecordBuffer records = SortJobSupport.createRecordBuffer(sortOptions, capacity);
+        SortMetrics.Measurement read = metrics.startTask(SortMetrics.PARTITION_READ);
+        if (maxRecords <= capacity) {
+            createReader().readCSVRecordRange(filePath, 0, fileSize, records);
+        } else if (!readCSVRecordsWithin(filePath, fileSize, records, capacity)) {
+            logger.info("{} holds more than the {} records estimated to fit a memory budget of {} bytes, sorting it in runs", filePath, capacity, memoryBudget);
+            read.stop(records.size(), 0, 0);
+            inMemorySort.stop(0, 0, 0); // The attempt's read is kept in the metrics, as its time was spent
+            return false;
+        }
+        read.stop(records.size(), fileSize, 0);
+        recordsSorted = records.size();
+        logger.info("All {} records fit a memory budget of {} bytes, sorting them in memory without sorted runs", recordsSorted, memoryBudget);
+
+        SortMetrics.Measurement sort = metrics.startTask(SortMetrics.PARTITION_SORT);
+        if (multiProcessingMode && !records.isDirect()) {
+            parallelSort(records);
+        } else {
+            SortJobSupport.createSorter(sortOptions).sortSingleCSVFileRecords(records);
+        }
+        sort.stop(records.size(), 0, 0);
+
+        SortMetrics.Measurement write = metrics.startTask(SortMetrics.RUN_WRITE);
+        new CSVFileWriterImpl(sortOptions.getIoBufferSize()).writeSortedRecords(finalOutputFilePath, records);
+        long outputSize = Files.size(Paths.get(finalOutputFilePath));
+        write.stop(records.size(), 0, outputSize);
+        inMemorySort.stop(recordsSorted, fileSize, outputSize);
+        return true;
+    }
+
+    /**
+     * Reads the file slice by slice into the buffer, as long as the records fit its capacity, so the buffer is not grown
+     * past it when the file holds more records than estimated.
+     *
+     * @param filePath Path to the input file.
+     * @param fileSize The size of the input file.
+     * @param records  The buffer to fill with the records of the file.
+     * @param capacity The largest number of records the buffer may hold.
+     * @return true if the whole file was read, false if its records do not fit the capacity.
+     * @throws IOException If an I/O error occurs.
+     */
+    private boolean readCSVRecordsWithin(String filePath, long fileSize, IntRecordBuffer records, int capacity) throws IOException {
+        int sliceCount = (int) Math.max(fileSize / IOConstants.READ_BUFFER_SIZE, 1);
+        long[] boundaries = calculatePartitionBoundaries(filePath, sliceCount);
+        CSVFileReader reader = createReader();
+        IntRecordBuffer slice = new IntRecordBuffer(IOConstants.READ_BUFFER_SIZE / 2 + 1);
+        for (int i = 0; i < sliceCount; i++) {
+            reader.readCSVRecordRange(filePath, boundaries[i], boundaries[i + 1], slice);
+            if (slice.size() > capacity - records.size()) {
+                return false;
+            }
+            records.addAll(slice.getRecords(), 0, slice.size());
+        }
+        return true;
+    }
+
+    /**
+     * Sorts an on-heap buffer with {@link Arrays#parallelSort}, whose fork/join merge sort runs on a pool of the
+     * configured number of threads rather than on the common pool.
+     *
+     * @param records The records to sort in place.
+     */
+    private void parallelSort(IntRecordBuffer records) throws InterruptedException, ExecutionException {
+        ForkJoinPool sortPool = new ForkJoinPool(sortOptions.getThreadCount());
+        try {
+            sortPool.submit(() -> Arrays.parallelSort(records.getRecords(), 0, records.size())).get();
+        } finally {
+            sortPool.shutdown();
+        }
+    }
+
+    /**
+     * Sorts multi-column rows by the key spec of the sort options. Every row's normalized key is extracted once while
+     * its partition is read, the partitions are sorted by key into keyed runs, and the runs are merged by key into the
+     * final file, after the header row if there is one. The presortedness scan, resume, replacement selection and
+     * the run format only apply to integer records.
+     *
+     * @param filePath            Path to the input file.
+     * @param runDirectory        Path to the directory for the keyed runs and intermediate merge files.
+     * @param finalOutputFilePath Path to the final sorted file.
+     */
+    private void sortCSVRows(String filePath, Path runDirectory, String finalOutputFilePath) throws IOException, InterruptedException, ExecutionException {
+        SortKeySpec keySpec = sortOptions.getKeySpec();
+        byte delimiter = (byte) sortOptions.getFieldDelimiter();
+        if (sortOptions.isResume() || sortOptions.getRunGeneration() == RunGeneration.REPLACEMENT_SELECTION) {
+            logger.warn("Resume and replacement selection do not apply to rows sorted by a key spec, sorting the partitions from scratch");
+        }
+        if (sortOptions.getOffHeapBudget() > 0) {
+            logger.warn("The off-heap budget only applies to integer partitions, holding the rows on the heap within the memory budget");
+        }
+        byte[] header = sortOptions.isHeaderRow() ? readHeaderRow(filePath) : null;
+        long dataStart = header != null ? header.length : 0;
+        long dataSize = Files.size(Paths.get(filePath)) - dataStart;
+        int workers = multiProcessingMode ? sortOptions.getThreadCount() : 1;
+        long memoryBudget = SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget());
+
+        SortMetrics.Measurement planning = metrics.startPhase(PHASE_PARTITION_PLANNING);
+        double[] averageLengths = sampleRowAndKeyLengths(filePath, dataStart, new SortKeyEncoder(keySpec, delimiter));
+        double averageRowLength = averageLengths[0];
+        double averageKeyLength = averageLengths[1];
+        long partitionBytes = SystemSpecsEvaluator.calculateRowPartitionBytes(memoryBudget, workers, averageRowLength, averageKeyLength);
+        int partitionCount = (int) Math.max(1, Math.min((dataSize + partitionBytes - 1) / partitionBytes, Integer.MAX_VALUE - 1));
+        long[] boundaries = calculatePartitionBoundaries(filePath, dataStart, partitionCount);
+        planning.stop(0, 0, 0);
+        logger.info("Sorting rows by {} in {} partition(s) of {} bytes for a memory budget of {} bytes shared by {} sort worker(s)",
+                keySpec, partitionCount, partitionBytes, memoryBudget, workers);
+
+        int partitionRecordCapacity = SystemSpecsEvaluator.calculatePartitionCapacity((long) (partitionBytes / averageRowLength));
+        int partitionDataCapacity = (int) Math.min(partitionBytes + (long) (partitionRecordCapacity * averageKeyLength), Integer.MAX_VALUE - 8);
+        RowRunGenerator runGenerator = new RowRunGenerator(keySpec, delimiter, workers, IOConstants.READ_BUFFER_SIZE, sortOptions.getIoBufferSize(), metrics);
+        metrics.trackProgress(PHASE_RUN_GENERATION, "records", (long) (dataSize / averageRowLength), runGenerator::getRecordsRead);
+        SortMetrics.Measurement runGeneration = metrics.startPhase(PHASE_RUN_GENERATION);
+        List<String> sortedFilePaths = runGenerator.generateRuns(filePath, boundaries, partitionDataCapacity, partitionRecordCapacity, runDirectory);
+        recordsSorted = runGenerator.getRecordsRead();
+        long runBytes = SortJobSupport.totalSize(sortedFilePaths);
+        runGeneration.stop(recordsSorted, dataSize, runBytes);
+        logger.info("Read {} rows into {} sorted runs", recordsSorted, sortedFilePaths.size());
+
+        try {
+            int fanIn = SystemSpecsEvaluator.calculateMergeFanIn(memoryBudget, IOConstants.RUN_READ_BUFFER_SIZE);
+            MergeScheduler scheduler = new MergeScheduler(
+                    new CSVRowLoserTreeFileMergerImpl(IOConstants.RUN_READ_BUFFER_SIZE, sortOptions.getIoBufferSize(), true, null),
+                    new CSVRowLoserTreeFileMergerImpl(IOConstants.RUN_READ_BUFFER_SIZE, sortOptions.getIoBufferSize(), false, header),
+                    fanIn, sortOptions.getThreadCount(), runDirectory, IOConstants.KEYED_RUN_FILE_TYPE, null, metrics);
+            metrics.trackProgress(PHASE_MERGE, "bytes", runBytes * MergeScheduler.calculateNumberOfPasses(sortedFilePaths.size(), fanIn), scheduler::getBytesMerged);
+            SortMetrics.Measurement merge = metrics.startPhase(PHASE_MERGE);
+            scheduler.merge(sortedFilePaths, finalOutputFilePath);
+            merge.stop(recordsSorted, runBytes, Files.size(Paths.get(finalOutputFilePath)));
+        } finally {
+            for (String sortedFilePath : sortedFilePaths) {
+                Files.deleteIfExists(Paths.get(sortedFilePath));
+            }
+        }
+    }
+
+    /**
+     * Samples the average length of the rows of a file and of their normalized keys from the rows of its first block.
+     * Only sizes the partitions; row buffers grow if a partition holds more than estimated.
+     *
+     * @param filePath  Path to the file.
+     * @param dataStart The offset of the first row, after the header row.
+     * @param encoder   The encoder of the rows' keys.
+     * @return The average row length, including its line break, and the average key length.
+     * @throws IOException If an I/O error occurs.
+     */
+    private double[] sampleRowAndKeyLengths(String filePath, long dataStart, SortKeyEncoder encoder) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer sample = ByteBuffer.allocate((int) Math.max(Math.min(RECORD_LENGTH_SAMPLE_SIZE, channel.size() - dataStart), 0));
+            while (sample.hasRemaining() && channel.read(sample, dataStart + sample.position()) > 0) {
+                // Fill the sample block
+            }
+            byte[] bytes = sample.array();
+            int length = sample.position();
+            long rows = 0;
+            long keyBytes = 0;
+            int rowStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    keyBytes += encoder.encode(bytes, rowStart, i - rowStart);
+                    rows++;
+                    rowStart = i + 1;
+                }
+            }
+            if (rows == 0) {
+                // A single row longer than the sample, or no rows at all
+                return new double[]{Math.max(length, 1), length > 0 ? encoder.encode(bytes, 0, length) : 0};
+            }
+            return new double[]{(double) rowStart / rows, (double) keyBytes / rows};
+        }
+    }
+
+    /**
+     * Reads the first line of the file, including its line break.
+     *
+     * @param filePath Path to the file.
+     * @return The bytes of the header row.
+     * @throws IOException If an I/O error occurs.
+     */
+    private byte[] readHeaderRow(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long headerEnd = findNextLineStart(channel, ByteBuffer.allocate(IOConstants.BUFFER_SIZE), 1, channel.size());
+            ByteBuffer header = ByteBuffer.allocate(Math.toIntExact(headerEnd));
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // Read the whole header row
+            }
+            return header.array();
+        }
+    }
+
+    /**
+     * Describes the input of a sort job and the options its runs depend on; a manifest is only resumed for the same description.
+     *
+     * @param filePath Path to the input file.
+     * @return The description of the job.
+     * @throws IOException If an I/O error occurs.
+     */
+    private String describeJob(String filePath) throws IOException {
+        Path path = Paths.get(filePath).toAbsolutePath();
+        return path + "|" + Files.size(path) + "|" + Files.getLastModifiedTime(path).toMillis()
+                + "|" + sortOptions.getRunFormat() + "|" + sortOptions.getRunGeneration();
+    }
+
+    /**
+     * Scans the input for presortedness and sorts it through a fast path if it is already sorted, reverse sorted
+     * or made of few ascending natural runs: a straight copy, a streaming reverse, or a direct merge of the natural runs
+     * from the input. None of them partitions, sorts or writes runs.
+     *
+     * @param filePath            Path to the input file.
+     * @param tempDir             Path to the directory for the temporary output of an in-place sort.
+     * @param finalOutputFilePath Path to the final sorted file.
+     * @return true if a fast path sorted the input, false if the input needs the regular sort.
+     * @throws IOException If an I/O error occurs.
+     */
+    private boolean sortPresortedCSVFile(String filePath, Path tempDir, String finalOutputFilePath) throws IOException {
+        long memoryBudget = SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget());
+        int maxNaturalRuns = Math.min(MAX_NATURAL_RUNS, SystemSpecsEvaluator.calculateMergeFanIn(memoryBudget, IOConstants.RUN_READ_BUFFER_SIZE));
+        long startTime = System.nanoTime();
+        SortMetrics.Measurement scan = metrics.startPhase(PHASE_PRESORTEDNESS_SCAN);
+        Presortedness presortedness = PresortednessEvaluator.evaluate(filePath, maxNaturalRuns);
+        scan.stop(0, 0, 0);
+        long scanMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (presortedness.getKind() == Presortedness.Kind.UNSORTED) {
+            logger.info("Presortedness scan: unsorted input ({} ms) - using the regular sort", scanMillis);
+            return false;
+        }
+
+        Path outputPath = Paths.get(finalOutputFilePath);
+        boolean inPlace = Files.exists(outputPath) && Files.isSameFile(Paths.get(filePath), outputPath);
+        long inputSize = Files.size(Paths.get(filePath));
+        SortMetrics.Measurement fastPath = metrics.startPhase(PHASE_PRESORTED_FAST_PATH);
+        if (presortedness.getKind() == Presortedness.Kind.SORTED && presortedness.isCanonical()) {
+            if (inPlace) {
+                logger.info("Presortedness scan: sorted input ({} ms) - already sorted in place, nothing to do", scanMillis);
+            } else {
+                logger.info("Presortedness scan: sorted input ({} ms) - copying it", scanMillis);
+                Files.copy(Paths.get(filePath), outputPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            fastPath.stop(0, inPlace ? 0 : inputSize, inPlace ? 0 : inputSize);
+            return true;
+        }
+
+        // The output of an in-place sort cannot overwrite the input while it is being read
+        Path targetPath = inPlace ? tempDir.resolve(IOConstants.TEMP_FILE_PREFIX + "presorted" + IOConstants.FILE_TYPE) : outputPath;
+        if (presortedness.getKind() == Presortedness.Kind.REVERSE_SORTED) {
+            logger.info("Presortedness scan: reverse sorted input ({} ms) - reversing it", scanMillis);
+            reverseCSVFile(filePath, targetPath.toString());
+        } else {
+            long[] naturalRunOffsets = presortedness.getNaturalRunOffsets();
+            logger.info("Presortedness scan: {} input with {} natural run(s) ({} ms) - merging the natural runs directly",
+                    presortedness.getKind() == Presortedness.Kind.SORTED ? "sorted" : "nearly sorted", naturalRunOffsets.length, scanMillis);
+            mergeNaturalRuns(filePath, naturalRunOffsets, targetPath.toString());
+        }
+        fastPath.stop(0, inputSize, Files.size(targetPath));
+        if (inPlace) {
+            Files.move(targetPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the records of a reverse sorted file in reverse order, reading it in line-aligned blocks from its end.
+     *
+     * @param filePath       Path to the reverse sorted file.
+     * @param outputFilePath Path to the sorted output file.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void reverseCSVFile(String filePath, String outputFilePath) throws IOException {
+        CSVFileReader reader = createReader();
+        IntRecordBuffer block = new IntRecordBuffer();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+             IntRecordWriter writer = IntRecordWriter.open(outputFilePath, sortOptions.getIoBufferSize())) {
+            ByteBuffer probe = ByteBuffer.allocate(IOConstants.BUFFER_SIZE);
+            long blockSize = REVERSE_BLOCK_SIZE;
+            long end = channel.size();
+            while (end > 0) {
+                long start = end <= blockSize ? 0 : findNextLineStart(channel, probe, end - blockSize, end);
+                if (start >= end) {
+                    blockSize *= 2; // A single line longer than the block
+                    continue;
+                }
+                reader.readCSVRecordRange(filePath, start, end, block);
+                int[] records = block.getRecords();
+                for (int i = block.size() - 1; i >= 0; i--) {
+                    writer.writeRecord(records[i]);
+                }
+                end = start;
+            }
+        }
+    }
+
+    /**
+     * Merges the ascending natural runs of a file straight from their byte ranges in the file.
+     *
+     * @param filePath          Path to the file.
+     * @param naturalRunOffsets The offsets of the line starts of the natural runs, in file order.
+     * @param outputFilePath    Path to the sorted output file.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void mergeNaturalRuns(String filePath, long[] naturalRunOffsets, String outputFilePath) throws IOException {
+        List<IntRunReader> naturalRuns = new ArrayList<>(naturalRunOffsets.length);
+        try {
+            for (int i = 0; i < naturalRunOffsets.length; i++) {
+                long end = i + 1 < naturalRunOffsets.length ? naturalRunOffsets[i + 1] : Long.MAX_VALUE;
+                naturalRuns.add(new IntRunReader(filePath, naturalRunOffsets[i], end, IOConstants.RUN_READ_BUFFER_SIZE));
+            }
+            try (IntRecordWriter writer = IntRecordWriter.open(outputFilePath, sortOptions.getIoBufferSize())) {
+                new CSVLoserTreeFileMergerImpl(IOConstants.RUN_READ_BUFFER_SIZE, sortOptions.getIoBufferSize()).merge(naturalRuns, writer);
+            }
+        } finally {
+            for (IntRunReader naturalRun : naturalRuns) {
+                naturalRun.close();
+            }
+        }
+    }
+
     /**
      * Validates the input file path and number of records.
      *
@@ -88,234 +606,370 @@ public class CSVSortProcessor {
         return true;
     }
 
+    /**
+     * Validates the existing input file and output file path, and that the disk can hold the runs and the output.
+     *
+     * @return true if the input file can be sorted into the output file, false otherwise.
+     */
+    private boolean validateExistingInput() {
+        if (!FilePathValidator.isFilePathValid(Paths.get(outputFilePath).toAbsolutePath().toString())) {
+            logger.error("Error - Invalid output file path: {}", outputFilePath);
+            return false;
+        }
+        if (!DiskCapacityValidator.hasCapacityForSort(inputFilePath, outputFilePath)) {
+            logger.error("Error - Cannot sort input file {} into {}", inputFilePath, outputFilePath);
+            return false;
+        }
+        logger.info("Successful Validation - Input file {} can be sorted into {}", inputFilePath, outputFilePath);
+        return true;
+    }
+
     private void generateCSVFile(String newInputFilePath) throws IOException {
-        CSVFileGenerator fileGenerator = new CSVFileGeneratorImpl();
+        CSVParallelFileGeneratorImpl fileGenerator = new CSVParallelFileGeneratorImpl(sortOptions.getThreadCount(),
+                sortOptions.getSeed(), sortOptions.getKeyDistribution(), sortOptions.getIoBufferSize());
+        metrics.trackProgress(PHASE_GENERATE, "records", numberOfRecords, fileGenerator::getRecordsGenerated);
+        SortMetrics.Measurement generate = metrics.startPhase(PHASE_GENERATE);
         fileGenerator.createCSVFile(newInputFilePath, numberOfRecords);
+        generate.stop(numberOfRecords, 0, Files.size(Paths.get(newInputFilePath)));
         logger.info("CSV file generated successfully at path: {}", newInputFilePath);
     }
 
     /**
      * Processes the CSV file in single-threaded mode.
-     * Reads, sorts, and writes the records in chunks defined by the partition size.
+     * Reads, sorts, and writes the records in chunks defined by the partition byte ranges.
      *
      * @param newInputFilePath Path to the input file for reading.
+     * @param numberOfRecords  The (possibly estimated) number of records of the input.
      * @param outputDir        Path to the output directory for writing sorted files.
+     * @param manifest         The manifest checkpointing the sorted runs.
      * @return A list of paths to sorted file chunks.
      * @throws IOException If an I/O error occurs.
      */
-    private List<String> processCSVFileSingleThreaded(String newInputFilePath, Path outputDir) throws IOException {
-        long partitionSize = SystemSpecsEvaluator.calculatePartitionSize(numberOfRecords);
-        long offset = 0;
+    private List<String> processCSVFileSingleThreaded(String newInputFilePath, long numberOfRecords, Path outputDir, SortManifest manifest) throws IOException {
+        long partitionSize = SortJobSupport.calculatePartitionSize(sortOptions, numberOfRecords, 1);
+        long[] boundaries = planPartitionBoundaries(newInputFilePath, calculatePartitionCount(numberOfRecords, partitionSize), manifest);
         List<String> sortedFilePaths = new ArrayList<>();
-        int partitionIndex = 0;
-
-        while (partitionIndex * partitionSize < numberOfRecords) {
-            List<Integer> records = new CSVFileReaderImpl().readCSVRecords(newInputFilePath, (int) partitionSize, offset);
-            List<Integer> sortedRecords = new CSVSingleFileSorterImpl().sortSingleCSVFileRecords(records);
-            String sortedFilePath = outputDir.resolve(IOConstants.SORTED_FILE_PREFIX + partitionIndex + IOConstants.FILE_TYPE).toString();
-            new CSVFileWriterImpl().writeSortedRecords(sortedFilePath, sortedRecords);
-            sortedFilePaths.add(sortedFilePath);
-            offset += calculateRecordsBytes(records);
-            partitionIndex++;
+        IntRecordBuffer records = SortJobSupport.createRecordBuffer(sortOptions, SystemSpecsEvaluator.calculatePartitionCapacity(partitionSize));
+        CSVSingleFileSorter sorter = SortJobSupport.createSorter(sortOptions);
+        AtomicLong recordsRead = new AtomicLong();
+        metrics.trackProgress(PHASE_RUN_GENERATION, "records", numberOfRecords, recordsRead::get);
+
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            SortManifest.CompletedRun completedRun = manifest.findCompletedRun(i, boundaries[i], boundaries[i + 1]);
+            if (completedRun != null) {
+                recordsRead.addAndGet(completedRun.getRecords());
+                if (completedRun.getFilePath() != null) {
+                    sortedFilePaths.add(completedRun.getFilePath());
+                }
+                continue;
+            }
+            SortMetrics.Measurement read = metrics.startTask(SortMetrics.PARTITION_READ);
+            createReader().readCSVRecordRange(newInputFilePath, boundaries[i], boundaries[i + 1], records);
+            read.stop(records.size(), boundaries[i + 1] - boundaries[i], 0);
+            recordsRead.addAndGet(records.size());
+            String sortedFilePath = processAndWriteSinglePartition(records, sorter, outputDir, i);
+            manifest.recordRun(i, boundaries[i], boundaries[i + 1], records.size(), sortedFilePath);
+            if (sortedFilePath != null) {
+                sortedFilePaths.add(sortedFilePath);
+            }
         }
 
+        recordsSorted = recordsRead.get();
+        logger.info("Read {} records into {} sorted runs", recordsSorted, sortedFilePaths.size());
         return sortedFilePaths;
     }
 
 
     /**
-     * Processes the CSV file in multi-threaded mode using a thread pool.
-     * Distributes the sorting workload across multiple threads.
+     * Processes the CSV file in multi-threaded mode using a staged read/sort/write pipeline.
+     * One reader thread feeds the partitions to the sorter threads, and a writer thread writes the
+     * sorted runs, so disk and CPU work overlap while a bounded pool of partition buffers caps memory.
      *
      * @param newInputFilePath Path to the input file for reading.
+     * @param numberOfRecords  The (possibly estimated) number of records of the input.
      * @param outputDir        Path to the output directory for writing sorted files.
+     * @param manifest         The manifest checkpointing the sorted runs.
      * @return A list of paths to sorted file chunks.
      * @throws IOException          If an I/O error occurs.
      * @throws ExecutionException   If a computation threw an exception.
      * @throws InterruptedException If the current thread was interrupted while waiting.
      */
-    private List<String> processCSVFileMultiThreaded(String newInputFilePath, Path outputDir) throws IOException, ExecutionException, InterruptedException {
-        ExecutorService threadPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        List<Future<List<String>>> futuresList = new ArrayList<>();
-
-        long totalRecords = countTotalNumberOfRecords(newInputFilePath);
-        long partitionSize = SystemSpecsEvaluator.calculatePartitionSize(numberOfRecords);
-        int partitionCount = (int) Math.ceil((double) totalRecords / partitionSize);
+    private List<String> processCSVFileMultiThreaded(String newInputFilePath, long numberOfRecords, Path outputDir, SortManifest manifest) throws IOException, ExecutionException, InterruptedException {
+        RunGenerationPipeline pipeline = new RunGenerationPipeline(createReader(), () -> SortJobSupport.createSorter(sortOptions),
+                new CSVFileWriterImpl(sortOptions.getIoBufferSize(), sortOptions.getRunFormat()), sortOptions.getThreadCount(),
+                PIPELINE_WRITER_THREADS, sortOptions.getRunFormat().getFileType(), metrics, capacity -> SortJobSupport.createRecordBuffer(sortOptions, capacity));
+        metrics.trackProgress(PHASE_RUN_GENERATION, "records", numberOfRecords, pipeline::getRecordsRead);
+
+        long partitionSize = SortJobSupport.calculatePartitionSize(sortOptions, numberOfRecords, pipeline.getBufferCount());
+        long[] boundaries = planPartitionBoundaries(newInputFilePath, calculatePartitionCount(numberOfRecords, partitionSize), manifest);
+        List<String> sortedFilePaths = pipeline.generateRuns(newInputFilePath, boundaries, SystemSpecsEvaluator.calculatePartitionCapacity(partitionSize), outputDir, manifest);
+        recordsSorted = pipeline.getRecordsRead();
+        logger.info("Read {} records into {} sorted runs", recordsSorted, sortedFilePaths.size());
+        return sortedFilePaths;
+    }
 
-        List<Long> offsets = calculateOffsetsByPartition(newInputFilePath, partitionSize, partitionCount);
 
-        for (int i = 0; i < partitionCount; i++) {
-            long offset = i < offsets.size() ? offsets.get(i) : totalRecords;
-            int finalI = i;
-            Future<List<String>> future = threadPool.submit(() -> {
-                List<Integer> records = new CSVFileReaderImpl().readCSVRecords(newInputFilePath, (int) partitionSize, offset);
-                return processAndWriteSinglePartition(records, outputDir, finalI);
-            });
-            futuresList.add(future);
+    /**
+     * Generates the sorted runs by replacement selection over a single sequential read of the input, with a selection heap
+     * sized by the whole memory budget. The runs are about twice the heap size on random input, and presorted input
+     * becomes a single run. Run generation is sequential in both processing modes; the merge still uses all the threads.
+     * The runs depend on each other, so they are only checkpointed, and reused, once all of them are complete.
+     *
+     * @param newInputFilePath Path to the input file for reading.
+     * @param numberOfRecords  The (possibly estimated) number of records of the input.
+     * @param outputDir        Path to the output directory for writing sorted files.
+     * @param manifest         The manifest checkpointing the sorted runs.
+     * @return A list of paths to sorted file chunks.
+     * @throws IOException If an I/O error occurs.
+     */
+    private List<String> processCSVFileReplacementSelection(String newInputFilePath, long numberOfRecords, Path outputDir, SortManifest manifest) throws IOException {
+        if (sortOptions.getOffHeapBudget() > 0) {
+            logger.warn("The off-heap budget does not apply to replacement selection, whose heap is sized by the memory budget");
         }
-
-        List<String> sortedFilePaths = new ArrayList<>();
-        for (Future<List<String>> future : futuresList) {
-            sortedFilePaths.addAll(future.get());
+        List<String> completeRuns = manifest.findCompleteRuns();
+        if (completeRuns != null) {
+            logger.info("Reusing the {} sorted runs of {} records of the previous attempt", completeRuns.size(), manifest.getCompleteRunRecords());
+            recordsSorted = manifest.getCompleteRunRecords();
+            return completeRuns;
         }
-
-        threadPool.shutdown();
+        long memoryBudget = SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget());
+        long heapCapacity = SystemSpecsEvaluator.calculatePartitionSize(numberOfRecords, memoryBudget, 1, ReplacementSelectionRunGenerator.BYTES_PER_RECORD);
+        ReplacementSelectionRunGenerator runGenerator = new ReplacementSelectionRunGenerator((int) heapCapacity,
+                IOConstants.READ_BUFFER_SIZE, sortOptions.getIoBufferSize(), sortOptions.getRunFormat());
+        metrics.trackProgress(PHASE_RUN_GENERATION, "records", numberOfRecords, runGenerator::getRecordsRead);
+        List<String> sortedFilePaths = runGenerator.generateRuns(newInputFilePath, outputDir);
+        recordsSorted = runGenerator.getRecordsRead();
+        for (int i = 0; i < sortedFilePaths.size(); i++) {
+            manifest.recordRun(i, -1, -1, 0, sortedFilePaths.get(i));
+        }
+        manifest.recordRunsComplete(runGenerator.getRecordsRead());
         return sortedFilePaths;
     }
 
-
     /**
-     * Processes and writes a single partition of records.
+     * Sorts and writes a single partition of records held in a primitive buffer.
      *
-     * @param records        The list of records to be sorted and written.
+     * @param records        The buffer of records to be sorted (in place) and written.
+     * @param sorter         The sorter to sort the partition with.
      * @param outputDir      The output directory for the sorted file.
      * @param partitionIndex The index of the partition.
-     * @return A list containing the path to the sorted file.
+     * @return The path to the sorted file, or null if the partition held no records.
      * @throws IOException If an I/O error occurs during writing.
      */
-    private List<String> processAndWriteSinglePartition(List<Integer> records, Path outputDir, int partitionIndex) throws IOException {
-        List<Integer> sortedRecords = new CSVSingleFileSorterImpl().sortSingleCSVFileRecords(records);
-        String sortedFilePath = outputDir.resolve(IOConstants.SORTED_FILE_PREFIX + partitionIndex + IOConstants.FILE_TYPE).toString();
-        new CSVFileWriterImpl().writeSortedRecords(sortedFilePath, sortedRecords);
-        return Collections.singletonList(sortedFilePath);
+    private String processAndWriteSinglePartition(IntRecordBuffer records, CSVSingleFileSorter sorter, Path outputDir, int partitionIndex) throws IOException {
+        if (records.isEmpty()) {
+            return null;
+        }
+        SortMetrics.Measurement sort = metrics.startTask(SortMetrics.PARTITION_SORT);
+        sorter.sortSingleCSVFileRecords(records);
+        sort.stop(records.size(), 0, 0);
+        String sortedFilePath = outputDir.resolve(IOConstants.SORTED_FILE_PREFIX + partitionIndex + sortOptions.getRunFormat().getFileType()).toString();
+        SortMetrics.Measurement write = metrics.startTask(SortMetrics.RUN_WRITE);
+        new CSVFileWriterImpl(sortOptions.getIoBufferSize(), sortOptions.getRunFormat()).writeSortedRecords(sortedFilePath, records);
+        write.stop(records.size(), 0, Files.size(Paths.get(sortedFilePath)));
+        return sortedFilePath;
+    }
+
+    private CSVFileReader createReader() {
+        return sortOptions.getReaderType() == ReaderType.MAPPED
+                ? new CSVMappedFileReaderImpl()
+                : new CSVFileReaderImpl();
+    }
+
+    private int calculatePartitionCount(long numberOfRecords, long partitionSize) {
+        return Math.toIntExact(Math.max(1, (numberOfRecords + partitionSize - 1) / partitionSize));
     }
 
     /**
-     * Calculates file offsets for each partition.
+     * Estimates the number of records of an existing file from the average line length of its first block.
+     * Only sizes the partitions; partition buffers grow if a partition holds more records than estimated.
      *
-     * @param filePath       Path to the file.
-     * @param partitionSize  Size of each partition.
-     * @param partitionCount Total number of partitions.
-     * @return A list of offsets for each partition.
+     * @param filePath Path to the file.
+     * @return The estimated number of records.
      * @throws IOException If an I/O error occurs.
      */
-    private List<Long> calculateOffsetsByPartition(String filePath, long partitionSize, int partitionCount) throws IOException {
-        List<Long> offsets = new ArrayList<>();
-        long currentOffset = 0;
-
-        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
-            for (int i = 0; i < partitionCount; i++) {
-                offsets.add(currentOffset);
-                file.seek(currentOffset);
-
-                long lineCount = 0;
-                while (lineCount < partitionSize && file.readLine() != null) {
-                    lineCount++;
-                    currentOffset = file.getFilePointer();
+    private long estimateNumberOfRecords(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer sample = ByteBuffer.allocate((int) Math.min(RECORD_LENGTH_SAMPLE_SIZE, fileSize));
+            while (sample.hasRemaining() && channel.read(sample) > 0) {
+                // Fill the sample block
+            }
+            int lineBreaks = 0;
+            for (int i = 0; i < sample.position(); i++) {
+                if (sample.get(i) == '\n') {
+                    lineBreaks++;
                 }
             }
+            double averageLineLength = (double) sample.position() / Math.max(lineBreaks, 1);
+            long estimatedRecords = (long) Math.ceil(fileSize / Math.max(averageLineLength, 1));
+            logger.info("Estimated {} records in {} of {} bytes", estimatedRecords, filePath, fileSize);
+            return estimatedRecords;
         }
-        return offsets;
     }
 
-    private long countTotalNumberOfRecords(String newInputFilePath) throws IOException {
-        long recordCount = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader(newInputFilePath))) {
-            while (reader.readLine() != null) {
-                recordCount++;
-            }
+    /**
+     * Plans the partition boundaries of the file, reusing the plan of a resumed job so its completed runs still match
+     * their partitions, and records a new plan in the manifest.
+     *
+     * @param filePath       Path to the file.
+     * @param partitionCount Total number of partitions of a new plan.
+     * @param manifest       The manifest of the job.
+     * @return The partition boundaries; partition i spans the bytes [boundaries[i], boundaries[i + 1]).
+     * @throws IOException If an I/O error occurs.
+     */
+    private long[] planPartitionBoundaries(String filePath, int partitionCount, SortManifest manifest) throws IOException {
+        long[] boundaries = manifest.getPartitionBoundaries();
+        if (boundaries != null) {
+            logger.info("Reusing the plan of {} partitions of the previous attempt", boundaries.length - 1);
+            return boundaries;
         }
-        return recordCount;
+        SortMetrics.Measurement planning = metrics.startPhase(PHASE_PARTITION_PLANNING);
+        boundaries = calculatePartitionBoundaries(filePath, partitionCount);
+        planning.stop(0, 0, 0);
+        manifest.recordPartitionBoundaries(boundaries);
+        return boundaries;
     }
 
     /**
-     * Calculates the total bytes of all records in a list.
+     * Splits the file into equal byte ranges and snaps every inner boundary forward to the start of the next line,
+     * so each partition holds whole records. Costs one short read per boundary instead of a scan of the whole file.
      *
-     * @param records The list of records.
-     * @return The total bytes of all records.
+     * @param filePath       Path to the file.
+     * @param partitionCount Total number of partitions.
+     * @return The partition boundaries; partition i spans the bytes [boundaries[i], boundaries[i + 1]).
+     * @throws IOException If an I/O error occurs.
      */
-    private long calculateRecordsBytes(List<Integer> records) {
-        return records.stream().mapToInt(num -> Integer.toString(num).length() + System.lineSeparator().length()).sum();
+    private long[] calculatePartitionBoundaries(String filePath, int partitionCount) throws IOException {
+        return calculatePartitionBoundaries(filePath, 0, partitionCount);
     }
 
     /**
-     * Merges sorted files into a single final sorted file.
+     * Splits the file from the given offset into equal byte ranges, snapping every inner boundary forward to the start
+     * of the next line.
      *
-     * @param sortedFilePaths List of paths to sorted file chunks.
-     * @param outputDir       Path to the output directory for the final merged file.
-     * @throws IOException          If an I/O error occurs.
-     * @throws InterruptedException If the current thread was interrupted while waiting.
-     * @throws ExecutionException   If a computation threw an exception.
+     * @param filePath       Path to the file.
+     * @param startOffset    The offset of the first partition, which must be the start of a line.
+     * @param partitionCount Total number of partitions.
+     * @return The partition boundaries; partition i spans the bytes [boundaries[i], boundaries[i + 1]).
+     * @throws IOException If an I/O error occurs.
      */
-    private void mergeSortedFiles(List<String> sortedFilePaths, Path outputDir) throws IOException, InterruptedException, ExecutionException {
-        if (sortedFilePaths.size() <= 1) {
-            if (!sortedFilePaths.isEmpty()) {
-                Files.move(Paths.get(sortedFilePaths.get(0)), outputDir.resolve(IOConstants.FINAL_SORTED_FILENAME));
+    private long[] calculatePartitionBoundaries(String filePath, long startOffset, int partitionCount) throws IOException {
+        long[] boundaries = new long[partitionCount + 1];
+        boundaries[0] = startOffset;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long rangeSize = Math.max(fileSize - startOffset, 0);
+            ByteBuffer probe = ByteBuffer.allocate(IOConstants.BUFFER_SIZE);
+            for (int i = 1; i < partitionCount; i++) {
+                long target = startOffset + rangeSize / partitionCount * i + Math.min(i, rangeSize % partitionCount);
+                boundaries[i] = Math.max(findNextLineStart(channel, probe, target, fileSize), boundaries[i - 1]);
             }
-            return;
+            boundaries[partitionCount] = Math.max(fileSize, startOffset);
         }
+        return boundaries;
+    }
 
-        String finalOutputFilePath = outputDir.resolve(IOConstants.FINAL_SORTED_FILENAME).toString();
-        parallelMerge(sortedFilePaths, finalOutputFilePath);
+    /**
+     * Finds the offset of the first line starting at or after the given position.
+     */
+    private long findNextLineStart(FileChannel channel, ByteBuffer probe, long position, long fileSize) throws IOException {
+        long searchPosition = Math.max(position - 1, 0); // A line break right before the position makes it a line start
+        while (searchPosition < fileSize) {
+            probe.clear();
+            int bytesRead = channel.read(probe, searchPosition);
+            if (bytesRead <= 0) {
+                break;
+            }
+            for (int i = 0; i < bytesRead; i++) {
+                if (probe.get(i) == '\n') {
+                    return searchPosition + i + 1;
+                }
+            }
+            searchPosition += bytesRead;
+        }
+        return fileSize;
     }
 
     /**
-     * Parallel merging of sorted file chunks.
+     * Merges sorted files into a single final sorted file.
      *
-     * @param sortedFilePaths     List of sorted file paths.
-     * @param finalOutputFilePath Path for the final output file.
-     * @return A list of temporary file paths used during the merge.
+     * @param sortedFilePaths     List of paths to sorted file chunks.
+     * @param tempDir             Path to the directory for the intermediate merge files.
+     * @param finalOutputFilePath Path to the final merged file.
+     * @param manifest            The manifest checkpointing the intermediate merges.
+     * @throws IOException          If an I/O error occurs.
      * @throws InterruptedException If the current thread was interrupted while waiting.
      * @throws ExecutionException   If a computation threw an exception.
-     * @throws IOException          If an I/O error occurs.
      */
-    private void parallelMerge(List<String> sortedFilePaths, String finalOutputFilePath) throws InterruptedException, ExecutionException, IOException {
-        List<Path> tempFiles = executeParallelMerging(sortedFilePaths, finalOutputFilePath);
-        cleanUpTemporaryFiles(tempFiles);
-    }
-
-    private List<Path> executeParallelMerging(List<String> sortedFilePaths, String finalOutputFilePath) throws InterruptedException, ExecutionException, IOException {
-        ExecutorService threadPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        List<Future<String>> mergeFutures = new ArrayList<>();
-        List<Path> tempMergeFiles = new ArrayList<>();
-
-        int groupSize = 2;
-        for (int i = 0; i < sortedFilePaths.size(); i += groupSize) {
-            List<String> sortedFilePathsGroup = sortedFilePaths.subList(i, Math.min(i + groupSize, sortedFilePaths.size()));
-            mergeFutures.add(threadPool.submit(() -> mergeFilesAndTrackTempFile(sortedFilePathsGroup, tempMergeFiles)));
+    private void mergeSortedFiles(List<String> sortedFilePaths, Path tempDir, String finalOutputFilePath, SortManifest manifest) throws IOException, InterruptedException, ExecutionException {
+        if (sortedFilePaths.isEmpty()) {
+            Files.write(Paths.get(finalOutputFilePath), new byte[0]);
+            return;
         }
-
-        List<String> intermediateMergedFiles = new ArrayList<>();
-        for (Future<String> future : mergeFutures) {
-            intermediateMergedFiles.add(future.get());
+        RunFormat runFormat = sortOptions.getRunFormat();
+        if (sortedFilePaths.size() == 1 && runFormat == RunFormat.TEXT) {
+            Files.move(Paths.get(sortedFilePaths.get(0)), Paths.get(finalOutputFilePath), StandardCopyOption.REPLACE_EXISTING);
+            return;
         }
 
-        if (!intermediateMergedFiles.isEmpty()) {
-            new CSVFileMergerImpl().mergeCSVFiles(intermediateMergedFiles, finalOutputFilePath);
+        long memoryBudget = SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget());
+        int fanIn = SystemSpecsEvaluator.calculateMergeFanIn(memoryBudget, IOConstants.RUN_READ_BUFFER_SIZE);
+        int processors = sortOptions.getThreadCount();
+        CSVFileMerger finalMerger = createMerger(RunFormat.TEXT, sortOptions.getPrefetchBudget());
+        if (sortOptions.isParallelFinalMerge() && runFormat == RunFormat.BINARY) {
+            // Range splitting seeks into the runs by key, which needs line-addressable text runs
+            logger.warn("Parallel final merge needs text runs, merging the binary runs serially");
+        } else if (sortOptions.isParallelFinalMerge()) {
+            // Every range worker opens all the runs, so the budget is shared by processors x runs read buffers
+            long readBufferSize = memoryBudget / (2L * processors * Math.min(sortedFilePaths.size(), fanIn));
+            int rangeReadBufferSize = (int) Math.max(Math.min(readBufferSize, IOConstants.RUN_READ_BUFFER_SIZE), IOConstants.BUFFER_SIZE);
+            finalMerger = new CSVParallelRangeFileMergerImpl(processors, rangeReadBufferSize, sortOptions.getIoBufferSize());
         }
-
-        threadPool.shutdown();
-        return tempMergeFiles;
+        // The intermediate merges of a pass run concurrently and share the prefetch budget
+        MergeScheduler scheduler = new MergeScheduler(createMerger(runFormat, sortOptions.getPrefetchBudget() / processors), finalMerger,
+                fanIn, processors, tempDir, runFormat.getFileType(), manifest, metrics);
+        long runBytes = SortJobSupport.totalSize(sortedFilePaths);
+        metrics.trackProgress(PHASE_MERGE, "bytes", runBytes * MergeScheduler.calculateNumberOfPasses(sortedFilePaths.size(), fanIn), scheduler::getBytesMerged);
+        SortMetrics.Measurement merge = metrics.startPhase(PHASE_MERGE);
+        scheduler.merge(sortedFilePaths, finalOutputFilePath);
+        merge.stop(recordsSorted, runBytes, Files.size(Paths.get(finalOutputFilePath)));
     }
 
     /**
-     * Merges a group of sorted files and tracks the temporary file.
+     * Creates a merger of runs in the configured run format.
      *
-     * @param group     List of sorted file paths to be merged.
-     * @param tempFiles List to track temporary files.
-     * @return The path of the merged file.
-     * @throws IOException If an I/O error occurs.
+     * @param outputFormat   The format of the merged file: the run format for intermediate files, text for the final output.
+     * @param prefetchBudget The memory of the prefetch buffers of each merge, 0 for synchronous reads.
+     * @return A new merger.
      */
-    private String mergeFilesAndTrackTempFile(List<String> group, List<Path> tempFiles) throws IOException {
-        CSVFileMerger fileMerger = new CSVFileMergerImpl();
-        String mergedFilePath = IOConstants.TEMP_FILE_PREFIX + System.nanoTime() + IOConstants.FILE_TYPE;
-        fileMerger.mergeCSVFiles(group, mergedFilePath);
-        tempFiles.add(Paths.get(mergedFilePath));
-        return mergedFilePath;
+    private CSVFileMerger createMerger(RunFormat outputFormat, long prefetchBudget) {
+        return new CSVLoserTreeFileMergerImpl(IOConstants.RUN_READ_BUFFER_SIZE, sortOptions.getIoBufferSize(), sortOptions.getRunFormat(),
+                outputFormat, prefetchBudget);
     }
 
     /**
-     * Cleans up temporary files used during the merging process.
-     *
-     * @param tempFiles List of paths to the temporary files.
+     * Logs the JSON summary of the job's metrics, and writes it to the metrics file if one was requested.
      */
-    private void cleanUpTemporaryFiles(List<Path> tempFiles) {
-        for (Path tempFile : tempFiles) {
-            try {
-                Files.deleteIfExists(tempFile);
-            } catch (IOException e) {
-                logger.error("Error deleting temporary file: " + tempFile, e);
-            }
+    private void reportMetrics() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("input", inputFilePath);
+        attributes.put("output", sortedOutputFilePath);
+        attributes.put("records", recordsSorted);
+        attributes.put("multiProcessing", multiProcessingMode);
+        attributes.put("sortAlgorithm", SortJobSupport.effectiveSortAlgorithm(sortOptions));
+        attributes.put("readerType", sortOptions.getReaderType());
+        attributes.put("runFormat", sortOptions.getRunFormat());
+        attributes.put("runGeneration", sortOptions.getRunGeneration());
+        if (sortOptions.getKeySpec() != null) {
+            attributes.put("keys", sortOptions.getKeySpec());
+        }
+        attributes.put("memoryBudget", SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget()));
+        if (sortOptions.getOffHeapBudget() > 0) {
+            attributes.put("offHeapBudget", SystemSpecsEvaluator.resolveOffHeapBudget(sortOptions.getOffHeapBudget()));
         }
+        attributes.put("threads", sortOptions.getThreadCount());
+        metrics.writeSummary(attributes, sortOptions.getMetricsFilePath());
     }
 }
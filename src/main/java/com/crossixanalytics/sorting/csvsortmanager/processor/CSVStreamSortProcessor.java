@@ -0,0 +1,278 @@
+package com.crossixanalytics.sorting.csvsortmanager.processor;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunGeneration;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileWriterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVLoserTreeFileMergerImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVSingleFileSorter;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.evaluators.SystemSpecsEvaluator;
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.SortMetrics;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.IntRecordParser;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Sorts integer records read from an {@link InputStream} into an {@link OutputStream}, so a sort can sit in a Unix
+ * pipeline without landing its input on disk first. The records are parsed as they arrive into a partition buffer
+ * sized by the memory budget. An input which ends before the buffer fills is sorted in memory and written straight to
+ * the output. Otherwise every full buffer is sorted and spilled as a run to a temporary directory, and once the input
+ * ends the runs are merged - through intermediate passes only if they exceed the merge fan-in - with the final merge
+ * streamed to the output. The streams are read and written sequentially and left open.
+ * Multi-column rows sorted by a key spec need a file input, and are rejected; the other file-only options are
+ * ignored with a warning, and the presortedness scan is skipped.
+ */
+public class CSVStreamSortProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(CSVStreamSortProcessor.class);
+    private static final String SPILL_DIRECTORY_PREFIX = "csvsortmanager_spill_";
+    private static final int INITIAL_PARTITION_CAPACITY = 1 << 16; // Grows up to the partition size as records arrive
+    private static final String PHASE_TOTAL = "total";
+    private static final String PHASE_IN_MEMORY_SORT = "inMemorySort";
+    private static final String PHASE_RUN_GENERATION = "runGeneration";
+    private static final String PHASE_MERGE = "merge";
+    private final SortOptions sortOptions;
+    private final Path spillParentDirectory;
+    private final SortMetrics metrics = new SortMetrics();
+    private long recordsSorted;
+
+    /**
+     * @param sortOptions The sort options; the spilled runs go to the default temporary-file directory.
+     */
+    public CSVStreamSortProcessor(SortOptions sortOptions) {
+        this(sortOptions, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param sortOptions          The sort options.
+     * @param spillParentDirectory The directory in which a temporary directory is created for the spilled runs, if any.
+     */
+    public CSVStreamSortProcessor(SortOptions sortOptions, Path spillParentDirectory) {
+        this.sortOptions = sortOptions;
+        this.spillParentDirectory = spillParentDirectory;
+    }
+
+    /**
+     * Sorts the integer records of an input stream into an output stream with the given options.
+     *
+     * @param input       The stream of unsorted records, one integer per line.
+     * @param output      The stream receiving the sorted records.
+     * @param sortOptions The sort options.
+     * @return The number of records sorted.
+     * @throws IOException          If an I/O error occurs.
+     * @throws InterruptedException If the current thread was interrupted while waiting for a merge.
+     * @throws ExecutionException   If an intermediate merge failed.
+     */
+    public static long sort(InputStream input, OutputStream output, SortOptions sortOptions) throws IOException, InterruptedException, ExecutionException {
+        return new CSVStreamSortProcessor(sortOptions).sort(input, output);
+    }
+
+    /**
+     * Sorts the integer records of an input stream into an output stream. The spilled runs, if any, are deleted
+     * once the output is written or the sort failed.
+     *
+     * @param input  The stream of unsorted records, one integer per line.
+     * @param output The stream receiving the sorted records, flushed once they are all written.
+     * @return The number of records sorted.
+     * @throws IOException          If an I/O error occurs.
+     * @throws InterruptedException If the current thread was interrupted while waiting for a merge.
+     * @throws ExecutionException   If an intermediate merge failed.
+     */
+    public long sort(InputStream input, OutputStream output) throws IOException, InterruptedException, ExecutionException {
+        if (sortOptions.getKeySpec() != null) {
+            throw new IllegalArgumentException("Sorting rows by key columns needs a file input and output");
+        }
+        warnAboutFileOnlyOptions();
+        SortMetrics.Measurement total = metrics.startPhase(PHASE_TOTAL);
+        Path spillDirectory = null;
+        try {
+            // The size of the input is unknown up front, so only the budget bounds the partition
+            int partitionSize = (int) SortJobSupport.calculatePartitionSize(sortOptions, Long.MAX_VALUE, 1);
+            IntRecordBuffer records = SortJobSupport.createRecordBuffer(sortOptions, Math.min(partitionSize, INITIAL_PARTITION_CAPACITY));
+            CSVSingleFileSorter sorter = SortJobSupport.createSorter(sortOptions);
+            IntRecordParser parser = new IntRecordParser();
+            ReadableByteChannel inputChannel = Channels.newChannel(input);
+            ByteBuffer chunk = ByteBuffer.allocate(IOConstants.READ_BUFFER_SIZE);
+            List<String> runs = new ArrayList<>();
+            long bytesRead = 0;
+            long partitionStart = 0; // Input bytes read before the current partition, to the chunk
+            SortMetrics.Measurement runGeneration = null; // Started by the first spill
+
+            SortMetrics.Measurement read = metrics.startTask(SortMetrics.PARTITION_READ);
+            for (int bytes = inputChannel.read(chunk); bytes >= 0; bytes = inputChannel.read(chunk)) {
+                bytesRead += bytes;
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    parser.parse(chunk, records, partitionSize);
+                    if (records.size() >= partitionSize) {
+                        read.stop(records.size(), bytesRead - partitionStart, 0);
+                        partitionStart = bytesRead;
+                        if (spillDirectory == null) {
+                            runGeneration = metrics.startPhase(PHASE_RUN_GENERATION);
+                            spillDirectory = Files.createTempDirectory(spillParentDirectory, SPILL_DIRECTORY_PREFIX);
+                            logger.info("Input exceeds the partition size of {} records, spilling sorted runs to {}", partitionSize, spillDirectory);
+                        }
+                        runs.add(spillRun(records, sorter, spillDirectory, runs.size()));
+                        records.clear();
+                        read = metrics.startTask(SortMetrics.PARTITION_READ);
+                    }
+                }
+                chunk.clear();
+            }
+            parser.finish(records);
+            read.stop(records.size(), bytesRead - partitionStart, 0);
+            if (parser.getSkippedRecords() > 0) {
+                logger.warn("Skipped {} malformed record(s) of the input", parser.getSkippedRecords());
+            }
+
+            long bytesWritten;
+            if (runs.isEmpty()) {
+                bytesWritten = sortInMemory(records, sorter, output);
+            } else {
+                if (!records.isEmpty()) {
+                    runs.add(spillRun(records, sorter, spillDirectory, runs.size()));
+                }
+                runGeneration.stop(recordsSorted, bytesRead, SortJobSupport.totalSize(runs));
+                bytesWritten = mergeRuns(runs, spillDirectory, output);
+            }
+            output.flush();
+            logger.info("Sorted {} records from {} input bytes into {} output bytes", recordsSorted, bytesRead, bytesWritten);
+            return recordsSorted;
+        } finally {
+            total.stop(recordsSorted, 0, 0);
+            SortJobSupport.deleteRunDirectory(spillDirectory);
+            reportMetrics();
+        }
+    }
+
+    /**
+     * The metrics of the last sort, complete once {@link #sort(InputStream, OutputStream)} returned.
+     *
+     * @return The per-phase metrics of the sort.
+     */
+    public SortMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Warns about the options which only apply to file inputs and outputs. A stream is read once, into fixed-size
+     * partitions: resuming would need to read it again, replacement selection generates its runs from an input file,
+     * the parallel final merge writes the key ranges of an output file concurrently, and the progress of a phase is
+     * measured against its known total.
+     */
+    private void warnAboutFileOnlyOptions() {
+        if (sortOptions.getRunGeneration() == RunGeneration.REPLACEMENT_SELECTION) {
+            logger.warn("Replacement selection does not apply to stream sorts, spilling fixed-size partitions instead");
+        }
+        if (sortOptions.isResume()) {
+            logger.warn("Resume does not apply to stream sorts, sorting the stream from scratch");
+        }
+        if (sortOptions.isParallelFinalMerge()) {
+            logger.warn("Parallel final merge does not apply to stream sorts, streaming the final merge serially");
+        }
+        if (sortOptions.getProgressIntervalSeconds() > 0) {
+            logger.warn("Progress output does not apply to stream sorts, whose total size is unknown up front");
+        }
+    }
+
+    /**
+     * Sorts the whole input, which fit the partition buffer, and writes it straight to the output.
+     *
+     * @return The number of bytes written.
+     */
+    private long sortInMemory(IntRecordBuffer records, CSVSingleFileSorter sorter, OutputStream output) throws IOException {
+        SortMetrics.Measurement inMemorySort = metrics.startPhase(PHASE_IN_MEMORY_SORT);
+        SortMetrics.Measurement sort = metrics.startTask(SortMetrics.PARTITION_SORT);
+        sorter.sortSingleCSVFileRecords(records);
+        sort.stop(records.size(), 0, 0);
+        recordsSorted = records.size();
+
+        SortMetrics.Measurement write = metrics.startTask(SortMetrics.RUN_WRITE);
+        IntRecordWriter writer = new IntRecordWriter(Channels.newChannel(output), sortOptions.getIoBufferSize());
+        writer.writeRecords(records);
+        writer.flush();
+        write.stop(records.size(), 0, writer.getBytesWritten());
+        inMemorySort.stop(recordsSorted, 0, writer.getBytesWritten());
+        return writer.getBytesWritten();
+    }
+
+    /**
+     * Sorts a full partition buffer and writes it as a run of the spill directory.
+     *
+     * @return The path of the run.
+     */
+    private String spillRun(IntRecordBuffer records, CSVSingleFileSorter sorter, Path spillDirectory, int runIndex) throws IOException {
+        SortMetrics.Measurement sort = metrics.startTask(SortMetrics.PARTITION_SORT);
+        sorter.sortSingleCSVFileRecords(records);
+        sort.stop(records.size(), 0, 0);
+        recordsSorted += records.size();
+
+        RunFormat runFormat = sortOptions.getRunFormat();
+        String runFilePath = spillDirectory.resolve(IOConstants.SORTED_FILE_PREFIX + runIndex + runFormat.getFileType()).toString();
+        SortMetrics.Measurement write = metrics.startTask(SortMetrics.RUN_WRITE);
+        new CSVFileWriterImpl(sortOptions.getIoBufferSize(), runFormat).writeSortedRecords(runFilePath, records);
+        long runSize = Files.size(Paths.get(runFilePath));
+        write.stop(records.size(), 0, runSize);
+        return runFilePath;
+    }
+
+    /**
+     * Merges the spilled runs, streaming the final merge to the output. Only runs beyond the merge fan-in are first
+     * merged into intermediate files of the spill directory.
+     *
+     * @return The number of bytes written.
+     */
+    private long mergeRuns(List<String> runs, Path spillDirectory, OutputStream output) throws IOException, InterruptedException, ExecutionException {
+        RunFormat runFormat = sortOptions.getRunFormat();
+        long memoryBudget = SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget());
+        int fanIn = SystemSpecsEvaluator.calculateMergeFanIn(memoryBudget, IOConstants.RUN_READ_BUFFER_SIZE);
+        int processors = sortOptions.getThreadCount();
+        CSVLoserTreeFileMergerImpl merger = new CSVLoserTreeFileMergerImpl(IOConstants.RUN_READ_BUFFER_SIZE, sortOptions.getIoBufferSize(),
+                runFormat, runFormat, sortOptions.getPrefetchBudget() / processors);
+        MergeScheduler scheduler = new MergeScheduler(merger, merger, fanIn, processors, spillDirectory, runFormat.getFileType(), null, metrics);
+
+        SortMetrics.Measurement merge = metrics.startPhase(PHASE_MERGE);
+        List<String> finalRuns = scheduler.mergeToFanIn(runs);
+        CSVLoserTreeFileMergerImpl finalMerger = new CSVLoserTreeFileMergerImpl(IOConstants.RUN_READ_BUFFER_SIZE, sortOptions.getIoBufferSize(),
+                runFormat, RunFormat.TEXT, sortOptions.getPrefetchBudget());
+        IntRecordWriter writer = new IntRecordWriter(Channels.newChannel(output), sortOptions.getIoBufferSize());
+        logger.info("Streaming the merge of {} runs to the output", finalRuns.size());
+        finalMerger.mergeCSVFiles(finalRuns, writer);
+        merge.stop(recordsSorted, 0, writer.getBytesWritten());
+        return writer.getBytesWritten();
+    }
+
+    /**
+     * Logs the JSON summary of the sort's metrics, and writes it to the metrics file if one was requested.
+     */
+    private void reportMetrics() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("input", "stream");
+        attributes.put("records", recordsSorted);
+        attributes.put("sortAlgorithm", SortJobSupport.effectiveSortAlgorithm(sortOptions));
+        attributes.put("runFormat", sortOptions.getRunFormat());
+        attributes.put("memoryBudget", SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget()));
+        if (sortOptions.getOffHeapBudget() > 0) {
+            attributes.put("offHeapBudget", SystemSpecsEvaluator.resolveOffHeapBudget(sortOptions.getOffHeapBudget()));
+        }
+        attributes.put("threads", sortOptions.getThreadCount());
+        metrics.writeSummary(attributes, sortOptions.getMetricsFilePath());
+    }
+}
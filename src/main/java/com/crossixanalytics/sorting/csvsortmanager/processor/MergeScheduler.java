@@ -0,0 +1,288 @@
+package com.crossixanalytics.sorting.csvsortmanager.processor;
+
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileMerger;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.SortMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plans and executes a multi-level k-way merge of sorted runs with the fewest possible passes.
+ * When all the runs fit within the fan-in they are merged straight into the output in a single pass.
+ * Otherwise, intermediate passes merge the smallest runs first - only as many as needed so that every later pass
+ * is a full fan-in merge - running the merges of a pass in parallel. The bytes rewritten by each pass are logged.
+ * With a {@link SortManifest}, every completed intermediate merge is checkpointed, a resumed merge starts from the
+ * merges completed by the previous attempt, and the intermediate files are kept if the merge fails.
+ */
+public class MergeScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(MergeScheduler.class);
+    private final CSVFileMerger merger;
+    private final CSVFileMerger finalMerger;
+    private final int fanIn;
+    private final int maxParallelMerges;
+    private final Path tempDirectory;
+    private final String tempFileType;
+    private final SortManifest manifest;
+    private final SortMetrics metrics;
+    private final List<Long> bytesRewrittenPerPass = new ArrayList<>();
+    private final AtomicLong bytesMerged = new AtomicLong();
+    private volatile String finalOutputFilePath; // Set while the final pass runs
+
+    /**
+     * @param merger            The merger performing each intermediate k-way merge; must be safe to use concurrently.
+     * @param finalMerger       The merger performing the final pass into the output file.
+     * @param fanIn             The maximum number of runs merged at once, at least 2.
+     * @param maxParallelMerges The maximum number of intermediate merges running at the same time.
+     * @param tempDirectory     The directory for the intermediate merge files, which must be the directory of the manifest if any.
+     * @param tempFileType      The file extension of the intermediate merge files, matching the intermediate merger's run format.
+     * @param manifest          The manifest checkpointing the intermediate merges, or null.
+     * @param metrics           The metrics receiving every merge pass as a phase, or null.
+     */
+    public MergeScheduler(CSVFileMerger merger, CSVFileMerger finalMerger, int fanIn, int maxParallelMerges, Path tempDirectory, String tempFileType,
+                          SortManifest manifest, SortMetrics metrics) {
+        this.merger = merger;
+        this.finalMerger = finalMerger;
+        this.fanIn = Math.max(fanIn, 2);
+        this.maxParallelMerges = Math.max(maxParallelMerges, 1);
+        this.tempDirectory = tempDirectory;
+        this.tempFileType = tempFileType;
+        this.manifest = manifest;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Merges the sorted runs into the final output file. The input runs are left in place,
+     * intermediate files are deleted as soon as a later pass has consumed them.
+     *
+     * @param sortedFilePaths     List of sorted file paths.
+     * @param finalOutputFilePath Path for the final output file.
+     * @throws IOException          If an I/O error occurs.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     * @throws ExecutionException   If a merge threw an exception.
+     */
+    public void merge(List<String> sortedFilePaths, String finalOutputFilePath) throws IOException, InterruptedException, ExecutionException {
+        List<String> runs = new ArrayList<>(sortedFilePaths);
+        List<String> tempFiles = new ArrayList<>();
+        int firstPass = 1;
+        if (manifest != null) {
+            runs = manifest.applyCompletedMerges(sortedFilePaths);
+            for (String run : runs) {
+                if (!sortedFilePaths.contains(run)) {
+                    tempFiles.add(run); // Merged by the previous attempt
+                }
+            }
+            if (!tempFiles.isEmpty()) {
+                logger.info("Reusing {} merged file(s) of the previous attempt, {} runs left to merge", tempFiles.size(), runs.size());
+            }
+            firstPass = manifest.getLastMergePass() + 1;
+            deleteUnfinishedMerges(runs);
+        }
+        logger.info("Merging {} runs with fan-in {} in {} pass(es)", runs.size(), fanIn, calculateNumberOfPasses(runs.size(), fanIn));
+        int totalPasses = firstPass - 1 + calculateNumberOfPasses(runs.size(), fanIn);
+
+        ExecutorService threadPool = null;
+        boolean merged = false;
+        try {
+            for (int pass = firstPass; runs.size() > fanIn; pass++) {
+                if (threadPool == null) {
+                    threadPool = Executors.newFixedThreadPool(maxParallelMerges);
+                }
+                runs = executeIntermediatePass(runs, pass, tempFiles, threadPool);
+            }
+
+            SortMetrics.Measurement measurement = metrics != null ? metrics.startPhase(SortMetrics.MERGE_PASS + totalPasses) : null;
+            this.finalOutputFilePath = finalOutputFilePath;
+            finalMerger.mergeCSVFiles(runs, finalOutputFilePath);
+            long finalBytes = Files.size(Paths.get(finalOutputFilePath));
+            this.finalOutputFilePath = null;
+            bytesMerged.addAndGet(finalBytes);
+            bytesRewrittenPerPass.add(finalBytes);
+            if (measurement != null) {
+                measurement.stop(0, SortJobSupport.totalSize(runs), finalBytes);
+            }
+            logger.info("Merge pass {}/{}: merged {} runs into the final output, {} bytes written", totalPasses, totalPasses, runs.size(), finalBytes);
+            merged = true;
+        } finally {
+            if (threadPool != null) {
+                threadPool.shutdown();
+            }
+            if (merged || manifest == null) {
+                cleanUpTemporaryFiles(tempFiles);
+            }
+        }
+    }
+
+    /**
+     * Runs only the intermediate passes, until the remaining runs fit a single final merge of at most fan-in runs,
+     * which is left to the caller - such as a final merge streamed to an output stream rather than written to a file.
+     * The input runs are left in place; the returned intermediate files are left for the caller to delete, as are
+     * those of a failed pass, all in the temp directory.
+     *
+     * @param sortedFilePaths List of sorted file paths.
+     * @return The runs of the final merge: the input runs not merged yet and the intermediate files.
+     * @throws IOException          If an I/O error occurs.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     * @throws ExecutionException   If a merge threw an exception.
+     */
+    public List<String> mergeToFanIn(List<String> sortedFilePaths) throws IOException, InterruptedException, ExecutionException {
+        List<String> runs = new ArrayList<>(sortedFilePaths);
+        if (runs.size() <= fanIn) {
+            return runs;
+        }
+        logger.info("Merging {} runs down to fan-in {} in {} intermediate pass(es)", runs.size(), fanIn, calculateNumberOfPasses(runs.size(), fanIn) - 1);
+        List<String> tempFiles = new ArrayList<>(); // Deleted once a later pass consumed them
+        ExecutorService threadPool = Executors.newFixedThreadPool(maxParallelMerges);
+        try {
+            for (int pass = 1; runs.size() > fanIn; pass++) {
+                runs = executeIntermediatePass(runs, pass, tempFiles, threadPool);
+            }
+        } finally {
+            threadPool.shutdown();
+        }
+        return runs;
+    }
+
+    public List<Long> getBytesRewrittenPerPass() {
+        return Collections.unmodifiableList(bytesRewrittenPerPass);
+    }
+
+    /**
+     * The bytes written by the completed merges plus the current size of the final output, which tracks the progress of {@link #merge}.
+     *
+     * @return The number of bytes merged so far.
+     */
+    public long getBytesMerged() {
+        long merged = bytesMerged.get();
+        String outputFilePath = finalOutputFilePath;
+        if (outputFilePath != null) {
+            try {
+                merged += Files.size(Paths.get(outputFilePath));
+            } catch (IOException e) {
+                // Not created yet
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Calculates the minimal number of merge passes, ceil(log_fanIn(runCount)), with at least one pass.
+     */
+    static int calculateNumberOfPasses(int runCount, int fanIn) {
+        int passes = 1;
+        for (long capacity = fanIn; capacity < runCount; capacity *= fanIn) {
+            passes++;
+        }
+        return passes;
+    }
+
+    private List<String> executeIntermediatePass(List<String> runs, int pass, List<String> tempFiles, ExecutorService threadPool) throws IOException, InterruptedException, ExecutionException {
+        SortMetrics.Measurement measurement = metrics != null ? metrics.startPhase(SortMetrics.MERGE_PASS + pass) : null;
+        List<List<String>> groups = planPass(runs);
+        List<String> remainingRuns = new ArrayList<>(runs);
+        List<Future<String>> mergeFutures = new ArrayList<>();
+        int mergedRunCount = 0;
+        for (List<String> group : groups) {
+            remainingRuns.removeAll(group);
+            mergedRunCount += group.size();
+            String mergedFilePath = tempDirectory.resolve(IOConstants.TEMP_FILE_PREFIX + pass + "_" + mergeFutures.size() + tempFileType).toString();
+            tempFiles.add(mergedFilePath);
+            mergeFutures.add(threadPool.submit(() -> {
+                merger.mergeCSVFiles(group, mergedFilePath);
+                bytesMerged.addAndGet(Files.size(Paths.get(mergedFilePath)));
+                if (manifest != null) {
+                    manifest.recordMerge(pass, group, mergedFilePath);
+                }
+                return mergedFilePath;
+            }));
+        }
+
+        long bytesRewritten = 0;
+        for (Future<String> future : mergeFutures) {
+            String mergedFilePath = future.get();
+            bytesRewritten += Files.size(Paths.get(mergedFilePath));
+            remainingRuns.add(mergedFilePath);
+        }
+        bytesRewrittenPerPass.add(bytesRewritten);
+        if (measurement != null) {
+            long bytesRead = 0;
+            for (List<String> group : groups) {
+                bytesRead += SortJobSupport.totalSize(group);
+            }
+            measurement.stop(0, bytesRead, bytesRewritten);
+        }
+        logger.info("Merge pass {}: merged {} of {} runs into {} intermediate files, {} bytes rewritten",
+                pass, mergedRunCount, runs.size(), groups.size(), bytesRewritten);
+
+        for (List<String> group : groups) {
+            for (String run : group) {
+                if (tempFiles.remove(run)) {
+                    Files.deleteIfExists(Paths.get(run));
+                }
+            }
+        }
+        return remainingRuns;
+    }
+
+    /**
+     * Plans the merge groups of an intermediate pass. The number of runs is reduced just enough for the remaining
+     * passes to be full fan-in merges, and the smallest runs are picked first to minimize the bytes rewritten.
+     */
+    private List<List<String>> planPass(List<String> runs) throws IOException {
+        int remainingPasses = calculateNumberOfPasses(runs.size(), fanIn) - 1;
+        long targetRunCount = 1;
+        for (int i = 0; i < remainingPasses; i++) {
+            targetRunCount *= fanIn;
+        }
+        long reduction = runs.size() - Math.min(targetRunCount, runs.size());
+
+        Map<String, Long> sizes = new HashMap<>();
+        for (String run : runs) {
+            sizes.put(run, Files.size(Paths.get(run)));
+        }
+        List<String> runsBySize = new ArrayList<>(runs);
+        runsBySize.sort(Comparator.comparingLong(sizes::get));
+
+        List<List<String>> groups = new ArrayList<>();
+        int next = 0;
+        while (reduction > 0) {
+            int groupSize = (int) Math.min(fanIn, reduction + 1); // Merging g runs into one removes g - 1 runs
+            groups.add(new ArrayList<>(runsBySize.subList(next, next + groupSize)));
+            next += groupSize;
+            reduction -= groupSize - 1;
+        }
+        return groups;
+    }
+
+    /**
+     * Deletes the intermediate files of a previous attempt which are not among the runs to merge:
+     * merges interrupted before completion, and merged files consumed by a later merge.
+     */
+    private void deleteUnfinishedMerges(List<String> runs) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDirectory, IOConstants.TEMP_FILE_PREFIX + "*" + tempFileType)) {
+            for (Path file : files) {
+                if (!runs.contains(file.toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void cleanUpTemporaryFiles(List<String> tempFiles) {
+        for (String tempFile : tempFiles) {
+            try {
+                Files.deleteIfExists(Paths.get(tempFile));
+            } catch (IOException e) {
+                logger.error("Error deleting temporary file: " + tempFile, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.crossixanalytics.sorting.csvsortmanager.processor;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.readers.IntRunReader;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates sorted runs by replacement selection: a min-heap of the memory's size keeps emitting its smallest record
+ * to the current run and replacing it with the next input record. An input record smaller than the last emitted one
+ * cannot join the current run and is held back for the next run instead. On random input the runs average twice the
+ * heap size, and on presorted input the whole file becomes a single run, so the merge disappears.
+ * The records held back for the next run are kept in the same array, right behind the shrinking heap of the current run,
+ * so the memory holds exactly one primitive int per record.
+ */
+public class ReplacementSelectionRunGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(ReplacementSelectionRunGenerator.class);
+    public static final int BYTES_PER_RECORD = Integer.BYTES; // Records are held as primitive ints in the heap array
+    private static final int PROGRESS_INTERVAL = 1 << 16; // Records read between two updates of the published count
+
+    private final int heapCapacity;
+    private final int readBufferSize;
+    private final int writeBufferSize;
+    private final RunFormat runFormat;
+    private volatile long recordsRead;
+
+    /**
+     * @param heapCapacity    The number of records held in the selection heap.
+     * @param readBufferSize  The size in bytes of the read chunk of the input.
+     * @param writeBufferSize The size in bytes of the output buffer of each run.
+     * @param runFormat       The format of the written runs.
+     */
+    public ReplacementSelectionRunGenerator(int heapCapacity, int readBufferSize, int writeBufferSize, RunFormat runFormat) {
+        this.heapCapacity = Math.max(heapCapacity, 1);
+        this.readBufferSize = readBufferSize;
+        this.writeBufferSize = writeBufferSize;
+        this.runFormat = runFormat;
+    }
+
+    /**
+     * Reads the whole input file sequentially and writes it as sorted runs.
+     *
+     * @param inputFilePath Path to the input file.
+     * @param outputDir     Path to the output directory for the sorted runs.
+     * @return The paths of the sorted runs, in run order.
+     * @throws IOException If an I/O error occurs.
+     */
+    public List<String> generateRuns(String inputFilePath, Path outputDir) throws IOException {
+        List<String> sortedFilePaths = new ArrayList<>();
+        int[] records = new int[heapCapacity];
+        int heldRecords = 0; // The heap of the current run, followed by the records held back for the next run
+        int heapSize = 0;
+        long read = 0; // Published to recordsRead periodically, to keep the volatile write off the per-record path
+        recordsRead = 0;
+
+        try (IntRunReader input = new IntRunReader(inputFilePath, readBufferSize)) {
+            while (heldRecords < heapCapacity && input.hasNext()) {
+                records[heldRecords++] = input.next();
+                read++;
+            }
+
+            IntRecordWriter writer = null;
+            try {
+                while (heldRecords > 0) {
+                    if (heapSize == 0) {
+                        // The current run is complete; the held-back records become the heap of the next run
+                        heapSize = heldRecords;
+                        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                            siftDown(records, heapSize, i);
+                        }
+                        if (writer != null) {
+                            writer.close();
+                        }
+                        String sortedFilePath = outputDir.resolve(IOConstants.SORTED_FILE_PREFIX + sortedFilePaths.size() + runFormat.getFileType()).toString();
+                        writer = IntRecordWriter.open(sortedFilePath, writeBufferSize, runFormat);
+                        sortedFilePaths.add(sortedFilePath);
+                    }
+
+                    int smallest = records[0];
+                    writer.writeRecord(smallest);
+                    if (input.hasNext()) {
+                        int nextRecord = input.next();
+                        if (++read % PROGRESS_INTERVAL == 0) {
+                            recordsRead = read;
+                        }
+                        if (nextRecord >= smallest) {
+                            records[0] = nextRecord;
+                        } else {
+                            // Too small for the current run: shrink the heap and hold the record back right after it
+                            records[0] = records[--heapSize];
+                            records[heapSize] = nextRecord;
+                        }
+                    } else {
+                        // Input exhausted: shrink the heap and keep the held-back records contiguous behind it
+                        records[0] = records[--heapSize];
+                        records[heapSize] = records[--heldRecords];
+                    }
+                    siftDown(records, heapSize, 0);
+                }
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+
+        recordsRead = read;
+        logger.info("Replacement selection with a heap of {} records generated {} runs from {} records (average run of {} records)",
+                heapCapacity, sortedFilePaths.size(), recordsRead, sortedFilePaths.isEmpty() ? 0 : recordsRead / sortedFilePaths.size());
+        return sortedFilePaths;
+    }
+
+    /**
+     * The number of records read by {@link #generateRuns}; while it runs, a count updated every few thousand records.
+     *
+     * @return The number of records read so far.
+     */
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int index) {
+        if (heapSize == 0) {
+            return;
+        }
+        int entry = heap[index];
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (entry <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = entry;
+    }
+}
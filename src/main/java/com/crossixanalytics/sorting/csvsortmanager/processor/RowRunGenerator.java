@@ -0,0 +1,205 @@
+package com.crossixanalytics.sorting.csvsortmanager.processor;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RowRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeySpec;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVRowSorterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVRowSorter;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.SortMetrics;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.SortKeyEncoder;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.RowRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the keyed runs of a multi-column CSV file sorted by a {@link SortKeySpec}. Every worker thread takes the
+ * next unprocessed partition, reads its rows, extracts each row's normalized key once into its row buffer, sorts the
+ * buffer by key and writes it as a keyed run, so the later merge compares keys without parsing the rows again.
+ * Each worker owns one row buffer, reused across its partitions.
+ */
+public class RowRunGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(RowRunGenerator.class);
+
+    private final SortKeySpec keySpec;
+    private final byte delimiter;
+    private final int workerCount;
+    private final int readBufferSize;
+    private final int writeBufferSize;
+    private final SortMetrics metrics;
+    private final AtomicLong recordsRead = new AtomicLong();
+    private final AtomicLong invalidValues = new AtomicLong();
+
+    /**
+     * @param keySpec         The sort key of the rows.
+     * @param delimiter       The field delimiter of the rows.
+     * @param workerCount     The number of partitions read, sorted and written concurrently.
+     * @param readBufferSize  The size in bytes of the chunks the partitions are read in.
+     * @param writeBufferSize The size in bytes of the output buffer of the run writers.
+     * @param metrics         The metrics receiving the read, sort and write of every partition as tasks, or null.
+     */
+    public RowRunGenerator(SortKeySpec keySpec, byte delimiter, int workerCount, int readBufferSize, int writeBufferSize, SortMetrics metrics) {
+        this.keySpec = keySpec;
+        this.delimiter = delimiter;
+        this.workerCount = Math.max(workerCount, 1);
+        this.readBufferSize = readBufferSize;
+        this.writeBufferSize = writeBufferSize;
+        this.metrics = metrics != null ? metrics : new SortMetrics();
+    }
+
+    /**
+     * The number of rows read by {@link #generateRuns}, which is how the record count of the input is discovered.
+     *
+     * @return The number of rows read so far.
+     */
+    public long getRecordsRead() {
+        return recordsRead.get();
+    }
+
+    /**
+     * Reads, sorts and writes every partition of the input file as a keyed run.
+     *
+     * @param inputFilePath           Path to the input file.
+     * @param boundaries              The partition boundaries; partition i spans the bytes [boundaries[i], boundaries[i + 1]).
+     * @param partitionDataCapacity   The initial size in bytes of the keys and rows of each worker's row buffer.
+     * @param partitionRecordCapacity The initial number of records of each worker's row buffer.
+     * @param outputDir               Path to the output directory for the keyed runs.
+     * @return The paths of the keyed runs, in partition order, skipping empty partitions.
+     * @throws IOException          If an I/O error occurs.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     * @throws ExecutionException   If a worker failed.
+     */
+    public List<String> generateRuns(String inputFilePath, long[] boundaries, int partitionDataCapacity, int partitionRecordCapacity, Path outputDir)
+            throws IOException, InterruptedException, ExecutionException {
+        int partitionCount = boundaries.length - 1;
+        String[] runs = new String[partitionCount];
+        AtomicInteger nextPartition = new AtomicInteger();
+        int workers = Math.max(Math.min(workerCount, partitionCount), 1);
+        if (workers == 1) {
+            generatePartitionRuns(inputFilePath, boundaries, partitionDataCapacity, partitionRecordCapacity, outputDir, nextPartition, runs);
+        } else {
+            ExecutorService threadPool = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    futures.add(threadPool.submit(() -> {
+                        generatePartitionRuns(inputFilePath, boundaries, partitionDataCapacity, partitionRecordCapacity, outputDir, nextPartition, runs);
+                        return null;
+                    }));
+                }
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } finally {
+                threadPool.shutdownNow();
+            }
+        }
+        if (invalidValues.get() > 0) {
+            logger.warn("{} key value(s) did not parse as their column type of {} and were sorted as nulls", invalidValues.get(), keySpec);
+        }
+
+        List<String> sortedFilePaths = new ArrayList<>();
+        for (String run : runs) {
+            if (run != null) {
+                sortedFilePaths.add(run);
+            }
+        }
+        return sortedFilePaths;
+    }
+
+    /**
+     * The loop of one worker: claims partitions until none is left, each read, sorted and written through the worker's
+     * own row buffer, encoder and sorter.
+     */
+    private void generatePartitionRuns(String inputFilePath, long[] boundaries, int partitionDataCapacity, int partitionRecordCapacity, Path outputDir,
+                                       AtomicInteger nextPartition, String[] runs) throws IOException {
+        RowRecordBuffer records = new RowRecordBuffer(partitionDataCapacity, partitionRecordCapacity);
+        SortKeyEncoder encoder = new SortKeyEncoder(keySpec, delimiter);
+        CSVRowSorter sorter = new CSVRowSorterImpl();
+        byte[] chunk = new byte[readBufferSize];
+        try (FileChannel channel = FileChannel.open(Paths.get(inputFilePath), StandardOpenOption.READ)) {
+            for (int partition = nextPartition.getAndIncrement(); partition < runs.length; partition = nextPartition.getAndIncrement()) {
+                records.clear();
+                SortMetrics.Measurement read = metrics.startTask(SortMetrics.PARTITION_READ);
+                chunk = readPartition(channel, boundaries[partition], boundaries[partition + 1], chunk, encoder, records);
+                read.stop(records.size(), boundaries[partition + 1] - boundaries[partition], 0);
+                recordsRead.addAndGet(records.size());
+                if (records.isEmpty()) {
+                    continue;
+                }
+
+                SortMetrics.Measurement sort = metrics.startTask(SortMetrics.PARTITION_SORT);
+                int[] order = sorter.sortRecords(records);
+                sort.stop(records.size(), 0, 0);
+
+                String runFilePath = outputDir.resolve(IOConstants.SORTED_FILE_PREFIX + partition + IOConstants.KEYED_RUN_FILE_TYPE).toString();
+                SortMetrics.Measurement write = metrics.startTask(SortMetrics.RUN_WRITE);
+                try (RowRecordWriter writer = new RowRecordWriter(runFilePath, writeBufferSize, true)) {
+                    writer.writeRecords(records, order);
+                }
+                write.stop(records.size(), 0, Files.size(Paths.get(runFilePath)));
+                runs[partition] = runFilePath;
+            }
+        } finally {
+            invalidValues.addAndGet(encoder.getInvalidValues());
+        }
+    }
+
+    /**
+     * Reads the rows of a byte range in chunks, encoding the key of every complete row into the row buffer.
+     * A row cut by the end of a chunk is carried over to the start of the next one; the chunk grows if a single row
+     * is longer than the chunk.
+     *
+     * @return The chunk, which may have been replaced by a larger one.
+     */
+    private byte[] readPartition(FileChannel channel, long start, long end, byte[] chunk, SortKeyEncoder encoder, RowRecordBuffer records) throws IOException {
+        long position = start;
+        int carry = 0;
+        while (position < end) {
+            if (carry == chunk.length) {
+                chunk = Arrays.copyOf(chunk, 2 * chunk.length);
+            }
+            int bytesRead = channel.read(ByteBuffer.wrap(chunk, carry, (int) Math.min(chunk.length - carry, end - position)), position);
+            if (bytesRead < 0) {
+                break;
+            }
+            position += bytesRead;
+            int limit = carry + bytesRead;
+            int lineStart = 0;
+            for (int i = carry; i < limit; i++) {
+                if (chunk[i] == '\n') {
+                    addRow(chunk, lineStart, i - lineStart, encoder, records);
+                    lineStart = i + 1;
+                }
+            }
+            carry = limit - lineStart;
+            System.arraycopy(chunk, lineStart, chunk, 0, carry);
+        }
+        addRow(chunk, 0, carry, encoder, records); // A last row without a line break
+        return chunk;
+    }
+
+    private static void addRow(byte[] bytes, int offset, int length, SortKeyEncoder encoder, RowRecordBuffer records) {
+        if (length == 0 || (length == 1 && bytes[offset] == '\r')) {
+            return; // Blank lines are dropped
+        }
+        int keyLength = encoder.encode(bytes, offset, length);
+        records.add(encoder.getKey(), keyLength, bytes, offset, length);
+    }
+}
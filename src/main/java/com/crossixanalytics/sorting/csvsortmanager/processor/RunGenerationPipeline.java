@@ -0,0 +1,235 @@
+package com.crossixanalytics.sorting.csvsortmanager.processor;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileReader;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileWriter;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVSingleFileSorter;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.SortMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Staged producer/consumer pipeline generating the sorted runs: one reader stage, N sorter threads and one or more
+ * writer stages, connected by bounded queues. Partitions travel through the stages in a fixed pool of reusable
+ * record buffers, so the reader blocks when no buffer is free (back-pressure) and resident partition memory
+ * stays capped at (number of buffers x buffer size), while reading, sorting and writing of different
+ * partitions overlap.
+ */
+public class RunGenerationPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(RunGenerationPipeline.class);
+    private static final Partition END_OF_STREAM = new Partition(-1, null);
+
+    private final CSVFileReader reader;
+    private final Supplier<CSVSingleFileSorter> sorterFactory;
+    private final CSVFileWriter writer;
+    private final int sorterThreads;
+    private final int writerThreads;
+    private final String runFileType;
+    private final SortMetrics metrics;
+    private final IntFunction<IntRecordBuffer> bufferFactory;
+    private final AtomicLong readNanos = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong recordsRead = new AtomicLong();
+
+    /**
+     * @param reader        The reader filling a buffer with the records of a partition.
+     * @param sorterFactory Creates one sorter per sorter thread.
+     * @param writer        The writer of the sorted runs; must be safe to use concurrently.
+     * @param sorterThreads The number of sorter threads.
+     * @param writerThreads The number of writer threads.
+     * @param runFileType   The file extension of the sorted runs, matching the writer's run format.
+     * @param metrics       The metrics receiving the read, sort and write of every partition as tasks, or null.
+     * @param bufferFactory Creates a partition buffer of the given capacity, on or off the heap.
+     */
+    public RunGenerationPipeline(CSVFileReader reader, Supplier<CSVSingleFileSorter> sorterFactory, CSVFileWriter writer, int sorterThreads, int writerThreads,
+                                 String runFileType, SortMetrics metrics, IntFunction<IntRecordBuffer> bufferFactory) {
+        this.reader = reader;
+        this.sorterFactory = sorterFactory;
+        this.writer = writer;
+        this.sorterThreads = Math.max(sorterThreads, 1);
+        this.writerThreads = Math.max(writerThreads, 1);
+        this.runFileType = runFileType;
+        this.metrics = metrics;
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * The number of partition buffers circulating in the pipeline: one per stage thread, so every stage can stay busy.
+     *
+     * @return The number of partitions held in memory at the same time.
+     */
+    public int getBufferCount() {
+        return 1 + sorterThreads + writerThreads;
+    }
+
+    /**
+     * The number of records read by {@link #generateRuns}, which is how the record count of an existing input is discovered.
+     *
+     * @return The number of records read so far.
+     */
+    public long getRecordsRead() {
+        return recordsRead.get();
+    }
+
+    /**
+     * Reads, sorts and writes every partition of the input file as a sorted run, checkpointing each written run
+     * in the manifest. Partitions with a valid completed run in the manifest are not read again.
+     *
+     * @param inputFilePath     Path to the input file.
+     * @param boundaries        The partition boundaries; partition i spans the bytes [boundaries[i], boundaries[i + 1]).
+     * @param partitionCapacity The capacity of each partition buffer.
+     * @param outputDir         Path to the output directory for the sorted runs, which must be the directory of the manifest.
+     * @param manifest          The manifest of the job, or null.
+     * @return The paths of the sorted runs, in partition order, skipping empty partitions.
+     * @throws ExecutionException   If a stage failed.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public List<String> generateRuns(String inputFilePath, long[] boundaries, int partitionCapacity, Path outputDir, SortManifest manifest) throws ExecutionException, InterruptedException {
+        int partitionCount = boundaries.length - 1;
+        BlockingQueue<IntRecordBuffer> freeBuffers = new ArrayBlockingQueue<>(getBufferCount());
+        for (int i = 0; i < getBufferCount(); i++) {
+            freeBuffers.add(bufferFactory.apply(partitionCapacity));
+        }
+        BlockingQueue<Partition> readPartitions = new ArrayBlockingQueue<>(getBufferCount());
+        BlockingQueue<Partition> sortedPartitions = new ArrayBlockingQueue<>(getBufferCount());
+        String[] sortedFilePaths = new String[partitionCount];
+        AtomicInteger runningSorters = new AtomicInteger(sorterThreads);
+
+        ExecutorService stagePool = Executors.newFixedThreadPool(1 + sorterThreads + writerThreads);
+        CompletionService<Void> stages = new ExecutorCompletionService<>(stagePool);
+        long startTime = System.nanoTime();
+        try {
+            stages.submit(() -> {
+                runReaderStage(inputFilePath, boundaries, freeBuffers, readPartitions, manifest, sortedFilePaths);
+                return null;
+            });
+            for (int i = 0; i < sorterThreads; i++) {
+                stages.submit(() -> {
+                    runSorterStage(readPartitions, sortedPartitions, runningSorters);
+                    return null;
+                });
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                stages.submit(() -> {
+                    runWriterStage(sortedPartitions, freeBuffers, outputDir, sortedFilePaths, boundaries, manifest);
+                    return null;
+                });
+            }
+            // Stages are awaited in completion order, so the first failure surfaces at once; shutting the pool down
+            // then interrupts the other stages, which would otherwise block on queues no longer fed or drained
+            for (int i = 0; i < 1 + sorterThreads + writerThreads; i++) {
+                stages.take().get();
+            }
+        } finally {
+            stagePool.shutdownNow();
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - startTime, 1);
+        logger.info("Generated {} runs with {} sorter and {} writer thread(s) in {} ms - reader busy {}%, writers busy {}%",
+                partitionCount, sorterThreads, writerThreads, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                100 * readNanos.get() / elapsedNanos, 100 * writeNanos.get() / (elapsedNanos * writerThreads));
+
+        List<String> runs = new ArrayList<>();
+        for (String sortedFilePath : sortedFilePaths) {
+            if (sortedFilePath != null) {
+                runs.add(sortedFilePath);
+            }
+        }
+        return runs;
+    }
+
+    private void runReaderStage(String inputFilePath, long[] boundaries, BlockingQueue<IntRecordBuffer> freeBuffers, BlockingQueue<Partition> readPartitions,
+                                SortManifest manifest, String[] sortedFilePaths) throws IOException, InterruptedException {
+        try {
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                SortManifest.CompletedRun completedRun = manifest != null ? manifest.findCompletedRun(i, boundaries[i], boundaries[i + 1]) : null;
+                if (completedRun != null) {
+                    sortedFilePaths[i] = completedRun.getFilePath();
+                    recordsRead.addAndGet(completedRun.getRecords());
+                    continue;
+                }
+                IntRecordBuffer records = freeBuffers.take(); // Blocks while all buffers are in use downstream
+                SortMetrics.Measurement measurement = metrics != null ? metrics.startTask(SortMetrics.PARTITION_READ) : null;
+                long start = System.nanoTime();
+                reader.readCSVRecordRange(inputFilePath, boundaries[i], boundaries[i + 1], records);
+                readNanos.addAndGet(System.nanoTime() - start);
+                if (measurement != null) {
+                    measurement.stop(records.size(), boundaries[i + 1] - boundaries[i], 0);
+                }
+                recordsRead.addAndGet(records.size());
+                readPartitions.put(new Partition(i, records));
+            }
+        } finally {
+            for (int i = 0; i < sorterThreads; i++) {
+                readPartitions.put(END_OF_STREAM);
+            }
+        }
+    }
+
+    private void runSorterStage(BlockingQueue<Partition> readPartitions, BlockingQueue<Partition> sortedPartitions, AtomicInteger runningSorters) throws InterruptedException {
+        CSVSingleFileSorter sorter = sorterFactory.get();
+        try {
+            Partition partition;
+            while ((partition = readPartitions.take()) != END_OF_STREAM) {
+                SortMetrics.Measurement measurement = metrics != null ? metrics.startTask(SortMetrics.PARTITION_SORT) : null;
+                sorter.sortSingleCSVFileRecords(partition.records);
+                if (measurement != null) {
+                    measurement.stop(partition.records.size(), 0, 0);
+                }
+                sortedPartitions.put(partition);
+            }
+        } finally {
+            if (runningSorters.decrementAndGet() == 0) {
+                for (int i = 0; i < writerThreads; i++) {
+                    sortedPartitions.put(END_OF_STREAM);
+                }
+            }
+        }
+    }
+
+    private void runWriterStage(BlockingQueue<Partition> sortedPartitions, BlockingQueue<IntRecordBuffer> freeBuffers, Path outputDir, String[] sortedFilePaths,
+                                long[] boundaries, SortManifest manifest) throws IOException, InterruptedException {
+        Partition partition;
+        while ((partition = sortedPartitions.take()) != END_OF_STREAM) {
+            if (!partition.records.isEmpty()) {
+                String sortedFilePath = outputDir.resolve(IOConstants.SORTED_FILE_PREFIX + partition.index + runFileType).toString();
+                SortMetrics.Measurement measurement = metrics != null ? metrics.startTask(SortMetrics.RUN_WRITE) : null;
+                long start = System.nanoTime();
+                writer.writeSortedRecords(sortedFilePath, partition.records);
+                writeNanos.addAndGet(System.nanoTime() - start);
+                if (measurement != null) {
+                    measurement.stop(partition.records.size(), 0, Files.size(Paths.get(sortedFilePath)));
+                }
+                sortedFilePaths[partition.index] = sortedFilePath;
+            }
+            if (manifest != null) {
+                manifest.recordRun(partition.index, boundaries[partition.index], boundaries[partition.index + 1],
+                        partition.records.size(), sortedFilePaths[partition.index]);
+            }
+            freeBuffers.put(partition.records);
+        }
+    }
+
+    private static final class Partition {
+        private final int index;
+        private final IntRecordBuffer records;
+
+        Partition(int index, IntRecordBuffer records) {
+            this.index = index;
+            this.records = records;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.crossixanalytics.sorting.csvsortmanager.processor;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.DirectIntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortAlgorithm;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVRadixSorterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVSingleFileSorterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVSingleFileSorter;
+import com.crossixanalytics.sorting.csvsortmanager.util.evaluators.SystemSpecsEvaluator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The rules shared by the file and stream sort processors for sizing, holding and sorting the partitions of
+ * integer records, and for cleaning up their runs, so both entry points apply the same options the same way.
+ */
+final class SortJobSupport {
+    private static final Logger logger = LoggerFactory.getLogger(SortJobSupport.class);
+
+    private SortJobSupport() {
+    }
+
+    /**
+     * Creates a partition sorter according to the configured sort algorithm.
+     * Off-heap partitions have no array to compare-sort in place, so they are always radix sorted.
+     * Sorters may hold reusable scratch memory, so a sorter instance must not be shared between threads.
+     *
+     * @param sortOptions The sort options.
+     * @return A new sorter instance.
+     */
+    static CSVSingleFileSorter createSorter(SortOptions sortOptions) {
+        return effectiveSortAlgorithm(sortOptions) == SortAlgorithm.RADIX
+                ? new CSVRadixSorterImpl()
+                : new CSVSingleFileSorterImpl();
+    }
+
+    /**
+     * The sort algorithm actually applied to the partitions, which is radix for off-heap partitions.
+     *
+     * @param sortOptions The sort options.
+     * @return The sort algorithm of the partitions.
+     */
+    static SortAlgorithm effectiveSortAlgorithm(SortOptions sortOptions) {
+        return sortOptions.getOffHeapBudget() > 0 ? SortAlgorithm.RADIX : sortOptions.getSortAlgorithm();
+    }
+
+    /**
+     * Creates a partition buffer, off the heap if the sort options hold an off-heap budget.
+     *
+     * @param sortOptions The sort options.
+     * @param capacity    The initial capacity of the buffer.
+     * @return A new partition buffer.
+     */
+    static IntRecordBuffer createRecordBuffer(SortOptions sortOptions, int capacity) {
+        return sortOptions.getOffHeapBudget() > 0
+                ? new DirectIntRecordBuffer(capacity)
+                : new IntRecordBuffer(capacity);
+    }
+
+    /**
+     * Calculates the partition size so that the partitions of all the concurrent sort workers fit the memory budget,
+     * or the off-heap budget if the partitions are held off the heap.
+     *
+     * @param sortOptions       The sort options.
+     * @param numberOfRecords   The (possibly estimated) number of records of the input, or Long.MAX_VALUE if unknown.
+     * @param concurrentWorkers The number of partitions held in memory at the same time.
+     * @return The partition size.
+     */
+    static long calculatePartitionSize(SortOptions sortOptions, long numberOfRecords, int concurrentWorkers) {
+        if (sortOptions.getOffHeapBudget() > 0) {
+            long offHeapBudget = SystemSpecsEvaluator.resolveOffHeapBudget(sortOptions.getOffHeapBudget());
+            int bytesPerRecord = SystemSpecsEvaluator.calculateBytesPerRecord(SortAlgorithm.RADIX);
+            long partitionSize = SystemSpecsEvaluator.calculatePartitionSize(numberOfRecords, offHeapBudget, concurrentWorkers, bytesPerRecord,
+                    DirectIntRecordBuffer.MAX_CAPACITY);
+            logger.info("Partition size of {} records for an off-heap budget of {} bytes shared by {} sort worker(s)", partitionSize, offHeapBudget, concurrentWorkers);
+            return partitionSize;
+        }
+        long memoryBudget = SystemSpecsEvaluator.resolveMemoryBudget(sortOptions.getMemoryBudget());
+        int bytesPerRecord = SystemSpecsEvaluator.calculateBytesPerRecord(sortOptions.getSortAlgorithm());
+        long partitionSize = SystemSpecsEvaluator.calculatePartitionSize(numberOfRecords, memoryBudget, concurrentWorkers, bytesPerRecord);
+        logger.info("Partition size of {} records for a memory budget of {} bytes shared by {} sort worker(s)", partitionSize, memoryBudget, concurrentWorkers);
+        return partitionSize;
+    }
+
+    static long totalSize(List<String> files) throws IOException {
+        long size = 0;
+        for (String file : files) {
+            size += Files.size(Paths.get(file));
+        }
+        return size;
+    }
+
+    /**
+     * Deletes a directory of runs with the files it holds; a failure is only logged, since the sort itself is done.
+     *
+     * @param directory The directory to delete, or null.
+     */
+    static void deleteRunDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (DirectoryStream<Path> runFiles = Files.newDirectoryStream(directory)) {
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            logger.warn("Could not delete the run directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.crossixanalytics.sorting.csvsortmanager.processor;
+
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint log of a sort job, kept in the directory of its sorted runs so an interrupted job can be resumed.
+ * It records the job's input, the partition plan, every completed sorted run (byte range of the input, record count,
+ * size and CRC32) and every completed intermediate merge. Each entry is appended as a single tab separated line
+ * once its file is complete, so a JVM dying at any point leaves a valid prefix of the log, and a torn last line
+ * is ignored. On resume every reused file is validated against its recorded size and checksum first.
+ */
+public class SortManifest implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SortManifest.class);
+    private static final String JOB = "job";
+    private static final String PLAN = "plan";
+    private static final String RUN = "run";
+    private static final String RUNS_COMPLETE = "runs";
+    private static final String MERGE = "merge";
+    private static final String NO_FILE = "-"; // The run of an empty partition
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 18;
+
+    private final Path directory;
+    private final FileChannel channel;
+    private long[] partitionBoundaries;
+    private final Map<Integer, RunEntry> runs = new HashMap<>();
+    private long completeRunRecords = -1;
+    private final List<MergeEntry> merges = new ArrayList<>();
+    private int lastMergePass;
+
+    private SortManifest(Path directory, FileChannel channel) {
+        this.directory = directory;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the manifest of a sort job in the given directory. When resuming and the directory holds the manifest of the
+     * same job, its completed work is loaded and new entries are appended; otherwise a new, empty manifest is started.
+     *
+     * @param directory The directory of the sorted runs and intermediate merge files.
+     * @param job       A description of the job's input and run format, which must match to resume.
+     * @param resume    Whether to reuse the completed work of a previous attempt.
+     * @return The manifest.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static SortManifest open(Path directory, String job, boolean resume) throws IOException {
+        Path manifestPath = directory.resolve(IOConstants.MANIFEST_FILENAME);
+        if (resume) {
+            List<String[]> entries = readEntries(manifestPath);
+            if (!entries.isEmpty() && entries.get(0).length == 2 && entries.get(0)[1].equals(job)) {
+                SortManifest manifest = new SortManifest(directory, FileChannel.open(manifestPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+                manifest.load(entries);
+                logger.info("Resuming from {}: {} completed run(s), {} completed merge(s)", manifestPath, manifest.runs.size(), manifest.merges.size());
+                return manifest;
+            }
+            logger.warn("No manifest of this job in {}, starting over", directory);
+        }
+        SortManifest manifest = new SortManifest(directory, FileChannel.open(manifestPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        manifest.append(JOB, job);
+        return manifest;
+    }
+
+    /**
+     * Checks whether the directory holds the manifest of the given job, without opening it.
+     *
+     * @param directory The directory of the sorted runs.
+     * @param job       A description of the job's input and run format.
+     * @return true if a resumed job would find its manifest.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static boolean exists(Path directory, String job) throws IOException {
+        List<String[]> entries = readEntries(directory.resolve(IOConstants.MANIFEST_FILENAME));
+        return !entries.isEmpty() && entries.get(0).length == 2 && entries.get(0)[1].equals(job);
+    }
+
+    /**
+     * @return The partition boundaries of the previous attempt, or null if it did not plan partitions.
+     */
+    public long[] getPartitionBoundaries() {
+        return partitionBoundaries;
+    }
+
+    public void recordPartitionBoundaries(long[] boundaries) throws IOException {
+        String[] fields = new String[boundaries.length + 1];
+        fields[0] = PLAN;
+        for (int i = 0; i < boundaries.length; i++) {
+            fields[i + 1] = Long.toString(boundaries[i]);
+        }
+        append(fields);
+        partitionBoundaries = boundaries.clone();
+    }
+
+    /**
+     * Finds a valid completed run of a partition: recorded for the same byte range, with a file of the recorded size and checksum.
+     *
+     * @param index The index of the partition.
+     * @param start The offset of the first byte of the partition.
+     * @param end   The offset after the last byte of the partition.
+     * @return The completed run, or null if the partition has to be sorted again.
+     * @throws IOException If an I/O error occurs.
+     */
+    public CompletedRun findCompletedRun(int index, long start, long end) throws IOException {
+        RunEntry run = runs.get(index);
+        if (run == null || run.start != start || run.end != end) {
+            return null;
+        }
+        if (!run.fileName.equals(NO_FILE) && !isValid(run.fileName, run.bytes, run.checksum)) {
+            logger.warn("Sorted run {} of partition {} is missing or corrupt, sorting the partition again", run.fileName, index);
+            return null;
+        }
+        return new CompletedRun(run.fileName.equals(NO_FILE) ? null : resolve(run.fileName), run.records);
+    }
+
+    /**
+     * Records a completed sorted run. Safe to call concurrently.
+     *
+     * @param index    The index of the partition.
+     * @param start    The offset of the first byte of the partition.
+     * @param end      The offset after the last byte of the partition.
+     * @param records  The number of records of the run.
+     * @param filePath The path of the run, or null if the partition held no records.
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized void recordRun(int index, long start, long end, long records, String filePath) throws IOException {
+        String fileName = NO_FILE;
+        long bytes = 0;
+        long checksum = 0;
+        if (filePath != null) {
+            Path path = Paths.get(filePath);
+            fileName = path.getFileName().toString();
+            bytes = Files.size(path);
+            checksum = checksum(path);
+        }
+        append(RUN, Integer.toString(index), Long.toString(start), Long.toString(end), Long.toString(records),
+                Long.toString(bytes), Long.toString(checksum), fileName);
+        runs.put(index, new RunEntry(start, end, records, bytes, checksum, fileName));
+    }
+
+    /**
+     * Records that the run generation completed. Run generators which cannot resume part way, like replacement selection,
+     * record their runs with {@link #recordRun} using a byte range of -1 and then call this.
+     *
+     * @param records The total number of records of the runs.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void recordRunsComplete(long records) throws IOException {
+        append(RUNS_COMPLETE, Long.toString(records));
+        completeRunRecords = records;
+    }
+
+    /**
+     * Finds the valid runs of a completed run generation recorded by {@link #recordRunsComplete}.
+     *
+     * @return The paths of the runs in run order, or null if the runs have to be generated again.
+     * @throws IOException If an I/O error occurs.
+     */
+    public List<String> findCompleteRuns() throws IOException {
+        if (completeRunRecords < 0) {
+            return null;
+        }
+        List<String> runPaths = new ArrayList<>();
+        for (int index = 0; index < runs.size(); index++) {
+            CompletedRun run = findCompletedRun(index, -1, -1);
+            if (run == null) {
+                return null;
+            }
+            if (run.getFilePath() != null) {
+                runPaths.add(run.getFilePath());
+            }
+        }
+        return runPaths;
+    }
+
+    public long getCompleteRunRecords() {
+        return completeRunRecords;
+    }
+
+    /**
+     * Replays the recorded intermediate merges over the runs to merge, replacing the inputs of every completed merge
+     * by its output, in the order the merges completed. If any merged file left over is missing or corrupt,
+     * the recorded merges are dropped and the runs are returned unchanged.
+     *
+     * @param sortedFilePaths The sorted runs to merge.
+     * @return The runs still to merge, with the completed merges applied.
+     * @throws IOException If an I/O error occurs.
+     */
+    public List<String> applyCompletedMerges(List<String> sortedFilePaths) throws IOException {
+        List<String> remainingRuns = new ArrayList<>(sortedFilePaths);
+        Map<String, MergeEntry> outputs = new HashMap<>();
+        for (MergeEntry merge : merges) {
+            List<String> inputs = new ArrayList<>();
+            for (String input : merge.inputs) {
+                inputs.add(resolve(input));
+            }
+            if (remainingRuns.containsAll(inputs)) {
+                remainingRuns.removeAll(inputs);
+                String output = resolve(merge.fileName);
+                remainingRuns.add(output);
+                outputs.put(output, merge);
+            }
+        }
+        for (String run : remainingRuns) {
+            MergeEntry merge = outputs.get(run);
+            if (merge != null && !isValid(merge.fileName, merge.bytes, merge.checksum)) {
+                logger.warn("Merged file {} is missing or corrupt, merging the sorted runs again", merge.fileName);
+                return new ArrayList<>(sortedFilePaths);
+            }
+        }
+        return remainingRuns;
+    }
+
+    /**
+     * @return The highest intermediate merge pass recorded, so the passes of a resumed merge get new file names.
+     */
+    public int getLastMergePass() {
+        return lastMergePass;
+    }
+
+    /**
+     * Records a completed intermediate merge. Safe to call concurrently.
+     *
+     * @param pass     The merge pass.
+     * @param inputs   The paths of the merged runs.
+     * @param filePath The path of the merged file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized void recordMerge(int pass, List<String> inputs, String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        List<String> inputNames = new ArrayList<>();
+        for (String input : inputs) {
+            inputNames.add(Paths.get(input).getFileName().toString());
+        }
+        MergeEntry merge = new MergeEntry(path.getFileName().toString(), Files.size(path), checksum(path), inputNames);
+        append(MERGE, Integer.toString(pass), merge.fileName, Long.toString(merge.bytes), Long.toString(merge.checksum), String.join(",", inputNames));
+        merges.add(merge);
+        lastMergePass = Math.max(lastMergePass, pass);
+    }
+
+    /**
+     * Closes and deletes the manifest once the job completed, so a later resume starts over.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void complete() throws IOException {
+        close();
+        Files.deleteIfExists(directory.resolve(IOConstants.MANIFEST_FILENAME));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Calculates the CRC32 of a whole file.
+     *
+     * @param path The path of the file.
+     * @return The checksum of the file's bytes.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static long checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (fileChannel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private boolean isValid(String fileName, long bytes, long checksum) throws IOException {
+        Path path = directory.resolve(fileName);
+        return Files.isRegularFile(path) && Files.size(path) == bytes && checksum(path) == checksum;
+    }
+
+    private String resolve(String fileName) {
+        return directory.resolve(fileName).toString();
+    }
+
+    private void append(String... fields) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((String.join("\t", fields) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+    }
+
+    private static List<String[]> readEntries(Path manifestPath) throws IOException {
+        List<String[]> entries = new ArrayList<>();
+        if (!Files.isRegularFile(manifestPath)) {
+            return entries;
+        }
+        String content = new String(Files.readAllBytes(manifestPath), StandardCharsets.UTF_8);
+        int lineStart = 0;
+        int lineEnd;
+        while ((lineEnd = content.indexOf('\n', lineStart)) >= 0) { // A torn last line has no line break yet
+            entries.add(content.substring(lineStart, lineEnd).split("\t", -1));
+            lineStart = lineEnd + 1;
+        }
+        return entries;
+    }
+
+    private void load(List<String[]> entries) {
+        for (String[] fields : entries.subList(1, entries.size())) {
+            try {
+                switch (fields[0]) {
+                    case PLAN:
+                        partitionBoundaries = Arrays.stream(fields, 1, fields.length).mapToLong(Long::parseLong).toArray();
+                        break;
+                    case RUN:
+                        runs.put(Integer.parseInt(fields[1]), new RunEntry(Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                                Long.parseLong(fields[4]), Long.parseLong(fields[5]), Long.parseLong(fields[6]), fields[7]));
+                        break;
+                    case RUNS_COMPLETE:
+                        completeRunRecords = Long.parseLong(fields[1]);
+                        break;
+                    case MERGE:
+                        int pass = Integer.parseInt(fields[1]);
+                        merges.add(new MergeEntry(fields[2], Long.parseLong(fields[3]), Long.parseLong(fields[4]), Arrays.asList(fields[5].split(","))));
+                        lastMergePass = Math.max(lastMergePass, pass);
+                        break;
+                    default:
+                        logger.warn("Ignoring unknown manifest entry {}", fields[0]);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring malformed manifest entry: {}", String.join(" ", fields));
+            }
+        }
+    }
+
+    /**
+     * A validated sorted run of a previous attempt.
+     */
+    public static final class CompletedRun {
+        private final String filePath;
+        private final long records;
+
+        CompletedRun(String filePath, long records) {
+            this.filePath = filePath;
+            this.records = records;
+        }
+
+        /**
+         * @return The path of the run, or null if its partition held no records.
+         */
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+    }
+
+    private static final class RunEntry {
+        private final long start;
+        private final long end;
+        private final long records;
+        private final long bytes;
+        private final long checksum;
+        private final String fileName;
+
+        RunEntry(long start, long end, long records, long bytes, long checksum, String fileName) {
+            this.start = start;
+            this.end = end;
+            this.records = records;
+            this.bytes = bytes;
+            this.checksum = checksum;
+            this.fileName = fileName;
+        }
+    }
+
+    private static final class MergeEntry {
+        private final String fileName;
+        private final long bytes;
+        private final long checksum;
+        private final List<String> inputs;
+
+        MergeEntry(String fileName, long bytes, long checksum, List<String> inputs) {
+            this.fileName = fileName;
+            this.bytes = bytes;
+            this.checksum = checksum;
+            this.inputs = inputs;
+        }
+    }
+}
@@ -18,10 +18,10 @@ public class CSVFileGeneratorImpl implements CSVFileGenerator {
      * @throws IOException If an I/O error occurs.
      */
     @Override
-    public void createCSVFile(String fileDestinationPath, int numberOfRecords) throws IOException {
+    public void createCSVFile(String fileDestinationPath, long numberOfRecords) throws IOException {
         try (BufferedWriter bw = new BufferedWriter(new FileWriter(fileDestinationPath), IOConstants.BUFFER_SIZE)) {
             Random generatedRandom = new Random();
-            for (int i = 0; i < numberOfRecords - 1; i++) {
+            for (long i = 0; i < numberOfRecords - 1; i++) {
                 bw.write(Integer.toString(generatedRandom.nextInt()));
                 bw.newLine();
             }
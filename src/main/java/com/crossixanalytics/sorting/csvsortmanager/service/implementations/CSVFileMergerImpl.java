@@ -2,6 +2,8 @@ package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
 
 import com.crossixanalytics.sorting.csvsortmanager.model.CSVRecord;
 import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileMerger;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,10 +42,10 @@ public class CSVFileMergerImpl implements CSVFileMerger {
             }
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath))) {
+        try (IntRecordWriter writer = IntRecordWriter.open(outputFilePath, IOConstants.WRITE_BUFFER_SIZE)) {
             while (!minimumHeap.isEmpty()) {
                 CSVRecord record = minimumHeap.poll();
-                writer.write(record.getRecordValue() + "\n");
+                writer.writeRecord(record.getRecordValue());
                 readNextCSVRecord(record, minimumHeap);
             }
         } finally {
@@ -1,10 +1,17 @@
 package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
 import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileReader;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.IntRecordParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,26 +28,84 @@ public class CSVFileReaderImpl implements CSVFileReader {
      * @throws IOException If an I/O error occurs.
      */
     public List<Integer> readCSVRecords(String filePath, int partitionSize, long offset) throws IOException {
-        List<Integer> csvRecords = new ArrayList<>();
+        IntRecordBuffer buffer = new IntRecordBuffer();
+        readCSVRecords(filePath, partitionSize, offset, buffer);
+        List<Integer> csvRecords = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            csvRecords.add(buffer.get(i));
+        }
+        return csvRecords;
+    }
+
+    /**
+     * Reads a specific number of records from a CSV file starting from a given offset into a primitive buffer.
+     * The buffer is cleared before reading, so it can be reused across partitions.
+     *
+     * @param filePath The path of the CSV file to read from.
+     * @param partitionSize The number of records to read.
+     * @param offset The offset to start reading from in the file.
+     * @param records The buffer to fill with the records read from the file.
+     * @return The file offset right after the last line consumed, i.e. the offset of the next partition.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public long readCSVRecords(String filePath, int partitionSize, long offset, IntRecordBuffer records) throws IOException {
+        records.clear();
         try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
             file.seek(offset); // Move to the specific offset
             String line;
             int count = 0;
-            while ((line = file.readLine()) != null && count < partitionSize) {
+            while (count < partitionSize && (line = file.readLine()) != null) {
                 line = line.trim();
                 if (!line.isEmpty()) {
                     try {
-                        csvRecords.add(Integer.parseInt(line));
+                        records.add(Integer.parseInt(line));
                         count++;
                     } catch (NumberFormatException e) {
                         logger.warn("NumberFormatException Parsing exception occurred: '{}'", line, e);
                     }
                 }
             }
+            return file.getFilePointer();
+        } catch (IOException e) {
+            logger.error("IO Exception occurred while reading CSV records", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads all the records within a byte range of a CSV file into a primitive buffer.
+     * The range is read sequentially in large chunks and parsed without creating a String per record.
+     * The buffer is cleared before reading, so it can be reused across partitions.
+     *
+     * @param filePath The path of the CSV file to read from.
+     * @param startOffset The offset of the first byte of the range, expected to be the start of a line.
+     * @param endOffset The offset right after the last byte of the range, expected to be the end of a line.
+     * @param records The buffer to fill with the records read from the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void readCSVRecordRange(String filePath, long startOffset, long endOffset, IntRecordBuffer records) throws IOException {
+        records.clear();
+        IntRecordParser parser = new IntRecordParser();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(IOConstants.READ_BUFFER_SIZE, Math.max(endOffset - startOffset, 1)));
+            long position = startOffset;
+            while (position < endOffset) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), endOffset - position));
+                int bytesRead = channel.read(chunk, position);
+                if (bytesRead < 0) {
+                    break;
+                }
+                position += bytesRead;
+                chunk.flip();
+                parser.parse(chunk.array(), 0, chunk.limit(), records);
+            }
+            parser.finish(records);
         } catch (IOException e) {
             logger.error("IO Exception occurred while reading CSV records", e);
             throw e;
         }
-        return csvRecords;
     }
 }
@@ -1,17 +1,40 @@
 package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
 import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileWriter;
 import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
 
 public class CSVFileWriterImpl implements CSVFileWriter {
     private static final Logger logger = LoggerFactory.getLogger(CSVFileWriterImpl.class);
+    private final int bufferSize;
+    private final RunFormat runFormat;
+
+    public CSVFileWriterImpl() {
+        this(IOConstants.WRITE_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize The size in bytes of the output buffer flushed to the file in a single write.
+     */
+    public CSVFileWriterImpl(int bufferSize) {
+        this(bufferSize, RunFormat.TEXT);
+    }
+
+    /**
+     * @param bufferSize The size in bytes of the output buffer flushed to the file in a single write.
+     * @param runFormat  The format of the written runs.
+     */
+    public CSVFileWriterImpl(int bufferSize, RunFormat runFormat) {
+        this.bufferSize = bufferSize;
+        this.runFormat = runFormat;
+    }
 
     /**
      * Writes a list of sorted integer records to a CSV file.
@@ -22,13 +45,27 @@ public class CSVFileWriterImpl implements CSVFileWriter {
      */
     @Override
     public void writeSortedRecords(String filePath, List<Integer> records) throws IOException {
-        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(filePath), IOConstants.BUFFER_SIZE)) {
-            int size = records.size();
-            for (int i = 0; i < records.size() - 1; i++) {
-                bufferedWriter.write(records.get(i).toString());
-                bufferedWriter.newLine();
+        try (IntRecordWriter writer = IntRecordWriter.open(filePath, bufferSize, runFormat)) {
+            for (Integer record : records) {
+                writer.writeRecord(record);
             }
-            bufferedWriter.write(records.get(size - 1).toString());
+        } catch (IOException e) {
+            logger.error("IO Exception Error while writing to file: {}", filePath, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a buffer of sorted primitive integer records to a CSV file.
+     *
+     * @param filePath The path of the CSV file to write to.
+     * @param records The buffer of sorted integer records to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void writeSortedRecords(String filePath, IntRecordBuffer records) throws IOException {
+        try (IntRecordWriter writer = IntRecordWriter.open(filePath, bufferSize, runFormat)) {
+            writer.writeRecords(records);
         } catch (IOException e) {
             logger.error("IO Exception Error while writing to file: {}", filePath, e);
             throw e;
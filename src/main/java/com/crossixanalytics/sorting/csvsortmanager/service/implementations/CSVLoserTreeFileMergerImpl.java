@@ -0,0 +1,245 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileMerger;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.readers.IntRunReader;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * K-way merger based on a tournament (loser) tree over the primitive head records of the input runs.
+ * Each run is read through its own refill buffer, so every merged record costs about log2(k) int comparisons
+ * and no allocation, which allows merging all the runs of a job in a single pass.
+ * With a prefetch budget, each run is read through two large buffers instead, the idle one being refilled by
+ * a background thread while the merge consumes the other, so the merge issues large reads ahead of its needs.
+ */
+public class CSVLoserTreeFileMergerImpl implements CSVFileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(CSVLoserTreeFileMergerImpl.class);
+    private static final int PREFETCH_THREADS = 4;
+    private static final int BUFFERS_PER_PREFETCHED_RUN = 3; // Two read chunks and the decoded block of about the same size
+    private static final int MAX_PREFETCH_BUFFER_SIZE = 1 << 23;
+    private final int readBufferSize;
+    private final int writeBufferSize;
+    private final RunFormat inputFormat;
+    private final RunFormat outputFormat;
+    private final long prefetchBudget;
+
+    public CSVLoserTreeFileMergerImpl() {
+        this(IOConstants.RUN_READ_BUFFER_SIZE, IOConstants.WRITE_BUFFER_SIZE);
+    }
+
+    /**
+     * @param readBufferSize  The size in bytes of the refill buffer of each input run.
+     * @param writeBufferSize The size in bytes of the output buffer flushed to the merged file in a single write.
+     */
+    public CSVLoserTreeFileMergerImpl(int readBufferSize, int writeBufferSize) {
+        this(readBufferSize, writeBufferSize, RunFormat.TEXT, RunFormat.TEXT);
+    }
+
+    /**
+     * @param readBufferSize  The size in bytes of the refill buffer of each input run.
+     * @param writeBufferSize The size in bytes of the output buffer flushed to the merged file in a single write.
+     * @param inputFormat     The format of the input runs.
+     * @param outputFormat    The format of the merged file; text for the final output.
+     */
+    public CSVLoserTreeFileMergerImpl(int readBufferSize, int writeBufferSize, RunFormat inputFormat, RunFormat outputFormat) {
+        this(readBufferSize, writeBufferSize, inputFormat, outputFormat, 0);
+    }
+
+    /**
+     * @param readBufferSize  The size in bytes of the refill buffer of each input run, without prefetching.
+     * @param writeBufferSize The size in bytes of the output buffer flushed to the merged file in a single write.
+     * @param inputFormat     The format of the input runs.
+     * @param outputFormat    The format of the merged file; text for the final output.
+     * @param prefetchBudget  The memory in bytes of the prefetch buffers of a merge, divided across its runs; 0 disables prefetching.
+     */
+    public CSVLoserTreeFileMergerImpl(int readBufferSize, int writeBufferSize, RunFormat inputFormat, RunFormat outputFormat, long prefetchBudget) {
+        this.readBufferSize = readBufferSize;
+        this.writeBufferSize = writeBufferSize;
+        this.inputFormat = inputFormat;
+        this.outputFormat = outputFormat;
+        this.prefetchBudget = prefetchBudget;
+    }
+
+    /**
+     * Merge a list of sorted CSV files to a single sorted CSV file.
+     *
+     * @param sortedFiles List of paths to the sorted CSV files.
+     * @param outputFilePath Path for the output merged CSV file.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void mergeCSVFiles(List<String> sortedFiles, String outputFilePath) throws IOException {
+        try (IntRecordWriter writer = IntRecordWriter.open(outputFilePath, writeBufferSize, outputFormat)) {
+            mergeCSVFiles(sortedFiles, writer);
+        } catch (IOException e) {
+            logger.error("IO Exception occurred while merging into file: {}", outputFilePath, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Merge a list of sorted runs into an open writer, such as one streaming the merged records to a channel rather
+     * than a file, whose format then takes the place of the output format. The writer is flushed but left open.
+     *
+     * @param sortedFiles List of paths to the sorted runs.
+     * @param writer      The writer receiving the merged records.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void mergeCSVFiles(List<String> sortedFiles, IntRecordWriter writer) throws IOException {
+        List<IntRunReader> runs = new ArrayList<>(sortedFiles.size());
+        ExecutorService prefetcher = null;
+        int runBufferSize = readBufferSize;
+        if (prefetchBudget > 0 && !sortedFiles.isEmpty()) {
+            prefetcher = Executors.newFixedThreadPool(Math.min(sortedFiles.size(), PREFETCH_THREADS), runnable -> {
+                Thread thread = new Thread(runnable, "run-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            runBufferSize = calculatePrefetchBufferSize(sortedFiles.size());
+            logger.debug("Prefetching {} runs through 2 x {} byte buffers each", sortedFiles.size(), runBufferSize);
+        }
+        try {
+            for (String file : sortedFiles) {
+                runs.add(IntRunReader.open(file, runBufferSize, inputFormat, prefetcher));
+            }
+            merge(runs, writer);
+            writer.flush();
+        } finally {
+            closeAllRunReaders(runs);
+            if (prefetcher != null) {
+                prefetcher.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Divides the prefetch budget across the runs of a merge.
+     *
+     * @param runCount The number of merged runs.
+     * @return The size in bytes of each of the two read chunks of a run.
+     */
+    private int calculatePrefetchBufferSize(int runCount) {
+        long bufferSize = prefetchBudget / ((long) BUFFERS_PER_PREFETCHED_RUN * runCount);
+        return (int) Math.max(Math.min(bufferSize, MAX_PREFETCH_BUFFER_SIZE), IOConstants.BUFFER_SIZE);
+    }
+
+    /**
+     * Merges already opened sorted runs into the given writer. The runs and the writer are left open.
+     *
+     * @param runs   The sorted runs to merge.
+     * @param writer The writer receiving the merged records.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void merge(List<IntRunReader> runs, IntRecordWriter writer) throws IOException {
+        if (runs.isEmpty()) {
+            return;
+        }
+        LoserTree tree = new LoserTree(runs);
+        int winner = tree.winner();
+        while (!tree.isExhausted(winner)) {
+            writer.writeRecord(tree.head(winner));
+            tree.advance(winner);
+            winner = tree.replay(winner);
+        }
+    }
+
+    private void closeAllRunReaders(List<IntRunReader> runs) {
+        for (IntRunReader run : runs) {
+            try {
+                run.close();
+            } catch (IOException e) {
+                logger.error("Exception while closing run reader", e);
+            }
+        }
+    }
+
+    /**
+     * Tournament tree with the runs as leaves k..2k-1 and the internal nodes 1..k-1 holding the loser of their match;
+     * node 0 holds the overall winner. Exhausted runs lose every match, and ties go to the lower run index.
+     */
+    private static final class LoserTree {
+        private final List<IntRunReader> runs;
+        private final int[] heads;
+        private final boolean[] exhausted;
+        private final int[] losers;
+
+        LoserTree(List<IntRunReader> runs) throws IOException {
+            int k = runs.size();
+            this.runs = runs;
+            this.heads = new int[k];
+            this.exhausted = new boolean[k];
+            this.losers = new int[k];
+            for (int i = 0; i < k; i++) {
+                advance(i);
+            }
+
+            int[] winners = new int[2 * k];
+            for (int i = 0; i < k; i++) {
+                winners[k + i] = i;
+            }
+            for (int node = k - 1; node >= 1; node--) {
+                int left = winners[2 * node];
+                int right = winners[2 * node + 1];
+                boolean leftWins = beats(left, right);
+                winners[node] = leftWins ? left : right;
+                losers[node] = leftWins ? right : left;
+            }
+            losers[0] = winners[1];
+        }
+
+        int winner() {
+            return losers[0];
+        }
+
+        int head(int run) {
+            return heads[run];
+        }
+
+        boolean isExhausted(int run) {
+            return exhausted[run];
+        }
+
+        void advance(int run) throws IOException {
+            IntRunReader reader = runs.get(run);
+            if (reader.hasNext()) {
+                heads[run] = reader.next();
+            } else {
+                exhausted[run] = true;
+            }
+        }
+
+        /**
+         * Replays the matches on the path from the given leaf to the root after its head changed.
+         *
+         * @return The new overall winner.
+         */
+        int replay(int run) {
+            int winner = run;
+            for (int node = (run + heads.length) >> 1; node >= 1; node >>= 1) {
+                int loser = losers[node];
+                if (beats(loser, winner)) {
+                    losers[node] = winner;
+                    winner = loser;
+                }
+            }
+            losers[0] = winner;
+            return winner;
+        }
+
+        private boolean beats(int a, int b) {
+            if (exhausted[a] || exhausted[b]) {
+                return !exhausted[a] || (exhausted[b] && a < b);
+            }
+            return heads[a] < heads[b] || (heads[a] == heads[b] && a < b);
+        }
+    }
+}
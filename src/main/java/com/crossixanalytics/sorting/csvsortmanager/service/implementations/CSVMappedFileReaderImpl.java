@@ -0,0 +1,105 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileReader;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.IntRecordParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zero-copy CSV reader which maps the requested part of the file with {@link FileChannel#map} and parses
+ * the records straight from the mapped pages, without copying them into a heap buffer or creating Strings.
+ * Ranges larger than a single mapping window are mapped window by window.
+ */
+public class CSVMappedFileReaderImpl implements CSVFileReader {
+    private static final Logger logger = LoggerFactory.getLogger(CSVMappedFileReaderImpl.class);
+    static final long MAX_MAPPING_SIZE = 1L << 30; // 1 GB, well below the 2 GB limit of a single mapping
+
+    /**
+     * Reads a specific number of records from a CSV file starting from a given offset.
+     *
+     * @param filePath The path of the CSV file to read from.
+     * @param partitionSize The number of records to read.
+     * @param offset The offset to start reading from in the file.
+     * @return A list of integer records read from the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public List<Integer> readCSVRecords(String filePath, int partitionSize, long offset) throws IOException {
+        IntRecordBuffer buffer = new IntRecordBuffer();
+        readCSVRecords(filePath, partitionSize, offset, buffer);
+        List<Integer> csvRecords = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            csvRecords.add(buffer.get(i));
+        }
+        return csvRecords;
+    }
+
+    /**
+     * Reads a specific number of records from a CSV file starting from a given offset into a primitive buffer.
+     * The buffer is cleared before reading, so it can be reused across partitions.
+     *
+     * @param filePath The path of the CSV file to read from.
+     * @param partitionSize The number of records to read.
+     * @param offset The offset to start reading from in the file.
+     * @param records The buffer to fill with the records read from the file.
+     * @return The file offset right after the last line consumed, i.e. the offset of the next partition.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public long readCSVRecords(String filePath, int partitionSize, long offset, IntRecordBuffer records) throws IOException {
+        records.clear();
+        IntRecordParser parser = new IntRecordParser();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = offset;
+            while (position < fileSize && records.size() < partitionSize) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPING_SIZE, fileSize - position));
+                parser.parse(window, records, partitionSize);
+                position += window.position();
+            }
+            if (position >= fileSize) {
+                parser.finish(records);
+            }
+            return position;
+        } catch (IOException e) {
+            logger.error("IO Exception occurred while reading CSV records", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads all the records within a byte range of a CSV file into a primitive buffer, parsing them directly
+     * from the memory-mapped range. The buffer is cleared before reading, so it can be reused across partitions.
+     *
+     * @param filePath The path of the CSV file to read from.
+     * @param startOffset The offset of the first byte of the range, expected to be the start of a line.
+     * @param endOffset The offset right after the last byte of the range, expected to be the end of a line.
+     * @param records The buffer to fill with the records read from the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void readCSVRecordRange(String filePath, long startOffset, long endOffset, IntRecordBuffer records) throws IOException {
+        records.clear();
+        IntRecordParser parser = new IntRecordParser();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long end = Math.min(endOffset, channel.size());
+            for (long position = startOffset; position < end; position += MAX_MAPPING_SIZE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPING_SIZE, end - position));
+                parser.parse(window, records);
+            }
+            parser.finish(records);
+        } catch (IOException e) {
+            logger.error("IO Exception occurred while reading CSV records", e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.KeyDistribution;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileGenerator;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a CSV file of integer records on several threads.
+ * The records are split into fixed-size segments, each generated from its own {@link SplittableRandom} stream
+ * seeded from the job's seed, so a seed always reproduces the same file regardless of the number of threads.
+ * A first pass computes the byte length of every segment, which gives each segment its offset in the file;
+ * a second pass formats the segments into write buffers and writes them concurrently with positional writes.
+ */
+public class CSVParallelFileGeneratorImpl implements CSVFileGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(CSVParallelFileGeneratorImpl.class);
+    private static final int RECORDS_PER_SEGMENT = 1 << 20;
+    private static final int DUPLICATE_KEY_COUNT = 1024;
+    private static final long KEY_SCRAMBLE_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final int parallelism;
+    private final Long seed;
+    private final KeyDistribution keyDistribution;
+    private final int writeBufferSize;
+    private final AtomicLong recordsGenerated = new AtomicLong();
+
+    /**
+     * @param parallelism     The maximum number of segments generated concurrently.
+     * @param seed            The seed of the dataset, or null for a different random dataset on every call.
+     * @param keyDistribution The distribution of the generated keys.
+     * @param writeBufferSize The size in bytes of each segment's output buffer.
+     */
+    public CSVParallelFileGeneratorImpl(int parallelism, Long seed, KeyDistribution keyDistribution, int writeBufferSize) {
+        this.parallelism = Math.max(parallelism, 1);
+        this.seed = seed;
+        this.keyDistribution = keyDistribution;
+        this.writeBufferSize = writeBufferSize;
+    }
+
+    /**
+     * Generates a CSV file at the specific path with an input number of records of the configured distribution.
+     *
+     * @param fileDestinationPath The path where the CSV file will be created.
+     * @param numberOfRecords     The number of records to generate in the CSV file.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void createCSVFile(String fileDestinationPath, long numberOfRecords) throws IOException {
+        recordsGenerated.set(0);
+        long datasetSeed = seed != null ? seed : new SplittableRandom().nextLong();
+        int segmentCount = Math.toIntExact((numberOfRecords + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+        long[] segmentSeeds = new long[segmentCount];
+        SplittableRandom seedSource = new SplittableRandom(datasetSeed);
+        for (int segment = 0; segment < segmentCount; segment++) {
+            segmentSeeds[segment] = seedSource.nextLong();
+        }
+        logger.info("Generating {} {} records in {} segments with seed {}", numberOfRecords, keyDistribution, segmentCount, datasetSeed);
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(Math.max(Math.min(parallelism, segmentCount), 1));
+        try (FileChannel outputChannel = FileChannel.open(Paths.get(fileDestinationPath),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            List<Future<Long>> lengthFutures = new ArrayList<>();
+            for (int segment = 0; segment < segmentCount; segment++) {
+                final int currentSegment = segment;
+                lengthFutures.add(threadPool.submit(() -> calculateSegmentLength(segmentSeeds[currentSegment], currentSegment, numberOfRecords)));
+            }
+            long[] segmentOffsets = new long[segmentCount];
+            long offset = 0;
+            for (int segment = 0; segment < segmentCount; segment++) {
+                segmentOffsets[segment] = offset;
+                offset += lengthFutures.get(segment).get();
+            }
+
+            List<Future<Void>> writeFutures = new ArrayList<>();
+            for (int segment = 0; segment < segmentCount; segment++) {
+                final int currentSegment = segment;
+                writeFutures.add(threadPool.submit(() -> {
+                    writeSegment(segmentSeeds[currentSegment], currentSegment, numberOfRecords, outputChannel, segmentOffsets[currentSegment]);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : writeFutures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating " + fileDestinationPath, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+
+    private long calculateSegmentLength(long segmentSeed, int segment, long numberOfRecords) {
+        SplittableRandom random = new SplittableRandom(segmentSeed);
+        long length = 0;
+        long end = segmentEnd(segment, numberOfRecords);
+        for (long index = (long) segment * RECORDS_PER_SEGMENT; index < end; index++) {
+            length += IntRecordWriter.recordLength(nextRecord(random, index, numberOfRecords));
+        }
+        return length;
+    }
+
+    private void writeSegment(long segmentSeed, int segment, long numberOfRecords, FileChannel outputChannel, long offset) throws IOException {
+        SplittableRandom random = new SplittableRandom(segmentSeed);
+        long end = segmentEnd(segment, numberOfRecords);
+        try (IntRecordWriter writer = IntRecordWriter.openAt(outputChannel, offset, writeBufferSize)) {
+            for (long index = (long) segment * RECORDS_PER_SEGMENT; index < end; index++) {
+                writer.writeRecord(nextRecord(random, index, numberOfRecords));
+            }
+        }
+        recordsGenerated.addAndGet(end - (long) segment * RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * The number of records of the segments written so far, which tracks the progress of {@link #createCSVFile}.
+     *
+     * @return The number of records generated so far.
+     */
+    public long getRecordsGenerated() {
+        return recordsGenerated.get();
+    }
+
+    private static long segmentEnd(int segment, long numberOfRecords) {
+        return Math.min((long) (segment + 1) * RECORDS_PER_SEGMENT, numberOfRecords);
+    }
+
+    /**
+     * Generates the record at a position of the file. Must only depend on the segment's random stream and the position,
+     * since both passes have to produce exactly the same records.
+     */
+    private int nextRecord(SplittableRandom random, long index, long numberOfRecords) {
+        switch (keyDistribution) {
+            case ZIPFIAN:
+                // Inverse transform of a continuous Zipf (s = 1) over ranks 1..n: rank r is drawn with probability ~ 1/r
+                long rank = (long) Math.pow(numberOfRecords, random.nextDouble());
+                return scramble(rank);
+            case SORTED:
+                return sortedRecord(index, numberOfRecords);
+            case REVERSE:
+                return ~sortedRecord(index, numberOfRecords);
+            case DUPLICATES:
+                return scramble(random.nextInt(DUPLICATE_KEY_COUNT));
+            case UNIFORM:
+            default:
+                return random.nextInt();
+        }
+    }
+
+    /**
+     * Spreads the records evenly and in ascending order over the whole int range.
+     */
+    private static int sortedRecord(long index, long numberOfRecords) {
+        return (int) (Integer.MIN_VALUE + (long) (index * (4294967295.0 / numberOfRecords)));
+    }
+
+    /**
+     * Maps a small key (a rank or a duplicate key) to a key scattered over the int range,
+     * so the frequent keys are not all clustered at one end of the sorted output.
+     */
+    private static int scramble(long key) {
+        return (int) ((key * KEY_SCRAMBLE_MULTIPLIER) >>> 32);
+    }
+}
@@ -0,0 +1,172 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
+
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileMerger;
+import com.crossixanalytics.sorting.csvsortmanager.util.readers.IntRunReader;
+import com.crossixanalytics.sorting.csvsortmanager.util.readers.SortedRunIndex;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Merger which splits the key space into ranges and merges the ranges concurrently.
+ * Splitter keys are sampled from the sorted runs, each run is binary-searched for the byte offset of every splitter,
+ * and each worker merges one key range of all the runs into its own pre-sized region of the output file
+ * with positional writes. Runs must hold canonical integer lines ("value\n") as written by the run writers:
+ * a range then takes exactly as many bytes in the output as in the runs, and the output is byte-identical
+ * to the one of a serial merge.
+ */
+public class CSVParallelRangeFileMergerImpl implements CSVFileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(CSVParallelRangeFileMergerImpl.class);
+    private static final int SAMPLES_PER_RANGE = 16;
+
+    private final int parallelism;
+    private final int readBufferSize;
+    private final int writeBufferSize;
+
+    /**
+     * @param parallelism     The number of key ranges merged concurrently.
+     * @param readBufferSize  The size in bytes of the refill buffer of each input run of a range.
+     * @param writeBufferSize The size in bytes of the output buffer of each range.
+     */
+    public CSVParallelRangeFileMergerImpl(int parallelism, int readBufferSize, int writeBufferSize) {
+        this.parallelism = Math.max(parallelism, 1);
+        this.readBufferSize = readBufferSize;
+        this.writeBufferSize = writeBufferSize;
+    }
+
+    /**
+     * Merge a list of sorted CSV files to a single sorted CSV file, merging key ranges in parallel.
+     *
+     * @param sortedFiles List of paths to the sorted CSV files.
+     * @param outputFilePath Path for the output merged CSV file.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void mergeCSVFiles(List<String> sortedFiles, String outputFilePath) throws IOException {
+        long[][] rangeOffsets = calculateRangeOffsets(sortedFiles);
+        int rangeCount = rangeOffsets[0].length - 1;
+        long[] outputOffsets = new long[rangeCount + 1];
+        for (int range = 0; range < rangeCount; range++) {
+            long rangeBytes = 0;
+            for (long[] runOffsets : rangeOffsets) {
+                rangeBytes += runOffsets[range + 1] - runOffsets[range];
+            }
+            outputOffsets[range + 1] = outputOffsets[range] + rangeBytes;
+        }
+        logger.info("Merging {} runs in {} parallel key ranges", sortedFiles.size(), rangeCount);
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(Math.min(parallelism, rangeCount));
+        try (RandomAccessFile outputFile = new RandomAccessFile(outputFilePath, "rw")) {
+            outputFile.setLength(outputOffsets[rangeCount]);
+            FileChannel outputChannel = outputFile.getChannel();
+            List<Future<Void>> rangeFutures = new ArrayList<>();
+            for (int range = 0; range < rangeCount; range++) {
+                int finalRange = range;
+                rangeFutures.add(threadPool.submit(() -> {
+                    mergeRange(sortedFiles, rangeOffsets, finalRange, outputChannel, outputOffsets[finalRange]);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : rangeFutures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while merging key ranges into " + outputFilePath, e);
+        } catch (ExecutionException e) {
+            logger.error("Exception while merging key ranges into file: {}", outputFilePath, e.getCause());
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    /**
+     * Samples splitter keys from the runs and binary-searches every run for them.
+     *
+     * @return For every run, the byte offsets bounding each key range: range i spans [offsets[i], offsets[i + 1]).
+     */
+    private long[][] calculateRangeOffsets(List<String> sortedFiles) throws IOException {
+        List<SortedRunIndex> runIndexes = new ArrayList<>();
+        try {
+            for (String file : sortedFiles) {
+                runIndexes.add(new SortedRunIndex(file));
+            }
+            int[] splitters = sampleSplitters(runIndexes);
+            long[][] rangeOffsets = new long[runIndexes.size()][splitters.length + 2];
+            for (int run = 0; run < runIndexes.size(); run++) {
+                SortedRunIndex runIndex = runIndexes.get(run);
+                for (int i = 0; i < splitters.length; i++) {
+                    rangeOffsets[run][i + 1] = runIndex.firstOffsetAtLeast(splitters[i]);
+                }
+                rangeOffsets[run][splitters.length + 1] = runIndex.size();
+            }
+            return rangeOffsets;
+        } finally {
+            for (SortedRunIndex runIndex : runIndexes) {
+                runIndex.close();
+            }
+        }
+    }
+
+    /**
+     * Samples keys at evenly spaced byte positions of every run, so that the chosen quantiles split
+     * the total output into key ranges of roughly equal size. Equal splitters are collapsed.
+     */
+    private int[] sampleSplitters(List<SortedRunIndex> runIndexes) throws IOException {
+        int samplesPerRun = parallelism * SAMPLES_PER_RANGE;
+        long totalSize = 0;
+        for (SortedRunIndex runIndex : runIndexes) {
+            totalSize += runIndex.size();
+        }
+
+        List<Integer> samples = new ArrayList<>();
+        for (SortedRunIndex runIndex : runIndexes) {
+            // Runs are sampled in proportion to their size
+            long runSamples = totalSize == 0 ? 0 : Math.max(1, samplesPerRun * runIndexes.size() * runIndex.size() / totalSize);
+            for (long j = 1; j <= runSamples; j++) {
+                long lineStart = runIndex.lineStartAtOrAfter(runIndex.size() * j / (runSamples + 1));
+                if (lineStart < runIndex.size()) {
+                    samples.add(runIndex.recordAt(lineStart));
+                }
+            }
+        }
+        int[] sortedSamples = samples.stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        int[] splitters = new int[parallelism - 1];
+        int splitterCount = 0;
+        for (int i = 1; i < parallelism && sortedSamples.length > 0; i++) {
+            int splitter = sortedSamples[(int) ((long) sortedSamples.length * i / parallelism)];
+            if (splitterCount == 0 || splitter > splitters[splitterCount - 1]) {
+                splitters[splitterCount++] = splitter;
+            }
+        }
+        return Arrays.copyOf(splitters, splitterCount);
+    }
+
+    private void mergeRange(List<String> sortedFiles, long[][] rangeOffsets, int range, FileChannel outputChannel, long outputOffset) throws IOException {
+        List<IntRunReader> runs = new ArrayList<>(sortedFiles.size());
+        try (IntRecordWriter writer = IntRecordWriter.openAt(outputChannel, outputOffset, writeBufferSize)) {
+            for (int run = 0; run < sortedFiles.size(); run++) {
+                long startOffset = rangeOffsets[run][range];
+                long endOffset = rangeOffsets[run][range + 1];
+                if (startOffset < endOffset) {
+                    runs.add(new IntRunReader(sortedFiles.get(run), startOffset, endOffset, readBufferSize));
+                }
+            }
+            new CSVLoserTreeFileMergerImpl(readBufferSize, writeBufferSize).merge(runs, writer);
+        } finally {
+            for (IntRunReader run : runs) {
+                run.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.DirectIntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVSingleFileSorter;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LSD radix sort for 32-bit signed integer records, sorting byte by byte in four counting passes.
+ * The sign bit of the most significant byte is flipped so negative values order before positive ones.
+ * Off-heap record buffers are sorted in place through a scratch buffer off the heap too, so sorting them
+ * does not allocate a partition-sized array on the heap.
+ * An instance keeps its scratch buffers between calls, so reusing one sorter across partitions avoids
+ * reallocating them; instances are therefore not thread-safe.
+ */
+public class CSVRadixSorterImpl implements CSVSingleFileSorter {
+    static final int RADIX_SORT_THRESHOLD = 512; // Below this size a comparison sort is faster
+    private static final int RADIX = 256;
+    private static final int NUM_OF_PASSES = 4;
+
+    private int[] scratchBuffer = new int[0];
+    private IntBuffer directScratchBuffer;
+
+    @Override
+    public List<Integer> sortSingleCSVFileRecords(List<Integer> records) {
+        IntRecordBuffer buffer = new IntRecordBuffer(records.size());
+        for (Integer record : records) {
+            buffer.add(record);
+        }
+        sortSingleCSVFileRecords(buffer);
+        for (int i = 0; i < buffer.size(); i++) {
+            records.set(i, buffer.get(i));
+        }
+        return records;
+    }
+
+    @Override
+    public void sortSingleCSVFileRecords(IntRecordBuffer records) {
+        int size = records.size();
+        if (records.isDirect()) {
+            sortDirectRecords(((DirectIntRecordBuffer) records).getDirectRecords(), size);
+            return;
+        }
+        if (size < RADIX_SORT_THRESHOLD) {
+            Arrays.sort(records.getRecords(), 0, size);
+            return;
+        }
+        if (scratchBuffer.length < size) {
+            scratchBuffer = new int[size];
+        }
+        radixSort(records.getRecords(), scratchBuffer, size);
+    }
+
+    private static void radixSort(int[] records, int[] scratch, int size) {
+        int[][] counts = countDigits(records, size);
+        int[] source = records;
+        int[] destination = scratch;
+
+        for (int pass = 0; pass < NUM_OF_PASSES; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * 8;
+            if (count[digit(source[0], pass, shift)] == size) {
+                continue; // All records share this byte, the pass would not change the order
+            }
+
+            int position = 0;
+            for (int i = 0; i < RADIX; i++) {
+                int digitCount = count[i];
+                count[i] = position;
+                position += digitCount;
+            }
+            for (int i = 0; i < size; i++) {
+                int record = source[i];
+                destination[count[digit(record, pass, shift)]++] = record;
+            }
+
+            int[] swap = source;
+            source = destination;
+            destination = swap;
+        }
+
+        if (source != records) {
+            System.arraycopy(source, 0, records, 0, size);
+        }
+    }
+
+    private void sortDirectRecords(IntBuffer records, int size) {
+        if (size < RADIX_SORT_THRESHOLD) {
+            int[] smallPartition = new int[size];
+            for (int i = 0; i < size; i++) {
+                smallPartition[i] = records.get(i);
+            }
+            Arrays.sort(smallPartition);
+            for (int i = 0; i < size; i++) {
+                records.put(i, smallPartition[i]);
+            }
+            return;
+        }
+        if (directScratchBuffer == null || directScratchBuffer.capacity() < size) {
+            directScratchBuffer = DirectIntRecordBuffer.allocate(size);
+        }
+        radixSort(records, directScratchBuffer, size);
+    }
+
+    /**
+     * The same passes as {@link #radixSort(int[], int[], int)} over direct int buffers, with absolute gets and puts.
+     */
+    private static void radixSort(IntBuffer records, IntBuffer scratch, int size) {
+        int[][] counts = new int[NUM_OF_PASSES][RADIX];
+        for (int i = 0; i < size; i++) {
+            int record = records.get(i);
+            counts[0][record & 0xFF]++;
+            counts[1][(record >>> 8) & 0xFF]++;
+            counts[2][(record >>> 16) & 0xFF]++;
+            counts[3][((record >>> 24) ^ 0x80) & 0xFF]++;
+        }
+        IntBuffer source = records;
+        IntBuffer destination = scratch;
+
+        for (int pass = 0; pass < NUM_OF_PASSES; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * 8;
+            if (count[digit(source.get(0), pass, shift)] == size) {
+                continue; // All records share this byte, the pass would not change the order
+            }
+
+            int position = 0;
+            for (int i = 0; i < RADIX; i++) {
+                int digitCount = count[i];
+                count[i] = position;
+                position += digitCount;
+            }
+            for (int i = 0; i < size; i++) {
+                int record = source.get(i);
+                destination.put(count[digit(record, pass, shift)]++, record);
+            }
+
+            IntBuffer swap = source;
+            source = destination;
+            destination = swap;
+        }
+
+        if (source != records) {
+            for (int i = 0; i < size; i++) {
+                records.put(i, source.get(i));
+            }
+        }
+    }
+
+    /**
+     * Builds the histograms of all four passes in a single scan of the records.
+     */
+    private static int[][] countDigits(int[] records, int size) {
+        int[][] counts = new int[NUM_OF_PASSES][RADIX];
+        for (int i = 0; i < size; i++) {
+            int record = records[i];
+            counts[0][record & 0xFF]++;
+            counts[1][(record >>> 8) & 0xFF]++;
+            counts[2][(record >>> 16) & 0xFF]++;
+            counts[3][((record >>> 24) ^ 0x80) & 0xFF]++;
+        }
+        return counts;
+    }
+
+    private static int digit(int record, int pass, int shift) {
+        int digit = (record >>> shift) & 0xFF;
+        return pass == NUM_OF_PASSES - 1 ? digit ^ 0x80 : digit;
+    }
+}
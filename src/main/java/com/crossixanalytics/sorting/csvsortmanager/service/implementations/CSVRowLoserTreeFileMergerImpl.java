@@ -0,0 +1,171 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
+
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileMerger;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.SortKeyEncoder;
+import com.crossixanalytics.sorting.csvsortmanager.util.readers.RowRunReader;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.RowRecordWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * K-way merger of keyed runs of CSV rows, based on a tournament (loser) tree over the normalized keys of the runs'
+ * head records. Each head's 8-byte key prefix is cached in a long array, so most matches are a primitive compare;
+ * only equal prefixes compare the full keys as unsigned bytes in the runs' read buffers. Merging never parses a row.
+ * Intermediate merges write keyed runs; the final merge writes the rows alone as text, after the header row if any.
+ */
+public class CSVRowLoserTreeFileMergerImpl implements CSVFileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(CSVRowLoserTreeFileMergerImpl.class);
+    private final int readBufferSize;
+    private final int writeBufferSize;
+    private final boolean keyedOutput;
+    private final byte[] header;
+
+    /**
+     * @param readBufferSize  The size in bytes of the read buffer of each input run.
+     * @param writeBufferSize The size in bytes of the output buffer flushed to the merged file in a single write.
+     * @param keyedOutput     Set to true to write a keyed run, false to write the final text output.
+     * @param header          The header row written first to the text output, including its line break, or null.
+     */
+    public CSVRowLoserTreeFileMergerImpl(int readBufferSize, int writeBufferSize, boolean keyedOutput, byte[] header) {
+        this.readBufferSize = readBufferSize;
+        this.writeBufferSize = writeBufferSize;
+        this.keyedOutput = keyedOutput;
+        this.header = header;
+    }
+
+    /**
+     * Merge a list of keyed runs to a single sorted file.
+     *
+     * @param sortedFiles    List of paths to the keyed runs.
+     * @param outputFilePath Path for the output merged file.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void mergeCSVFiles(List<String> sortedFiles, String outputFilePath) throws IOException {
+        List<RowRunReader> runs = new ArrayList<>(sortedFiles.size());
+        try {
+            for (String file : sortedFiles) {
+                runs.add(new RowRunReader(file, readBufferSize));
+            }
+            try (RowRecordWriter writer = new RowRecordWriter(outputFilePath, writeBufferSize, keyedOutput)) {
+                if (header != null && !keyedOutput) {
+                    writer.put(header, 0, header.length);
+                }
+                merge(runs, writer);
+            }
+        } catch (IOException e) {
+            logger.error("IO Exception occurred while merging into file: {}", outputFilePath, e);
+            throw e;
+        } finally {
+            for (RowRunReader run : runs) {
+                try {
+                    run.close();
+                } catch (IOException e) {
+                    logger.error("Exception while closing run reader", e);
+                }
+            }
+        }
+    }
+
+    private void merge(List<RowRunReader> runs, RowRecordWriter writer) throws IOException {
+        if (runs.isEmpty()) {
+            return;
+        }
+        LoserTree tree = new LoserTree(runs);
+        int winner = tree.winner();
+        while (!tree.isExhausted(winner)) {
+            RowRunReader run = runs.get(winner);
+            writer.writeRecord(run.getBuffer(), run.getKeyOffset(), run.getKeyLength(), run.getRowLength());
+            tree.advance(winner);
+            winner = tree.replay(winner);
+        }
+    }
+
+    /**
+     * Tournament tree with the runs as leaves k..2k-1 and the internal nodes 1..k-1 holding the loser of their match;
+     * node 0 holds the overall winner. Exhausted runs lose every match, and ties go to the lower run index.
+     */
+    private static final class LoserTree {
+        private final RowRunReader[] runs;
+        private final long[] prefixes;
+        private final boolean[] exhausted;
+        private final int[] losers;
+
+        LoserTree(List<RowRunReader> runs) throws IOException {
+            int k = runs.size();
+            this.runs = runs.toArray(new RowRunReader[0]);
+            this.prefixes = new long[k];
+            this.exhausted = new boolean[k];
+            this.losers = new int[k];
+            for (int i = 0; i < k; i++) {
+                advance(i);
+            }
+
+            int[] winners = new int[2 * k];
+            for (int i = 0; i < k; i++) {
+                winners[k + i] = i;
+            }
+            for (int node = k - 1; node >= 1; node--) {
+                int left = winners[2 * node];
+                int right = winners[2 * node + 1];
+                boolean leftWins = beats(left, right);
+                winners[node] = leftWins ? left : right;
+                losers[node] = leftWins ? right : left;
+            }
+            losers[0] = winners[1];
+        }
+
+        int winner() {
+            return losers[0];
+        }
+
+        boolean isExhausted(int run) {
+            return exhausted[run];
+        }
+
+        void advance(int run) throws IOException {
+            RowRunReader reader = runs[run];
+            if (reader.next()) {
+                prefixes[run] = SortKeyEncoder.prefix(reader.getBuffer(), reader.getKeyOffset(), reader.getKeyLength());
+            } else {
+                exhausted[run] = true;
+            }
+        }
+
+        /**
+         * Replays the matches on the path from the given leaf to the root after its head changed.
+         *
+         * @return The new overall winner.
+         */
+        int replay(int run) {
+            int winner = run;
+            for (int node = (run + runs.length) >> 1; node >= 1; node >>= 1) {
+                int loser = losers[node];
+                if (beats(loser, winner)) {
+                    losers[node] = winner;
+                    winner = loser;
+                }
+            }
+            losers[0] = winner;
+            return winner;
+        }
+
+        private boolean beats(int a, int b) {
+            if (exhausted[a] || exhausted[b]) {
+                return !exhausted[a] || (exhausted[b] && a < b);
+            }
+            if (prefixes[a] != prefixes[b]) {
+                return prefixes[a] < prefixes[b];
+            }
+            RowRunReader first = runs[a];
+            RowRunReader second = runs[b];
+            int comparison = SortKeyEncoder.compare(first.getBuffer(), first.getKeyOffset(), first.getKeyLength(),
+                    second.getBuffer(), second.getKeyOffset(), second.getKeyLength());
+            return comparison < 0 || (comparison == 0 && a < b);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RowRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVRowSorter;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.SortKeyEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Sorts a partition of rows by their normalized keys without moving the rows, comparing only primitive 8-byte key
+ * prefixes (see {@link SortKeyEncoder#prefix}). The record indexes are first merge sorted together with their key
+ * prefixes, held in a parallel long array. Every group of records left with equal prefixes is then sorted the same way
+ * by the next 8 bytes of their keys, and so on until the keys are exhausted, so keys sharing long prefixes (such as
+ * text columns with a common leading word) never fall back to byte-by-byte comparisons. Ties are finally broken by
+ * key length, a shorter key being a prefix of the longer one. The sort is stable: rows with equal keys keep their
+ * input order.
+ * An instance keeps its index, prefix and scratch arrays between calls, so reusing one sorter across partitions avoids
+ * reallocating them; instances are therefore not thread-safe.
+ */
+public class CSVRowSorterImpl implements CSVRowSorter {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private int[] order = new int[0];
+    private int[] scratch = new int[0];
+    private long[] prefixes = new long[0];
+    private long[] scratchPrefixes = new long[0];
+    private int[] pendingGroups = new int[3 * 16]; // Stack of (from, to, key depth) groups left to sort
+
+    /**
+     * Sorts the records of the buffer.
+     *
+     * @param records The records to sort; the buffer itself is left unchanged.
+     * @return The record indexes in sorted order, valid in the first {@code records.size()} elements until the next call.
+     */
+    @Override
+    public int[] sortRecords(RowRecordBuffer records) {
+        int size = records.size();
+        if (order.length < size) {
+            order = new int[size];
+            scratch = new int[size];
+            prefixes = new long[size];
+            scratchPrefixes = new long[size];
+        }
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        System.arraycopy(records.getKeyPrefixes(), 0, prefixes, 0, size);
+
+        int pending = 0;
+        int from = 0;
+        int to = size;
+        int depth = 0;
+        while (true) {
+            sortByPrefix(from, to);
+            for (int groupStart = from; groupStart < to; ) {
+                int groupEnd = groupStart + 1;
+                while (groupEnd < to && prefixes[groupEnd] == prefixes[groupStart]) {
+                    groupEnd++;
+                }
+                if (groupEnd - groupStart > 1) {
+                    if (loadNextPrefixes(records, groupStart, groupEnd, depth + Long.BYTES)) {
+                        if (pending + 3 > pendingGroups.length) {
+                            pendingGroups = Arrays.copyOf(pendingGroups, 2 * pendingGroups.length);
+                        }
+                        pendingGroups[pending++] = groupStart;
+                        pendingGroups[pending++] = groupEnd;
+                        pendingGroups[pending++] = depth + Long.BYTES;
+                    }
+                }
+                groupStart = groupEnd;
+            }
+            if (pending == 0) {
+                return order;
+            }
+            depth = pendingGroups[--pending];
+            to = pendingGroups[--pending];
+            from = pendingGroups[--pending];
+        }
+    }
+
+    /**
+     * Replaces the prefixes of a group of records with equal prefixes by the prefixes of their keys from the given
+     * depth on. Once every key of the group ends before that depth, their lengths replace the prefixes instead, unless
+     * they are all equal too, since keys of equal length and prefixes are equal.
+     *
+     * @return true if the group needs to be sorted by its new prefixes, false if its keys are equal.
+     */
+    private boolean loadNextPrefixes(RowRecordBuffer records, int from, int to, int depth) {
+        boolean keysEnded = true;
+        boolean equalLengths = true;
+        int firstLength = records.getKeyLength(order[from]);
+        for (int i = from; i < to; i++) {
+            int keyLength = records.getKeyLength(order[i]);
+            keysEnded &= keyLength <= depth;
+            equalLengths &= keyLength == firstLength;
+        }
+        if (keysEnded) {
+            if (equalLengths) {
+                return false;
+            }
+            for (int i = from; i < to; i++) {
+                prefixes[i] = records.getKeyLength(order[i]);
+            }
+            return true;
+        }
+        byte[] data = records.getData();
+        for (int i = from; i < to; i++) {
+            int index = order[i];
+            int keyLength = records.getKeyLength(index);
+            prefixes[i] = SortKeyEncoder.prefix(data, records.getKeyOffset(index) + Math.min(depth, keyLength), Math.max(keyLength - depth, 0));
+        }
+        return true;
+    }
+
+    /**
+     * Stably sorts order[from, to) by the prefixes in prefixes[from, to), moving each index with its prefix.
+     */
+    private void sortByPrefix(int from, int to) {
+        System.arraycopy(order, from, scratch, from, to - from);
+        System.arraycopy(prefixes, from, scratchPrefixes, from, to - from);
+        mergeSort(scratch, scratchPrefixes, order, prefixes, from, to);
+    }
+
+    /**
+     * Sorts source[from, to) into target[from, to), moving each index with its prefix; both ranges start with the
+     * same indexes and prefixes.
+     */
+    private static void mergeSort(int[] source, long[] sourcePrefixes, int[] target, long[] targetPrefixes, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(target, targetPrefixes, from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(target, targetPrefixes, source, sourcePrefixes, from, middle);
+        mergeSort(target, targetPrefixes, source, sourcePrefixes, middle, to);
+        if (sourcePrefixes[middle - 1] <= sourcePrefixes[middle]) {
+            System.arraycopy(source, from, target, from, to - from); // Already in order
+            System.arraycopy(sourcePrefixes, from, targetPrefixes, from, to - from);
+            return;
+        }
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && sourcePrefixes[left] <= sourcePrefixes[right])) {
+                targetPrefixes[i] = sourcePrefixes[left];
+                target[i] = source[left++];
+            } else {
+                targetPrefixes[i] = sourcePrefixes[right];
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    private static void insertionSort(int[] indexes, long[] indexPrefixes, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int index = indexes[i];
+            long prefix = indexPrefixes[i];
+            int j = i - 1;
+            while (j >= from && indexPrefixes[j] > prefix) {
+                indexes[j + 1] = indexes[j];
+                indexPrefixes[j + 1] = indexPrefixes[j];
+                j--;
+            }
+            indexes[j + 1] = index;
+            indexPrefixes[j + 1] = prefix;
+        }
+    }
+}
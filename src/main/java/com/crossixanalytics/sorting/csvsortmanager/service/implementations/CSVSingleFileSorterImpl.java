@@ -1,7 +1,9 @@
 package com.crossixanalytics.sorting.csvsortmanager.service.implementations;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
 import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVSingleFileSorter;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -11,4 +13,9 @@ public class CSVSingleFileSorterImpl implements CSVSingleFileSorter {
         Collections.sort(records);
         return records;
     }
+
+    @Override
+    public void sortSingleCSVFileRecords(IntRecordBuffer records) {
+        Arrays.sort(records.getRecords(), 0, records.size());
+    }
 }
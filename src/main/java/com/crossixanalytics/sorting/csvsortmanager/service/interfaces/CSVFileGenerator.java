@@ -7,5 +7,5 @@ import java.io.IOException;
  */
 public interface CSVFileGenerator {
 
-    void createCSVFile(String fileDestinationPath, int numberOfRecords) throws IOException;
+    void createCSVFile(String fileDestinationPath, long numberOfRecords) throws IOException;
 }
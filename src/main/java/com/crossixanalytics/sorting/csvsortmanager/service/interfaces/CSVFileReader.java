@@ -1,8 +1,14 @@
 package com.crossixanalytics.sorting.csvsortmanager.service.interfaces;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+
 import java.io.IOException;
 import java.util.List;
 
 public interface CSVFileReader {
     List<Integer> readCSVRecords(String filePath, int partitionSize, long offset) throws IOException;
+
+    long readCSVRecords(String filePath, int partitionSize, long offset, IntRecordBuffer records) throws IOException;
+
+    void readCSVRecordRange(String filePath, long startOffset, long endOffset, IntRecordBuffer records) throws IOException;
 }
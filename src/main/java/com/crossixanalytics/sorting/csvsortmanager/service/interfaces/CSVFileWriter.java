@@ -1,8 +1,12 @@
 package com.crossixanalytics.sorting.csvsortmanager.service.interfaces;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+
 import java.io.IOException;
 import java.util.List;
 
 public interface CSVFileWriter {
     void writeSortedRecords(String filePath, List<Integer> records) throws IOException;
+
+    void writeSortedRecords(String filePath, IntRecordBuffer records) throws IOException;
 }
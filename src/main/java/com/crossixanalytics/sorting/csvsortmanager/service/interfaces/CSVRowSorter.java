@@ -0,0 +1,7 @@
+package com.crossixanalytics.sorting.csvsortmanager.service.interfaces;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RowRecordBuffer;
+
+public interface CSVRowSorter {
+    int[] sortRecords(RowRecordBuffer records);
+}
@@ -1,7 +1,11 @@
 package com.crossixanalytics.sorting.csvsortmanager.service.interfaces;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+
 import java.util.List;
 
 public interface CSVSingleFileSorter {
     List<Integer> sortSingleCSVFileRecords(List<Integer> records);
+
+    void sortSingleCSVFileRecords(IntRecordBuffer records);
 }
@@ -6,9 +6,19 @@ public class IOConstants {
 
     public static final String FINAL_SORTED_FILENAME = "final_sorted.csv";
     public static final String FILE_TYPE = ".csv";
+    public static final String BINARY_RUN_FILE_TYPE = ".run"; // Delta + varint encoded sorted runs
+    public static final String KEYED_RUN_FILE_TYPE = ".keyrun"; // Normalized key + row encoded sorted runs of multi-column rows
 
     public static final int BUFFER_SIZE = 8192; // Standard
 
+    public static final int READ_BUFFER_SIZE = 1 << 20; // 1 MB chunks for sequential NIO reads
+
+    public static final int RUN_READ_BUFFER_SIZE = 1 << 18; // 256 KB refill buffer per merged run
+
+    public static final int WRITE_BUFFER_SIZE = 1 << 20; // 1 MB default output buffer of run and merge writers
+
     public static final String TEMP_FILE_PREFIX = "temp_";
 
+    public static final String MANIFEST_FILENAME = "sort_manifest.txt"; // Checkpoints of the runs and merges of a job
+
 }
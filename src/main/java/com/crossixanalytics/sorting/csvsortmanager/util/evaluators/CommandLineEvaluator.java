@@ -1,5 +1,13 @@
 package com.crossixanalytics.sorting.csvsortmanager.util.evaluators;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.KeyDistribution;
+import com.crossixanalytics.sorting.csvsortmanager.model.ReaderType;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunGeneration;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortAlgorithm;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeySpec;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.ByteSizeParser;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,23 +43,272 @@ public class CommandLineEvaluator {
         Option numberOfRecordsOption = Option.builder("n")
                 .longOpt("numberOfRecords")
                 .hasArg()
-                .desc("Number of CSV Records to generate")
-                .required(true)
+                .desc("Number of CSV Records to generate (required unless an existing file is sorted with -o)")
                 .build();
         options.addOption(numberOfRecordsOption);
 
+        Option outputFilePathOption = Option.builder("o")
+                .longOpt("outputFilePath")
+                .hasArg()
+                .argName("path")
+                .desc("Sort the existing file given by -f into this output path (may be the input itself) instead of generating the input")
+                .build();
+        options.addOption(outputFilePathOption);
+
         Option multiProcessingOption = Option.builder("M")
                 .longOpt("multiProcessing")
                 .desc("Option to Allow Multi-Threaded processing")
                 .build();
         options.addOption(multiProcessingOption);
 
+        Option sortAlgorithmOption = Option.builder("s")
+                .longOpt("sortAlgorithm")
+                .hasArg()
+                .argName("comparison|radix")
+                .desc("In-memory sort algorithm for each partition (default: comparison)")
+                .build();
+        options.addOption(sortAlgorithmOption);
+
+        Option readerTypeOption = Option.builder("r")
+                .longOpt("readerType")
+                .hasArg()
+                .argName("buffered|mapped")
+                .desc("How partitions of the input file are read (default: mapped)")
+                .build();
+        options.addOption(readerTypeOption);
+
+        Option ioBufferSizeOption = Option.builder("b")
+                .longOpt("ioBufferSize")
+                .hasArg()
+                .argName("size")
+                .desc("Output buffer size of the run and merge writers, e.g. 4m (default: 1m)")
+                .build();
+        options.addOption(ioBufferSizeOption);
+
+        Option parallelFinalMergeOption = Option.builder("P")
+                .longOpt("parallelFinalMerge")
+                .desc("Option to merge key ranges of the final output concurrently")
+                .build();
+        options.addOption(parallelFinalMergeOption);
+
+        Option memoryBudgetOption = Option.builder("m")
+                .longOpt("memoryBudget")
+                .hasArg()
+                .argName("size")
+                .desc("Memory shared by the sort workers' partitions, e.g. 512m (default: half of the max heap)")
+                .build();
+        options.addOption(memoryBudgetOption);
+
+        Option offHeapBudgetOption = Option.builder("O")
+                .longOpt("offHeapBudget")
+                .hasArg()
+                .argName("size")
+                .desc("Hold the integer partitions and their sort scratch off the heap in this much direct memory, e.g. 4g, "
+                        + "instead of in the memory budget (default: on the heap)")
+                .build();
+        options.addOption(offHeapBudgetOption);
+
+        Option threadsOption = Option.builder("t")
+                .longOpt("threads")
+                .hasArg()
+                .argName("count")
+                .desc("Number of sort and merge worker threads (default: available processors)")
+                .build();
+        options.addOption(threadsOption);
+
+        Option seedOption = Option.builder("S")
+                .longOpt("seed")
+                .hasArg()
+                .argName("seed")
+                .desc("Seed of the generated input, so the same dataset can be reproduced (default: random)")
+                .build();
+        options.addOption(seedOption);
+
+        Option keyDistributionOption = Option.builder("d")
+                .longOpt("keyDistribution")
+                .hasArg()
+                .argName("distribution")
+                .desc("Distribution of the generated keys: uniform (default), zipfian, sorted, reverse or duplicates")
+                .build();
+        options.addOption(keyDistributionOption);
+
+        Option runFormatOption = Option.builder("R")
+                .longOpt("runFormat")
+                .hasArg()
+                .argName("text|binary")
+                .desc("Format of the sorted runs and intermediate merge files; binary is delta + varint encoded (default: text)")
+                .build();
+        options.addOption(runFormatOption);
+
+        Option runGenerationOption = Option.builder("g")
+                .longOpt("runGeneration")
+                .hasArg()
+                .argName("partition|replacement-selection")
+                .desc("Strategy for generating the sorted runs; replacement selection makes fewer, longer runs (default: partition)")
+                .build();
+        options.addOption(runGenerationOption);
+
+        Option noPresortednessScanOption = Option.builder("N")
+                .longOpt("noPresortednessScan")
+                .desc("Skip the scan for already sorted, reverse sorted or nearly sorted input and its fast paths")
+                .build();
+        options.addOption(noPresortednessScanOption);
+
+        Option resumeOption = Option.builder("c")
+                .longOpt("resume")
+                .desc("Resume an interrupted sort of the same input, reusing its validated sorted runs and merges")
+                .build();
+        options.addOption(resumeOption);
+
+        Option prefetchBudgetOption = Option.builder("p")
+                .longOpt("prefetchBudget")
+                .hasArg()
+                .argName("size")
+                .desc("Memory of the double-buffered background reads of the merged runs, e.g. 64m (default: synchronous reads)")
+                .build();
+        options.addOption(prefetchBudgetOption);
+
+        Option progressIntervalOption = Option.builder("i")
+                .longOpt("progressInterval")
+                .hasArg()
+                .argName("seconds")
+                .desc("Log the progress of the current phase with its throughput and ETA every given seconds (default: off)")
+                .build();
+        options.addOption(progressIntervalOption);
+
+        Option metricsFileOption = Option.builder("j")
+                .longOpt("metricsFile")
+                .hasArg()
+                .argName("path")
+                .desc("Write the JSON summary of the per-phase metrics of the job to this file (always logged)")
+                .build();
+        options.addOption(metricsFileOption);
+
+        Option keysOption = Option.builder("k")
+                .longOpt("keys")
+                .hasArg()
+                .argName("spec")
+                .desc("Sort multi-column rows by these key columns, e.g. 2:long:desc,0:string; each column is index[:long|double|string|date[:asc|desc]]")
+                .build();
+        options.addOption(keysOption);
+
+        Option delimiterOption = Option.builder("D")
+                .longOpt("delimiter")
+                .hasArg()
+                .argName("char")
+                .desc("Field delimiter of the rows sorted with -k, a single character or \"tab\" (default: ,)")
+                .build();
+        options.addOption(delimiterOption);
+
+        Option headerOption = Option.builder("H")
+                .longOpt("header")
+                .desc("The first line of the rows sorted with -k is a header, kept first in the output")
+                .build();
+        options.addOption(headerOption);
+
         return options;
     }
 
+    /**
+     * Builds the sort options from the optional command-line arguments, falling back to defaults for missing ones.
+     *
+     * @param cmdArgs The parsed command-line arguments.
+     * @return The sort options of the job.
+     * @throws IllegalArgumentException If an option holds an illegal value.
+     */
+    public static SortOptions buildSortOptions(CommandLine cmdArgs) {
+        SortOptions sortOptions = new SortOptions();
+        if (cmdArgs.hasOption("s")) {
+            sortOptions.setSortAlgorithm(SortAlgorithm.fromName(cmdArgs.getOptionValue("s")));
+        }
+        if (cmdArgs.hasOption("r")) {
+            sortOptions.setReaderType(ReaderType.fromName(cmdArgs.getOptionValue("r")));
+        }
+        if (cmdArgs.hasOption("b")) {
+            long ioBufferSize = ByteSizeParser.parseByteSize(cmdArgs.getOptionValue("b"));
+            if (ioBufferSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("I/O buffer size must be below 2g: " + cmdArgs.getOptionValue("b"));
+            }
+            sortOptions.setIoBufferSize((int) ioBufferSize);
+        }
+        if (cmdArgs.hasOption("m")) {
+            sortOptions.setMemoryBudget(ByteSizeParser.parseByteSize(cmdArgs.getOptionValue("m")));
+        }
+        if (cmdArgs.hasOption("O")) {
+            sortOptions.setOffHeapBudget(ByteSizeParser.parseByteSize(cmdArgs.getOptionValue("O")));
+        }
+        if (cmdArgs.hasOption("p")) {
+            sortOptions.setPrefetchBudget(ByteSizeParser.parseByteSize(cmdArgs.getOptionValue("p")));
+        }
+        if (cmdArgs.hasOption("i")) {
+            long progressInterval;
+            try {
+                progressInterval = Long.parseLong(cmdArgs.getOptionValue("i").trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Progress interval must be a number of seconds: " + cmdArgs.getOptionValue("i"));
+            }
+            if (progressInterval < 1) {
+                throw new IllegalArgumentException("Progress interval must be at least 1 second: " + progressInterval);
+            }
+            sortOptions.setProgressIntervalSeconds(progressInterval);
+        }
+        if (cmdArgs.hasOption("j")) {
+            sortOptions.setMetricsFilePath(cmdArgs.getOptionValue("j"));
+        }
+        if (cmdArgs.hasOption("t")) {
+            int threadCount;
+            try {
+                threadCount = Integer.parseInt(cmdArgs.getOptionValue("t").trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Number of threads must be an integer: " + cmdArgs.getOptionValue("t"));
+            }
+            if (threadCount < 1) {
+                throw new IllegalArgumentException("Number of threads must be at least 1: " + threadCount);
+            }
+            sortOptions.setThreadCount(threadCount);
+        }
+        if (cmdArgs.hasOption("S")) {
+            try {
+                sortOptions.setSeed(Long.parseLong(cmdArgs.getOptionValue("S").trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Seed must be an integer: " + cmdArgs.getOptionValue("S"));
+            }
+        }
+        if (cmdArgs.hasOption("d")) {
+            sortOptions.setKeyDistribution(KeyDistribution.fromName(cmdArgs.getOptionValue("d")));
+        }
+        if (cmdArgs.hasOption("R")) {
+            sortOptions.setRunFormat(RunFormat.fromName(cmdArgs.getOptionValue("R")));
+        }
+        if (cmdArgs.hasOption("g")) {
+            sortOptions.setRunGeneration(RunGeneration.fromName(cmdArgs.getOptionValue("g")));
+        }
+        if (cmdArgs.hasOption("k")) {
+            sortOptions.setKeySpec(SortKeySpec.parse(cmdArgs.getOptionValue("k")));
+        }
+        if (cmdArgs.hasOption("D")) {
+            String delimiter = cmdArgs.getOptionValue("D");
+            if (delimiter.equalsIgnoreCase("tab") || delimiter.equals("\\t")) {
+                delimiter = "\t";
+            }
+            if (delimiter.length() != 1 || delimiter.charAt(0) > 0x7F || delimiter.charAt(0) == '"' || delimiter.charAt(0) == '\n') {
+                throw new IllegalArgumentException("Field delimiter must be a single ASCII character other than a quote or line break: " + cmdArgs.getOptionValue("D"));
+            }
+            sortOptions.setFieldDelimiter(delimiter.charAt(0));
+        }
+        sortOptions.setHeaderRow(cmdArgs.hasOption("H"));
+        if ((cmdArgs.hasOption("D") || cmdArgs.hasOption("H")) && sortOptions.getKeySpec() == null) {
+            throw new IllegalArgumentException("The delimiter (-D) and header (-H) options apply to rows sorted with a key spec (-k)");
+        }
+        sortOptions.setParallelFinalMerge(cmdArgs.hasOption("P"));
+        sortOptions.setPresortednessScan(!cmdArgs.hasOption("N"));
+        sortOptions.setResume(cmdArgs.hasOption("c"));
+        return sortOptions;
+    }
+
     public static void printHelper(HelpFormatter formatter, Options options) {
         String header = "CSV Sort Manager Application\n\n";
-        String footer = "\nPlease provide the file path and the number of records as command-line arguments.";
+        String footer = "\nPlease provide the file path and either the number of records to generate or an output file path as command-line arguments.";
         formatter.printHelp("CSVSortManagerApplication", header, options, footer, true);
     }
 }
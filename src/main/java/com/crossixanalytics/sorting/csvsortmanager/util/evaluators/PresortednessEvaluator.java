@@ -0,0 +1,180 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.evaluators;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.Presortedness;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A Utility class for detecting input files which are already sorted, reverse sorted or made of few ascending natural runs.
+ * The scan counts the descents and ascents between consecutive records and gives up as soon as the file has too many
+ * natural runs in both directions, which on unsorted input happens within the first few hundred records.
+ * It only accepts strictly formatted lines (an optional sign and digits, "\n" or "\r\n" endings, blank lines);
+ * anything else ends the scan as unsorted, leaving the records to the regular sort and its parser.
+ */
+public class PresortednessEvaluator {
+    private static final long MAX_MAGNITUDE = -(long) Integer.MIN_VALUE;
+
+    /**
+     * Scans the file for presortedness.
+     *
+     * @param filePath        Path to the file.
+     * @param maxNaturalRuns The largest number of ascending natural runs still worth merging directly.
+     * @return The presortedness of the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Presortedness evaluate(String filePath, int maxNaturalRuns) throws IOException {
+        Scan scan = new Scan(maxNaturalRuns);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate(IOConstants.READ_BUFFER_SIZE);
+            long chunkOffset = 0;
+            int bytesRead;
+            while ((bytesRead = channel.read(chunk, chunkOffset)) > 0) {
+                byte[] bytes = chunk.array();
+                for (int i = 0; i < bytesRead; i++) {
+                    if (!scan.accept(bytes[i], chunkOffset + i)) {
+                        return unsorted();
+                    }
+                }
+                chunkOffset += bytesRead;
+                chunk.clear();
+            }
+            if (!scan.finish(chunkOffset)) {
+                return unsorted();
+            }
+        }
+
+        if (scan.ascendingRuns <= 1) {
+            return new Presortedness(Presortedness.Kind.SORTED, new long[]{0}, scan.canonical);
+        }
+        if (scan.descendingRuns <= 1) {
+            return new Presortedness(Presortedness.Kind.REVERSE_SORTED, new long[0], scan.canonical);
+        }
+        return new Presortedness(Presortedness.Kind.NATURAL_RUNS, Arrays.copyOf(scan.runOffsets, scan.ascendingRuns), scan.canonical);
+    }
+
+    private static Presortedness unsorted() {
+        return new Presortedness(Presortedness.Kind.UNSORTED, new long[0], false);
+    }
+
+    /**
+     * The state of a scan, fed one byte at a time.
+     */
+    private static final class Scan {
+        private final int maxNaturalRuns;
+        private final long[] runOffsets;
+        private int ascendingRuns;
+        private int descendingRuns;
+        private boolean canonical = true;
+        private boolean hasPrevious;
+        private int previous;
+
+        private long lineStart;
+        private long magnitude;
+        private int digits;
+        private boolean negative;
+        private boolean signSeen;
+        private boolean carriageReturn;
+        private boolean leadingZero;
+
+        Scan(int maxNaturalRuns) {
+            this.maxNaturalRuns = maxNaturalRuns;
+            this.runOffsets = new long[maxNaturalRuns];
+        }
+
+        /**
+         * @return false if the scan gave up: a line is not strictly formatted, or the file has too many natural runs.
+         */
+        boolean accept(byte b, long offset) {
+            if (b >= '0' && b <= '9') {
+                if (carriageReturn) {
+                    return false;
+                }
+                if (digits == 1 && magnitude == 0) {
+                    leadingZero = true;
+                }
+                magnitude = magnitude * 10 + (b - '0');
+                digits++;
+                return magnitude <= MAX_MAGNITUDE;
+            }
+            if (b == '\n') {
+                boolean accepted = endLine(offset + 1);
+                lineStart = offset + 1;
+                return accepted;
+            }
+            if (b == '\r' && !carriageReturn) {
+                carriageReturn = true;
+                return true;
+            }
+            if ((b == '-' || b == '+') && !signSeen && digits == 0 && !carriageReturn) {
+                signSeen = true;
+                negative = b == '-';
+                if (b == '+') {
+                    canonical = false;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        boolean finish(long fileSize) {
+            if (lineStart == fileSize) {
+                return true;
+            }
+            canonical = false; // The last line has no line break
+            return endLine(fileSize);
+        }
+
+        private boolean endLine(long nextLineStart) {
+            if (carriageReturn || leadingZero || (negative && magnitude == 0)) {
+                canonical = false;
+            }
+            if (digits == 0) {
+                if (signSeen) {
+                    return false;
+                }
+                canonical = false; // Blank line
+                resetLine();
+                return true;
+            }
+            if (!negative && magnitude == MAX_MAGNITUDE) {
+                return false;
+            }
+            int record = (int) (negative ? -magnitude : magnitude);
+            resetLine();
+            return addRecord(record);
+        }
+
+        private boolean addRecord(int record) {
+            if (!hasPrevious) {
+                hasPrevious = true;
+                ascendingRuns = 1;
+                descendingRuns = 1;
+                runOffsets[0] = lineStart;
+            } else if (record < previous) {
+                if (ascendingRuns < maxNaturalRuns) {
+                    runOffsets[ascendingRuns] = lineStart;
+                }
+                ascendingRuns++;
+            } else if (record > previous) {
+                descendingRuns++;
+            }
+            previous = record;
+            return ascendingRuns <= maxNaturalRuns || descendingRuns <= 1;
+        }
+
+        private void resetLine() {
+            magnitude = 0;
+            digits = 0;
+            negative = false;
+            signSeen = false;
+            carriageReturn = false;
+            leadingZero = false;
+        }
+    }
+}
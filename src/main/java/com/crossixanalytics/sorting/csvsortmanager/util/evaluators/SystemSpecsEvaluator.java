@@ -1,59 +1,200 @@
 package com.crossixanalytics.sorting.csvsortmanager.util.evaluators;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.SortAlgorithm;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.management.UnixOperatingSystemMXBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
 
 /**
  * A Utility class for evaluating file processing conditions according to the computer's system specifications.
  */
 public class SystemSpecsEvaluator {
     private static final Logger logger = LoggerFactory.getLogger(SystemSpecsEvaluator.class);
-    private static final int NUM_OF_BYTES_PER_INT_RECORD = 4;
+    private static final int NUM_OF_BYTES_PER_INT_RECORD = 4; // Records are held as primitive ints in IntRecordBuffer
     private static final double SAFETY_THRESHOLD = 0.7;
-    private static final double PARTITION_PERCENTAGE = 0.05; // 5%
+    private static final int MAX_RECORD_LINE_LENGTH = 12; // "-2147483648\n"
+    private static final int FILE_COPIES_PER_SORT = 3; // Generated input, sorted runs and final output
+    private static final double DEFAULT_MEMORY_BUDGET_FRACTION = 0.5; // Of the maximum heap size
+    private static final double PARTITION_CAPACITY_HEADROOM = 1.1; // Byte-range partitions hold slightly varying record counts
+    private static final long MAX_PARTITION_CAPACITY = Integer.MAX_VALUE - 8; // Largest int[] the JVM can allocate
+    private static final int MAX_MERGE_FAN_IN = 1024;
+    private static final long DEFAULT_AVAILABLE_FILE_HANDLES = 512; // When the OS does not report its file descriptor limit
+    // Key offset, key and row lengths, sort index and scratch, plus the key prefix and its sorted copy and scratch
+    private static final int ROW_RECORD_OVERHEAD = 5 * NUM_OF_BYTES_PER_INT_RECORD + 3 * Long.BYTES;
 
     /**
-     * Calculates the maximum number of records that can be processed based on system memory and disk space.
+     * Calculates the maximum number of records that can be generated and sorted based on the free disk space.
+     * Memory does not limit the number of records, since the records are sorted externally in partitions sized
+     * by the memory budget; the disk has to hold the generated input, the sorted runs and the output.
      *
      * @param directoryPath The directory path to evaluate disk space.
      * @return The maximum number of records that can be handled.
      */
     public static long calculateMaxRecords(String directoryPath) {
-        long usableMemory = getFreeUsableMemory();
         long freeDiskSpace = getFreeDiskSpace(directoryPath);
         if (freeDiskSpace == -1) {
             logger.error("Evaluation Error - free disk space for the directory cannot be determined : {}", directoryPath);
             return 0;
         }
 
-        long maxRecordsBasedOnMemory = usableMemory / NUM_OF_BYTES_PER_INT_RECORD;
-        long maxRecordsBasedOnDisk = freeDiskSpace / NUM_OF_BYTES_PER_INT_RECORD;
+        long bytesPerRecordOnDisk = (long) MAX_RECORD_LINE_LENGTH * FILE_COPIES_PER_SORT;
+        return (long) (freeDiskSpace / bytesPerRecordOnDisk * SAFETY_THRESHOLD);
+    }
+
+    /**
+     * Resolves the memory budget of the sort job. A budget of 0 selects the default - a fraction of the maximum heap
+     * size - and a budget beyond the safe share of the heap is capped to it.
+     *
+     * @param requestedMemoryBudget The requested budget in bytes, or 0 for the default.
+     * @return The memory budget in bytes.
+     */
+    public static long resolveMemoryBudget(long requestedMemoryBudget) {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        if (requestedMemoryBudget <= 0) {
+            return (long) (maxMemory * DEFAULT_MEMORY_BUDGET_FRACTION);
+        }
+        long safeMemoryBudget = (long) (maxMemory * SAFETY_THRESHOLD);
+        if (requestedMemoryBudget > safeMemoryBudget) {
+            logger.warn("Memory budget of {} bytes exceeds the safe share of the heap, capping it to {} bytes", requestedMemoryBudget, safeMemoryBudget);
+            return safeMemoryBudget;
+        }
+        return requestedMemoryBudget;
+    }
 
-        return (long) (Math.min(maxRecordsBasedOnMemory, maxRecordsBasedOnDisk) * SAFETY_THRESHOLD);
+    /**
+     * Resolves the off-heap budget of the partitions, which is capped to the safe share of the JVM's direct memory limit
+     * (-XX:MaxDirectMemorySize, defaulting to the maximum heap size) since direct buffers beyond it cannot be allocated.
+     *
+     * @param requestedOffHeapBudget The requested budget in bytes.
+     * @return The off-heap budget in bytes.
+     */
+    public static long resolveOffHeapBudget(long requestedOffHeapBudget) {
+        long safeOffHeapBudget = (long) (getMaxDirectMemory() * SAFETY_THRESHOLD);
+        if (requestedOffHeapBudget > safeOffHeapBudget) {
+            logger.warn("Off-heap budget of {} bytes exceeds the safe share of the JVM's direct memory limit, capping it to {} bytes; "
+                    + "raise the limit with -XX:MaxDirectMemorySize", requestedOffHeapBudget, safeOffHeapBudget);
+            return safeOffHeapBudget;
+        }
+        return requestedOffHeapBudget;
+    }
+
+    /**
+     * Calculates the in-memory footprint of a single record while its partition is sorted:
+     * the primitive int itself, plus the radix sort's scratch copy.
+     *
+     * @param sortAlgorithm The sort algorithm of the partitions.
+     * @return The number of bytes per record.
+     */
+    public static int calculateBytesPerRecord(SortAlgorithm sortAlgorithm) {
+        return sortAlgorithm == SortAlgorithm.RADIX ? 2 * NUM_OF_BYTES_PER_INT_RECORD : NUM_OF_BYTES_PER_INT_RECORD;
+    }
+
+    /**
+     * Calculates the partition size from the memory budget, so that the partitions held by all the concurrent
+     * sort workers fit in the budget together. Larger budgets produce fewer, larger runs.
+     *
+     * @param totalNumberOfRecords The total number of records to be processed.
+     * @param memoryBudget         The memory budget of all the sort workers in bytes.
+     * @param concurrentWorkers    The number of partitions held in memory at the same time.
+     * @param bytesPerRecord       The in-memory footprint of a single record.
+     * @return The calculated partition size.
+     */
+    public static long calculatePartitionSize(long totalNumberOfRecords, long memoryBudget, int concurrentWorkers, int bytesPerRecord) {
+        return calculatePartitionSize(totalNumberOfRecords, memoryBudget, concurrentWorkers, bytesPerRecord, MAX_PARTITION_CAPACITY);
     }
 
     /**
-     * Calculates the optimal partition size for processing records.
+     * Calculates the partition size from the memory budget, so that the partitions held by all the concurrent
+     * sort workers fit in the budget together, for partition buffers holding at most the given number of records.
      *
      * @param totalNumberOfRecords The total number of records to be processed.
+     * @param memoryBudget         The memory budget of all the sort workers in bytes.
+     * @param concurrentWorkers    The number of partitions held in memory at the same time.
+     * @param bytesPerRecord       The in-memory footprint of a single record.
+     * @param maxPartitionCapacity The largest number of records a partition buffer can hold.
      * @return The calculated partition size.
      */
-    public static long calculatePartitionSize(int totalNumberOfRecords) {
-        // Calculate partition size - fraction of total records
-        long partitionSize = (long) (totalNumberOfRecords * PARTITION_PERCENTAGE);
+    public static long calculatePartitionSize(long totalNumberOfRecords, long memoryBudget, int concurrentWorkers, int bytesPerRecord, long maxPartitionCapacity) {
+        long memoryPerWorker = memoryBudget / Math.max(concurrentWorkers, 1);
+        long partitionSize = (long) (memoryPerWorker / bytesPerRecord / PARTITION_CAPACITY_HEADROOM);
+        partitionSize = Math.min(partitionSize, (long) (Math.min(maxPartitionCapacity, MAX_PARTITION_CAPACITY) / PARTITION_CAPACITY_HEADROOM));
+        partitionSize = Math.min(partitionSize, totalNumberOfRecords);
         return Math.max(partitionSize, 1); // Minimum of one record per partition
     }
 
-    private static long getFreeUsableMemory() {
-        Runtime runtime = Runtime.getRuntime();
-        long maxMemory = runtime.maxMemory();
-        long allocatedMemory = runtime.totalMemory();
-        long freeMemory = runtime.freeMemory();
+    /**
+     * Calculates the byte size of the input partitions of multi-column rows from the memory budget, so that the rows,
+     * their normalized keys and the record arrays held by all the concurrent sort workers fit in the budget together.
+     * The keys and rows of a partition share one byte array, which caps a partition at about 2 GB of keys and rows.
+     *
+     * @param memoryBudget      The memory budget of all the sort workers in bytes.
+     * @param concurrentWorkers The number of partitions held in memory at the same time.
+     * @param averageRowLength  The average length in bytes of a row, including its line break.
+     * @param averageKeyLength  The average length in bytes of a row's normalized key.
+     * @return The size in bytes of a partition of the input.
+     */
+    public static long calculateRowPartitionBytes(long memoryBudget, int concurrentWorkers, double averageRowLength, double averageKeyLength) {
+        long memoryPerWorker = memoryBudget / Math.max(concurrentWorkers, 1);
+        double rowLength = Math.max(averageRowLength, 1);
+        double bytesPerRow = rowLength + averageKeyLength + ROW_RECORD_OVERHEAD;
+        double partitionRows = Math.min(memoryPerWorker / bytesPerRow, MAX_PARTITION_CAPACITY / (rowLength + averageKeyLength));
+        return Math.max((long) (partitionRows / PARTITION_CAPACITY_HEADROOM * rowLength), 1);
+    }
+
+    /**
+     * Calculates the initial capacity of a partition buffer, leaving headroom for byte-range partitions
+     * which hold slightly more records than the average, so the buffer does not need to grow.
+     *
+     * @param partitionSize The partition size.
+     * @return The initial capacity of the partition buffer.
+     */
+    public static int calculatePartitionCapacity(long partitionSize) {
+        return (int) Math.min((long) (partitionSize * PARTITION_CAPACITY_HEADROOM) + 1, MAX_PARTITION_CAPACITY);
+    }
 
-        long actuallyFreeMemory = freeMemory + (maxMemory - allocatedMemory);
-        return (long) (actuallyFreeMemory * SAFETY_THRESHOLD);
+    /**
+     * Calculates the merge fan-in - the number of runs that can be merged at once - as limited by the memory budget
+     * available for the runs' read buffers and by the number of file handles the process may still open.
+     *
+     * @param memoryBudget   The memory budget of the merge in bytes.
+     * @param readBufferSize The size in bytes of the read buffer of each merged run.
+     * @return The merge fan-in, at least 2.
+     */
+    public static int calculateMergeFanIn(long memoryBudget, int readBufferSize) {
+        long fanInBasedOnMemory = memoryBudget / (2L * Math.max(readBufferSize, 1)); // Raw chunk plus parsed block per run
+        long fanInBasedOnFileHandles = getAvailableFileHandles() / 2; // Leave room for the rest of the application
+        long fanIn = Math.min(Math.min(fanInBasedOnMemory, fanInBasedOnFileHandles), MAX_MERGE_FAN_IN);
+        return (int) Math.max(fanIn, 2);
+    }
+
+    /**
+     * The JVM's limit of direct buffer memory: -XX:MaxDirectMemorySize if set, the maximum heap size otherwise.
+     */
+    private static long getMaxDirectMemory() {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            long maxDirectMemorySize = hotSpot != null ? Long.parseLong(hotSpot.getVMOption("MaxDirectMemorySize").getValue()) : 0;
+            if (maxDirectMemorySize > 0) {
+                return maxDirectMemorySize;
+            }
+        } catch (RuntimeException e) {
+            logger.debug("The direct memory limit cannot be read, assuming the maximum heap size", e);
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    private static long getAvailableFileHandles() {
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystem instanceof UnixOperatingSystemMXBean) {
+            UnixOperatingSystemMXBean unixOperatingSystem = (UnixOperatingSystemMXBean) operatingSystem;
+            return unixOperatingSystem.getMaxFileDescriptorCount() - unixOperatingSystem.getOpenFileDescriptorCount();
+        }
+        return DEFAULT_AVAILABLE_FILE_HANDLES;
     }
 
     private static long getFreeDiskSpace(String directoryPath) {
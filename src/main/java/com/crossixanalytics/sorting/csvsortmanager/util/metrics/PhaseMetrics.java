@@ -0,0 +1,83 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.metrics;
+
+/**
+ * The accumulated counters of one named phase of a sort job. A phase measured once (like a merge pass) holds that single
+ * measurement; a phase measured per task (like the sort of each partition) sums the measurements of all its tasks,
+ * so its wall time is the busy time summed over the threads running the tasks.
+ * CPU time and allocation are -1 when the JVM cannot measure them.
+ */
+public class PhaseMetrics {
+    private final String name;
+    private long count;
+    private long wallNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
+    private long records;
+    private long bytesRead;
+    private long bytesWritten;
+
+    public PhaseMetrics(String name) {
+        this.name = name;
+    }
+
+    synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes, long records, long bytesRead, long bytesWritten) {
+        this.count++;
+        this.wallNanos += wallNanos;
+        this.cpuNanos = cpuNanos < 0 || this.cpuNanos < 0 ? -1 : this.cpuNanos + cpuNanos;
+        this.allocatedBytes = allocatedBytes < 0 || this.allocatedBytes < 0 ? -1 : this.allocatedBytes + allocatedBytes;
+        this.records += records;
+        this.bytesRead += bytesRead;
+        this.bytesWritten += bytesWritten;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getWallNanos() {
+        return wallNanos;
+    }
+
+    public synchronized long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Formats the phase as a JSON object, with the times in milliseconds.
+     *
+     * @return The JSON object of the phase.
+     */
+    public synchronized String toJson() {
+        return "{\"name\":\"" + name + "\""
+                + ",\"count\":" + count
+                + ",\"wallMillis\":" + wallNanos / 1_000_000
+                + ",\"cpuMillis\":" + (cpuNanos < 0 ? -1 : cpuNanos / 1_000_000)
+                + ",\"allocatedBytes\":" + allocatedBytes
+                + ",\"records\":" + records
+                + ",\"bytesRead\":" + bytesRead
+                + ",\"bytesWritten\":" + bytesWritten
+                + ",\"recordsPerSecond\":" + (wallNanos > 0 ? records * 1_000_000_000L / wallNanos : 0)
+                + ",\"mbPerSecond\":" + (wallNanos > 0 ? (bytesRead + bytesWritten) * 1000L / wallNanos : 0)
+                + "}";
+    }
+}
@@ -0,0 +1,54 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically logs the progress of the current phase of a sort job, with its throughput since the phase started
+ * and the estimated time left. Runs on a daemon thread until closed.
+ */
+public class ProgressReporter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ProgressReporter.class);
+    private final SortMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts reporting the progress.
+     *
+     * @param metrics         The metrics of the job publishing its progress.
+     * @param intervalSeconds The interval between two progress lines.
+     */
+    public ProgressReporter(SortMetrics metrics, long intervalSeconds) {
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sort-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void report() {
+        SortMetrics.Progress progress = metrics.getProgress();
+        if (progress == null) {
+            return;
+        }
+        long done = progress.getDone();
+        long expected = Math.max(progress.getExpected(), done);
+        double elapsedSeconds = (System.nanoTime() - progress.getStartNanos()) / 1e9;
+        double rate = elapsedSeconds > 0 ? done / elapsedSeconds : 0;
+        String eta = rate > 0 ? Math.round((expected - done) / rate) + " s" : "unknown";
+        logger.info("Progress: {} {}% ({} of {} {}), {} {}/s, ETA {}", progress.getPhase(),
+                expected > 0 ? 100 * done / expected : 100, done, expected, progress.getUnit(), Math.round(rate), progress.getUnit(), eta);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
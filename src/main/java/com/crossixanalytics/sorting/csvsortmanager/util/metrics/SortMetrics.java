@@ -0,0 +1,288 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the per-phase metrics of a sort job: wall time, CPU time, allocated bytes, records and bytes read and written.
+ * Phases are measured in two ways:
+ * <ul>
+ *     <li>{@link #startPhase} measures a sequential phase of the job, with the CPU time and allocation of the whole process,
+ *     so the work of every thread helping the phase is included;</li>
+ *     <li>{@link #startTask} measures one task of a phase run concurrently on several threads (reading, sorting or writing
+ *     a partition), with the CPU time and allocation of the running thread, summed over the tasks.</li>
+ * </ul>
+ * The process allocation is derived from the heap usage plus the bytes reclaimed by every garbage collection so far,
+ * as reported by the collectors' notifications, which makes it an estimate. The job also publishes the progress
+ * of its current phase, which a {@link ProgressReporter} turns into periodic throughput and ETA lines.
+ */
+public class SortMetrics {
+    public static final String PARTITION_READ = "partitionRead";
+    public static final String PARTITION_SORT = "partitionSort";
+    public static final String RUN_WRITE = "runWrite";
+    public static final String MERGE_PASS = "mergePass"; // Followed by the pass number
+    private static final Logger logger = LoggerFactory.getLogger(SortMetrics.class);
+    private static final AtomicLong reclaimedBytes = new AtomicLong();
+    private static final boolean processAllocationTracked = trackGarbageCollections();
+
+    private final Map<String, PhaseMetrics> phases = new LinkedHashMap<>();
+    private volatile Progress progress;
+
+    /**
+     * Starts measuring a sequential phase of the job with process-wide CPU time and allocation.
+     *
+     * @param name The name of the phase.
+     * @return The running measurement, to stop at the end of the phase.
+     */
+    public Measurement startPhase(String name) {
+        return new Measurement(getPhase(name), false);
+    }
+
+    /**
+     * Starts measuring a task with the CPU time and allocation of the current thread; it must be stopped on the same thread.
+     *
+     * @param name The name of the phase the task belongs to.
+     * @return The running measurement, to stop at the end of the task.
+     */
+    public Measurement startTask(String name) {
+        return new Measurement(getPhase(name), true);
+    }
+
+    /**
+     * Publishes the progress of the current phase.
+     *
+     * @param phase    The name of the phase.
+     * @param unit     The unit of the progress, e.g. "records" or "bytes".
+     * @param expected The expected total, possibly an estimate.
+     * @param done     Supplies the amount done so far; called from the progress reporter's thread.
+     */
+    public void trackProgress(String phase, String unit, long expected, LongSupplier done) {
+        progress = new Progress(phase, unit, expected, done);
+    }
+
+    public Progress getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return The phases measured so far, in the order they started.
+     */
+    public synchronized List<PhaseMetrics> getPhases() {
+        return new ArrayList<>(phases.values());
+    }
+
+    /**
+     * Finds a phase by name.
+     *
+     * @param name The name of the phase.
+     * @return The phase, or null if it was never measured.
+     */
+    public synchronized PhaseMetrics findPhase(String name) {
+        return phases.get(name);
+    }
+
+    /**
+     * Formats the summary of the job as a single line JSON object.
+     *
+     * @param attributes Attributes of the job (input, output, options) added to the summary; numbers and booleans are
+     *                   written as JSON values, anything else as strings.
+     * @return The JSON summary.
+     */
+    public String toJson(Map<String, Object> attributes) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            json.append('"').append(attribute.getKey()).append("\":");
+            Object value = attribute.getValue();
+            if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                json.append('"').append(escape(String.valueOf(value))).append('"');
+            }
+            json.append(',');
+        }
+        json.append("\"phases\":[");
+        List<PhaseMetrics> phaseList = getPhases();
+        for (int i = 0; i < phaseList.size(); i++) {
+            json.append(i > 0 ? "," : "").append(phaseList.get(i).toJson());
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Logs the JSON summary of the job, and writes it to the metrics file if one was requested; failing to write the
+     * file is only logged, since the job itself is done.
+     *
+     * @param attributes      Attributes of the job added to the summary, as for {@link #toJson}.
+     * @param metricsFilePath The path of the metrics file, or null to only log the summary.
+     */
+    public void writeSummary(Map<String, Object> attributes, String metricsFilePath) {
+        String summary = toJson(attributes);
+        logger.info("Sort metrics: {}", summary);
+        if (metricsFilePath != null) {
+            try {
+                Files.write(Paths.get(metricsFilePath), (summary + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                logger.error("Could not write the metrics to {}: {}", metricsFilePath, e.getMessage());
+            }
+        }
+    }
+
+    private synchronized PhaseMetrics getPhase(String name) {
+        return phases.computeIfAbsent(name, PhaseMetrics::new);
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean trackGarbageCollections() {
+        try {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                        return;
+                    }
+                    GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    long reclaimed = 0;
+                    for (Map.Entry<String, MemoryUsage> before : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+                        reclaimed += before.getValue().getUsed() - info.getGcInfo().getMemoryUsageAfterGc().get(before.getKey()).getUsed();
+                    }
+                    reclaimedBytes.addAndGet(reclaimed);
+                }, null, null);
+            }
+            return true;
+        } catch (RuntimeException | LinkageError e) {
+            logger.debug("Garbage collection notifications are not available, process allocation is not measured", e);
+            return false;
+        }
+    }
+
+    private static long processAllocatedBytes() {
+        if (!processAllocationTracked) {
+            return -1;
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() + reclaimedBytes.get();
+    }
+
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return os instanceof com.sun.management.OperatingSystemMXBean
+                ? ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime()
+                : -1;
+    }
+
+    private static long threadCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads instanceof com.sun.management.ThreadMXBean
+                ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : -1;
+    }
+
+    /**
+     * A running measurement of a phase or a task.
+     */
+    public static final class Measurement {
+        private final PhaseMetrics phase;
+        private final boolean threadScoped;
+        private final long startNanos;
+        private final long startCpuNanos;
+        private final long startAllocatedBytes;
+
+        private Measurement(PhaseMetrics phase, boolean threadScoped) {
+            this.phase = phase;
+            this.threadScoped = threadScoped;
+            this.startCpuNanos = threadScoped ? threadCpuNanos() : processCpuNanos();
+            this.startAllocatedBytes = threadScoped ? threadAllocatedBytes() : processAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Stops the measurement and adds it with the phase's counters to the phase.
+         *
+         * @param records      The number of records processed.
+         * @param bytesRead    The number of bytes read.
+         * @param bytesWritten The number of bytes written.
+         */
+        public void stop(long records, long bytesRead, long bytesWritten) {
+            long wallNanos = System.nanoTime() - startNanos;
+            long cpuNanos = threadScoped ? threadCpuNanos() : processCpuNanos();
+            long allocatedBytes = threadScoped ? threadAllocatedBytes() : processAllocatedBytes();
+            phase.add(wallNanos,
+                    cpuNanos < 0 || startCpuNanos < 0 ? -1 : cpuNanos - startCpuNanos,
+                    allocatedBytes < 0 || startAllocatedBytes < 0 ? -1 : Math.max(allocatedBytes - startAllocatedBytes, 0),
+                    records, bytesRead, bytesWritten);
+        }
+    }
+
+    /**
+     * The progress of the current phase of the job.
+     */
+    public static final class Progress {
+        private final String phase;
+        private final String unit;
+        private final long expected;
+        private final LongSupplier done;
+        private final long startNanos = System.nanoTime();
+
+        Progress(String phase, String unit, long expected, LongSupplier done) {
+            this.phase = phase;
+            this.unit = unit;
+            this.expected = expected;
+            this.done = done;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public long getExpected() {
+            return expected;
+        }
+
+        public long getDone() {
+            return done.getAsLong();
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+    }
+}
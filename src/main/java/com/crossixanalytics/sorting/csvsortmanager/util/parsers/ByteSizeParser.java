@@ -0,0 +1,41 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.parsers;
+
+/**
+ * Parses human-readable byte sizes such as "8192", "512k", "4m" or "2g" (binary units, case-insensitive).
+ */
+public class ByteSizeParser {
+
+    /**
+     * Parses a byte size.
+     *
+     * @param size The size to parse, a non-negative whole number with an optional k/m/g suffix.
+     * @return The size in bytes.
+     * @throws IllegalArgumentException If the size is not a valid byte size.
+     */
+    public static long parseByteSize(String size) {
+        String value = size.trim().toLowerCase();
+        if (value.endsWith("b")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        long multiplier = 1;
+        if (value.endsWith("k")) {
+            multiplier = 1L << 10;
+        } else if (value.endsWith("m")) {
+            multiplier = 1L << 20;
+        } else if (value.endsWith("g")) {
+            multiplier = 1L << 30;
+        }
+        if (multiplier != 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            long bytes = Long.parseLong(value.trim());
+            if (bytes < 0 || bytes > Long.MAX_VALUE / multiplier) {
+                throw new IllegalArgumentException("Byte size out of range: " + size);
+            }
+            return bytes * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid byte size: " + size, e);
+        }
+    }
+}
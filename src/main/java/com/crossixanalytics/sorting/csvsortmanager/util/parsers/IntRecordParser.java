@@ -0,0 +1,120 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.parsers;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses one integer per line directly from ASCII bytes into an {@link IntRecordBuffer}, without creating Strings.
+ * Accepts the same records as {@code Integer.parseInt(line.trim())}: surrounding spaces/tabs, an optional sign,
+ * and both "\n" and "\r\n" line endings. Blank lines are ignored and malformed lines are skipped with a warning.
+ * The parser keeps its state between calls, so a record may span two consecutive byte chunks;
+ * call {@link #finish(IntRecordBuffer)} after the last chunk to flush a final line without a line break.
+ */
+public class IntRecordParser {
+    private static final Logger logger = LoggerFactory.getLogger(IntRecordParser.class);
+    private static final long MAX_MAGNITUDE = -(long) Integer.MIN_VALUE;
+
+    private long magnitude;
+    private int digits;
+    private boolean negative;
+    private boolean signSeen;
+    private boolean trailingWhitespace;
+    private boolean malformed;
+    private long skippedRecords;
+
+    /**
+     * Parses all remaining bytes of the given buffer, appending every completed record to the records buffer.
+     * The position of the byte buffer is moved to its limit.
+     *
+     * @param bytes   The bytes to parse.
+     * @param records The buffer to append the parsed records to.
+     */
+    public void parse(ByteBuffer bytes, IntRecordBuffer records) {
+        parse(bytes, records, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses the remaining bytes of the given buffer until the records buffer holds the given number of records.
+     * The position of the byte buffer is left right after the last byte consumed, i.e. at the start of the next line
+     * when the record limit was reached, or at its limit otherwise.
+     *
+     * @param bytes      The bytes to parse.
+     * @param records    The buffer to append the parsed records to.
+     * @param maxRecords The number of records at which parsing stops.
+     */
+    public void parse(ByteBuffer bytes, IntRecordBuffer records, int maxRecords) {
+        int limit = bytes.limit();
+        int position = bytes.position();
+        while (position < limit && records.size() < maxRecords) {
+            accept(bytes.get(position++), records);
+        }
+        bytes.position(position);
+    }
+
+    /**
+     * Parses a range of a byte array, appending every completed record to the records buffer.
+     *
+     * @param bytes   The bytes to parse.
+     * @param from    The index of the first byte to parse.
+     * @param to      The index after the last byte to parse.
+     * @param records The buffer to append the parsed records to.
+     */
+    public void parse(byte[] bytes, int from, int to, IntRecordBuffer records) {
+        for (int i = from; i < to; i++) {
+            accept(bytes[i], records);
+        }
+    }
+
+    /**
+     * Flushes the record of a last line which did not end with a line break.
+     *
+     * @param records The buffer to append the pending record to.
+     */
+    public void finish(IntRecordBuffer records) {
+        completeRecord(records);
+    }
+
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    private void accept(byte b, IntRecordBuffer records) {
+        if (b >= '0' && b <= '9') {
+            if (trailingWhitespace || magnitude > MAX_MAGNITUDE) {
+                malformed = true;
+            }
+            magnitude = magnitude * 10 + (b - '0');
+            digits++;
+        } else if (b == '\n') {
+            completeRecord(records);
+        } else if (b == ' ' || b == '\t' || b == '\r') {
+            trailingWhitespace = digits > 0 || signSeen;
+        } else if ((b == '-' || b == '+') && !signSeen && digits == 0 && !trailingWhitespace) {
+            signSeen = true;
+            negative = b == '-';
+        } else {
+            malformed = true;
+        }
+    }
+
+    private void completeRecord(IntRecordBuffer records) {
+        if (digits > 0 || signSeen || malformed) {
+            long value = negative ? -magnitude : magnitude;
+            if (malformed || digits == 0 || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                skippedRecords++;
+                logger.warn("NumberFormatException Parsing exception occurred: skipped malformed record after {} valid records", records.size());
+            } else {
+                records.add((int) value);
+            }
+        }
+        magnitude = 0;
+        digits = 0;
+        negative = false;
+        signSeen = false;
+        trailingWhitespace = false;
+        malformed = false;
+    }
+}
@@ -0,0 +1,340 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.parsers;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.KeyType;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeyColumn;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Extracts the sort key of a CSV row into a normalized byte key: a byte string whose unsigned lexicographic order
+ * is the order of the key spec, so rows are compared with {@link #compare} without parsing their fields again.
+ * Each key column is encoded as a marker byte (null or value) followed by:
+ * <ul>
+ *     <li>long: the value with its sign bit flipped, as 8 big-endian bytes;</li>
+ *     <li>double: the IEEE-754 bits with the sign bit flipped for positive values and all bits flipped for negative ones;</li>
+ *     <li>date: the epoch second as a long, followed by the nanoseconds as 4 big-endian bytes;</li>
+ *     <li>string: the UTF-8 bytes with 0x00 escaped as 0x00 0xFF, terminated by 0x00 0x00, which compares by code point.</li>
+ * </ul>
+ * Descending columns are stored with every bit inverted. Empty and missing fields are nulls, sorting first in ascending
+ * and last in descending columns; values which do not parse as their type are counted and sorted as nulls.
+ * Fields may be quoted with '"' and escape a quote as '""', but cannot span lines.
+ * An encoder keeps reusable scratch buffers, so an instance must not be shared between threads.
+ */
+public class SortKeyEncoder {
+    private static final byte NULL_MARKER = 0x00;
+    private static final byte VALUE_MARKER = 0x01;
+    private static final byte QUOTE = '"';
+    private static final int DATE_LENGTH = 10; // yyyy-MM-dd
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final SortKeyColumn[] columns;
+    private final byte delimiter;
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+    private final boolean[] fieldQuoted;
+    private byte[] key = new byte[64];
+    private int keyLength;
+    private byte[] unquoted = new byte[64];
+    private long parsedLong;
+    private long invalidValues;
+
+    /**
+     * @param keySpec   The key columns to encode.
+     * @param delimiter The field delimiter of the rows.
+     */
+    public SortKeyEncoder(SortKeySpec keySpec, byte delimiter) {
+        this.columns = keySpec.getColumns().toArray(new SortKeyColumn[0]);
+        this.delimiter = delimiter;
+        int fieldCount = keySpec.getMaxColumnIndex() + 1;
+        this.fieldStarts = new int[fieldCount];
+        this.fieldEnds = new int[fieldCount];
+        this.fieldQuoted = new boolean[fieldCount];
+    }
+
+    /**
+     * Encodes the normalized key of a row into the encoder's key buffer.
+     *
+     * @param row    The bytes holding the row.
+     * @param offset The offset of the row's first byte.
+     * @param length The length of the row without its line break; a trailing '\r' is ignored.
+     * @return The length of the key, whose bytes are the first bytes of {@link #getKey()}.
+     */
+    public int encode(byte[] row, int offset, int length) {
+        int end = offset + length;
+        if (end > offset && row[end - 1] == '\r') {
+            end--;
+        }
+        splitFields(row, offset, end);
+        keyLength = 0;
+        for (SortKeyColumn column : columns) {
+            int columnStart = keyLength;
+            encodeColumn(column, row);
+            if (column.isDescending()) {
+                for (int i = columnStart; i < keyLength; i++) {
+                    key[i] = (byte) ~key[i];
+                }
+            }
+        }
+        return keyLength;
+    }
+
+    /**
+     * Direct access to the key buffer, holding the last encoded key in its first bytes until the next call to {@link #encode}.
+     *
+     * @return The key buffer.
+     */
+    public byte[] getKey() {
+        return key;
+    }
+
+    /**
+     * @return The number of key values which did not parse as their type and were sorted as nulls.
+     */
+    public long getInvalidValues() {
+        return invalidValues;
+    }
+
+    /**
+     * Compares two normalized keys as unsigned byte strings.
+     *
+     * @return A negative number, zero or a positive number as the first key sorts before, with or after the second.
+     */
+    public static int compare(byte[] first, int firstOffset, int firstLength, byte[] second, int secondOffset, int secondLength) {
+        int length = Math.min(firstLength, secondLength);
+        for (int i = 0; i < length; i++) {
+            int difference = (first[firstOffset + i] & 0xFF) - (second[secondOffset + i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return firstLength - secondLength;
+    }
+
+    /**
+     * Packs the first 8 bytes of a normalized key, zero-padded, into a long whose signed order is the unsigned order of
+     * those bytes. Two keys with different prefixes compare like their prefixes, so most comparisons are a single
+     * primitive compare; only keys with equal prefixes need {@link #compare}.
+     *
+     * @param key    The bytes holding the key.
+     * @param offset The offset of the key's first byte.
+     * @param length The length of the key.
+     * @return The key prefix.
+     */
+    public static long prefix(byte[] key, int offset, int length) {
+        int prefixLength = Math.min(length, Long.BYTES);
+        long prefix = 0;
+        for (int i = 0; i < prefixLength; i++) {
+            prefix = (prefix << 8) | (key[offset + i] & 0xFF);
+        }
+        if (prefixLength < Long.BYTES) {
+            prefix <<= 8 * (Long.BYTES - prefixLength);
+        }
+        return prefix ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Finds the bounds of the fields up to the highest key column; fields missing from a short row are empty.
+     */
+    private void splitFields(byte[] row, int offset, int end) {
+        int position = offset;
+        for (int field = 0; field < fieldStarts.length; field++) {
+            if (position > end) {
+                fieldStarts[field] = end;
+                fieldEnds[field] = end;
+                fieldQuoted[field] = false;
+                continue;
+            }
+            int scan = position;
+            if (scan < end && row[scan] == QUOTE) {
+                scan++;
+                while (scan < end && (row[scan] != QUOTE || (scan + 1 < end && row[scan + 1] == QUOTE))) {
+                    scan += row[scan] == QUOTE ? 2 : 1;
+                }
+                fieldStarts[field] = position + 1;
+                fieldEnds[field] = scan;
+                fieldQuoted[field] = true;
+                while (scan < end && row[scan] != delimiter) {
+                    scan++; // Past the closing quote
+                }
+            } else {
+                while (scan < end && row[scan] != delimiter) {
+                    scan++;
+                }
+                fieldStarts[field] = position;
+                fieldEnds[field] = scan;
+                fieldQuoted[field] = false;
+            }
+            position = scan + 1;
+        }
+    }
+
+    private void encodeColumn(SortKeyColumn column, byte[] row) {
+        int field = column.getColumnIndex();
+        byte[] bytes = row;
+        int from = fieldStarts[field];
+        int to = fieldEnds[field];
+        if (fieldQuoted[field]) {
+            to = unquote(row, from, to);
+            bytes = unquoted;
+            from = 0;
+        }
+        if (column.getKeyType() != KeyType.STRING) {
+            while (from < to && (bytes[from] == ' ' || bytes[from] == '\t')) {
+                from++;
+            }
+            while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t')) {
+                to--;
+            }
+        }
+        if (from == to) {
+            putNull();
+            return;
+        }
+        switch (column.getKeyType()) {
+            case LONG:
+                if (parseLong(bytes, from, to)) {
+                    putValue(parsedLong, -1);
+                } else {
+                    putInvalid();
+                }
+                break;
+            case DOUBLE:
+                encodeDouble(bytes, from, to);
+                break;
+            case DATE:
+                encodeDate(bytes, from, to);
+                break;
+            default:
+                encodeString(bytes, from, to);
+        }
+    }
+
+    private void encodeDouble(byte[] bytes, int from, int to) {
+        double value;
+        try {
+            value = Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            putInvalid();
+            return;
+        }
+        long bits = Double.doubleToLongBits(value == 0.0 ? 0.0 : value); // -0.0 equals 0.0
+        // Negative doubles order their bits backwards, so their magnitude bits are flipped to ascend as signed longs
+        putValue(bits ^ ((bits >> 63) & Long.MAX_VALUE), -1);
+    }
+
+    private void encodeDate(byte[] bytes, int from, int to) {
+        String text = new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+        try {
+            if (text.length() == DATE_LENGTH) {
+                putValue(LocalDate.parse(text).toEpochDay() * SECONDS_PER_DAY, 0);
+            } else {
+                if (text.length() > DATE_LENGTH && text.charAt(DATE_LENGTH) == ' ') {
+                    text = text.substring(0, DATE_LENGTH) + 'T' + text.substring(DATE_LENGTH + 1);
+                }
+                LocalDateTime dateTime = LocalDateTime.parse(text);
+                putValue(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano());
+            }
+        } catch (DateTimeParseException e) {
+            putInvalid();
+        }
+    }
+
+    private void encodeString(byte[] bytes, int from, int to) {
+        ensureKeyCapacity(keyLength + 2 * (to - from) + 3);
+        key[keyLength++] = VALUE_MARKER;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            key[keyLength++] = b;
+            if (b == 0) {
+                key[keyLength++] = (byte) 0xFF;
+            }
+        }
+        key[keyLength++] = 0;
+        key[keyLength++] = 0;
+    }
+
+    /**
+     * Appends a value marker, the long with its sign bit flipped and, unless negative, the nanoseconds of a date.
+     */
+    private void putValue(long value, int nanos) {
+        ensureKeyCapacity(keyLength + 13);
+        key[keyLength++] = VALUE_MARKER;
+        long normalized = value ^ Long.MIN_VALUE;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            key[keyLength++] = (byte) (normalized >>> shift);
+        }
+        if (nanos >= 0) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                key[keyLength++] = (byte) (nanos >>> shift);
+            }
+        }
+    }
+
+    private void putInvalid() {
+        invalidValues++;
+        putNull();
+    }
+
+    private void putNull() {
+        ensureKeyCapacity(keyLength + 1);
+        key[keyLength++] = NULL_MARKER;
+    }
+
+    /**
+     * Parses a decimal long with an optional sign, accumulating negatively like {@link Long#parseLong} to detect overflow.
+     */
+    private boolean parseLong(byte[] bytes, int from, int to) {
+        boolean negative = bytes[from] == '-';
+        int position = negative || bytes[from] == '+' ? from + 1 : from;
+        if (position == to) {
+            return false;
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplicationLimit = limit / 10;
+        long result = 0;
+        for (; position < to; position++) {
+            int digit = bytes[position] - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        parsedLong = negative ? result : -result;
+        return true;
+    }
+
+    /**
+     * Copies a quoted field's content into the scratch buffer, replacing every escaped '""' with a single quote.
+     *
+     * @return The length of the unquoted content.
+     */
+    private int unquote(byte[] row, int from, int to) {
+        if (unquoted.length < to - from) {
+            unquoted = new byte[Math.max(to - from, unquoted.length * 2)];
+        }
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            unquoted[length++] = row[i];
+            if (row[i] == QUOTE) {
+                i++; // Skip the second quote of the escape
+            }
+        }
+        return length;
+    }
+
+    private void ensureKeyCapacity(int minCapacity) {
+        if (minCapacity > key.length) {
+            key = Arrays.copyOf(key, Math.max(minCapacity, key.length * 2));
+        }
+    }
+}
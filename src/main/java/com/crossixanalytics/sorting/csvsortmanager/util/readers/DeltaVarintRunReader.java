@@ -0,0 +1,66 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.readers;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Sequential reader of a sorted run in the binary run format written by
+ * {@link com.crossixanalytics.sorting.csvsortmanager.util.writers.DeltaVarintRecordWriter}.
+ * The varint of a difference may be split between chunks, so the decoding state carries over from one chunk to the next.
+ */
+public class DeltaVarintRunReader extends IntRunReader {
+    private long previousRecord = Integer.MIN_VALUE;
+    private long delta;
+    private int shift;
+
+    /**
+     * Opens a reader over a whole binary run file.
+     *
+     * @param filePath   The path of the file to read.
+     * @param bufferSize The size in bytes of the read chunk.
+     * @throws IOException If the file cannot be opened.
+     */
+    public DeltaVarintRunReader(String filePath, int bufferSize) throws IOException {
+        super(filePath, bufferSize);
+    }
+
+    /**
+     * Opens a reader over a whole binary run file, prefetching the next chunk in the background if given an executor.
+     *
+     * @param filePath   The path of the file to read.
+     * @param bufferSize The size in bytes of each of the read chunks.
+     * @param prefetcher The executor running the background reads, or null to read synchronously.
+     * @throws IOException If the file cannot be opened.
+     */
+    public DeltaVarintRunReader(String filePath, int bufferSize, ExecutorService prefetcher) throws IOException {
+        super(filePath, 0, Long.MAX_VALUE, bufferSize, prefetcher);
+    }
+
+    @Override
+    protected void decode(byte[] bytes, int length, IntRecordBuffer block) throws IOException {
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            delta |= (long) (b & 0x7F) << shift;
+            if (b < 0) { // Continuation bit set
+                shift += 7;
+                if (shift > 28) {
+                    throw new IOException("Corrupt binary run: varint longer than 5 bytes");
+                }
+            } else {
+                previousRecord += delta;
+                block.add((int) previousRecord);
+                delta = 0;
+                shift = 0;
+            }
+        }
+    }
+
+    @Override
+    protected void finishDecoding(IntRecordBuffer block) throws IOException {
+        if (shift != 0) {
+            throw new IOException("Corrupt binary run: truncated varint at the end of the run");
+        }
+    }
+}
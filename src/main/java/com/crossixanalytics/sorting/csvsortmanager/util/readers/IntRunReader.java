@@ -0,0 +1,225 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.readers;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.IntRecordParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Sequential reader of integer records from a CSV file (or a byte range of it), one primitive record at a time.
+ * Records are parsed a chunk at a time into a reusable block, so iterating a run allocates nothing per record.
+ * With a prefetch executor the reader is double-buffered: the next chunk is read into a second buffer in the background
+ * while the current one is decoded and consumed, so a merge rarely waits for the disk.
+ */
+public class IntRunReader implements Closeable {
+    private final FileChannel channel;
+    private final long endOffset;
+    private ByteBuffer chunk;
+    private final IntRecordParser parser = new IntRecordParser();
+    private final IntRecordBuffer block;
+    private final ExecutorService prefetcher; // null for synchronous reads
+    private ByteBuffer prefetchChunk;
+    private Future<Integer> pendingRead;
+    private long position;
+    private int blockPosition;
+    private boolean endOfRange;
+
+    /**
+     * Opens a reader over a whole file.
+     *
+     * @param filePath   The path of the file to read.
+     * @param bufferSize The size in bytes of the read chunk.
+     * @throws IOException If the file cannot be opened.
+     */
+    public IntRunReader(String filePath, int bufferSize) throws IOException {
+        this(filePath, 0, Long.MAX_VALUE, bufferSize);
+    }
+
+    /**
+     * Opens a reader over a byte range of a file.
+     *
+     * @param filePath    The path of the file to read.
+     * @param startOffset The offset of the first byte of the range, expected to be the start of a line.
+     * @param endOffset   The offset right after the last byte of the range, capped to the file size.
+     * @param bufferSize  The size in bytes of the read chunk.
+     * @throws IOException If the file cannot be opened.
+     */
+    public IntRunReader(String filePath, long startOffset, long endOffset, int bufferSize) throws IOException {
+        this(filePath, startOffset, endOffset, bufferSize, null);
+    }
+
+    /**
+     * Opens a reader over a byte range of a file, prefetching the next chunk in the background if given an executor.
+     *
+     * @param filePath    The path of the file to read.
+     * @param startOffset The offset of the first byte of the range, expected to be the start of a line.
+     * @param endOffset   The offset right after the last byte of the range, capped to the file size.
+     * @param bufferSize  The size in bytes of each of the read chunks.
+     * @param prefetcher  The executor running the background reads, or null to read synchronously with a single chunk.
+     * @throws IOException If the file cannot be opened.
+     */
+    public IntRunReader(String filePath, long startOffset, long endOffset, int bufferSize, ExecutorService prefetcher) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.endOffset = Math.min(endOffset, channel.size());
+        this.position = startOffset;
+        this.chunk = ByteBuffer.allocate(Math.max(bufferSize, 16));
+        this.block = new IntRecordBuffer(Math.max(chunk.capacity() / 4, 16));
+        this.prefetcher = prefetcher;
+        if (prefetcher != null) {
+            prefetchChunk = ByteBuffer.allocate(chunk.capacity());
+            prefetch();
+        }
+    }
+
+    /**
+     * Opens a reader over a whole run file in the given run format.
+     *
+     * @param filePath   The path of the file to read.
+     * @param bufferSize The size in bytes of the read chunk.
+     * @param runFormat  The format of the records in the file.
+     * @return A reader over the run.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static IntRunReader open(String filePath, int bufferSize, RunFormat runFormat) throws IOException {
+        return open(filePath, bufferSize, runFormat, null);
+    }
+
+    /**
+     * Opens a reader over a whole run file in the given run format, prefetching the next chunk in the background if given an executor.
+     *
+     * @param filePath   The path of the file to read.
+     * @param bufferSize The size in bytes of each of the read chunks.
+     * @param runFormat  The format of the records in the file.
+     * @param prefetcher The executor running the background reads, or null to read synchronously.
+     * @return A reader over the run.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static IntRunReader open(String filePath, int bufferSize, RunFormat runFormat, ExecutorService prefetcher) throws IOException {
+        return runFormat == RunFormat.BINARY
+                ? new DeltaVarintRunReader(filePath, bufferSize, prefetcher)
+                : new IntRunReader(filePath, 0, Long.MAX_VALUE, bufferSize, prefetcher);
+    }
+
+    /**
+     * Checks whether another record is available, reading and parsing the next chunk if the current block is used up.
+     *
+     * @return true if {@link #next()} will return a record.
+     * @throws IOException If an I/O error occurs.
+     */
+    public boolean hasNext() throws IOException {
+        while (blockPosition == block.size()) {
+            if (endOfRange) {
+                return false;
+            }
+            refill();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next record; only valid after {@link #hasNext()} returned true.
+     *
+     * @return The next record of the run.
+     */
+    public int next() {
+        return block.getRecords()[blockPosition++];
+    }
+
+    private void refill() throws IOException {
+        block.clear();
+        blockPosition = 0;
+        int bytesRead;
+        if (prefetcher != null) {
+            bytesRead = awaitPrefetch();
+            ByteBuffer filledChunk = prefetchChunk;
+            prefetchChunk = chunk;
+            chunk = filledChunk;
+            if (bytesRead > 0) {
+                position += bytesRead;
+                prefetch(); // Read the next chunk into the idle buffer while this one is decoded and consumed
+                decode(chunk.array(), bytesRead, block);
+                return;
+            }
+        } else {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), endOffset - position));
+            bytesRead = chunk.hasRemaining() ? channel.read(chunk, position) : -1;
+        }
+        if (bytesRead <= 0) {
+            finishDecoding(block);
+            endOfRange = true;
+            return;
+        }
+        position += bytesRead;
+        decode(chunk.array(), bytesRead, block);
+    }
+
+    /**
+     * Decodes a chunk of the run into records. A record may be split between consecutive chunks.
+     *
+     * @param bytes  The bytes of the chunk.
+     * @param length The number of valid bytes of the chunk.
+     * @param block  The buffer receiving the decoded records.
+     * @throws IOException If the chunk cannot be decoded.
+     */
+    protected void decode(byte[] bytes, int length, IntRecordBuffer block) throws IOException {
+        parser.parse(bytes, 0, length, block);
+    }
+
+    /**
+     * Decodes the record left over at the end of the range, if any.
+     *
+     * @param block The buffer receiving the decoded record.
+     * @throws IOException If the end of the range cuts a record short.
+     */
+    protected void finishDecoding(IntRecordBuffer block) throws IOException {
+        parser.finish(block);
+    }
+
+    /**
+     * Starts the background read of the chunk at the current position into the idle buffer.
+     */
+    private void prefetch() {
+        ByteBuffer target = prefetchChunk;
+        long readPosition = position;
+        target.clear();
+        target.limit((int) Math.min(target.capacity(), endOffset - readPosition));
+        pendingRead = target.hasRemaining()
+                ? prefetcher.submit(() -> channel.read(target, readPosition))
+                : CompletableFuture.completedFuture(-1);
+    }
+
+    private int awaitPrefetch() throws IOException {
+        try {
+            return pendingRead.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while prefetching a run", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (pendingRead != null && !pendingRead.isDone()) {
+                awaitPrefetch(); // The background read must not outlive the channel
+            }
+        } catch (IOException e) {
+            // The read is abandoned anyway
+        } finally {
+            channel.close();
+        }
+    }
+}
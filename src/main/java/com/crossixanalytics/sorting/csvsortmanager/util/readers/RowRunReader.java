@@ -0,0 +1,131 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.readers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sequential reader of a sorted run in the keyed run format written by
+ * {@link com.crossixanalytics.sorting.csvsortmanager.util.writers.RowRecordWriter}, one record at a time.
+ * The current record's key and row are addressed in the reader's buffer, so iterating a run allocates nothing per record;
+ * they stay valid until the next call to {@link #next()}. The buffer grows to hold a record longer than itself.
+ */
+public class RowRunReader implements Closeable {
+    private static final int MAX_VARINT_LENGTH = 5;
+
+    private final String filePath;
+    private final FileChannel channel;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfFile;
+    private int keyOffset;
+    private int keyLength;
+    private int rowLength;
+
+    /**
+     * Opens a reader over a whole keyed run file.
+     *
+     * @param filePath   The path of the file to read.
+     * @param bufferSize The size in bytes of the read buffer.
+     * @throws IOException If the file cannot be opened.
+     */
+    public RowRunReader(String filePath, int bufferSize) throws IOException {
+        this.filePath = filePath;
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.buffer = new byte[Math.max(bufferSize, 4 * MAX_VARINT_LENGTH)];
+    }
+
+    /**
+     * Moves to the next record of the run.
+     *
+     * @return true if a record was read, false at the end of the run.
+     * @throws IOException If an I/O error occurs or the run is corrupt.
+     */
+    public boolean next() throws IOException {
+        if (fill(2 * MAX_VARINT_LENGTH) == 0) {
+            return false;
+        }
+        keyLength = readVarint();
+        rowLength = readVarint();
+        int recordLength = keyLength + rowLength;
+        if (keyLength < 0 || rowLength < 0 || recordLength < 0 || fill(recordLength) < recordLength) {
+            throw new IOException("Corrupt keyed run " + filePath + ": truncated record");
+        }
+        keyOffset = position;
+        position += recordLength;
+        return true;
+    }
+
+    /**
+     * Direct access to the read buffer holding the current record; its row immediately follows its key.
+     *
+     * @return The read buffer.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getKeyOffset() {
+        return keyOffset;
+    }
+
+    public int getKeyLength() {
+        return keyLength;
+    }
+
+    public int getRowLength() {
+        return rowLength;
+    }
+
+    /**
+     * Makes the given number of bytes available from the current position, compacting, growing and refilling the
+     * buffer as needed.
+     *
+     * @return The number of bytes available, fewer than wanted only at the end of the file.
+     */
+    private int fill(int wanted) throws IOException {
+        if (limit - position >= wanted || endOfFile) {
+            return limit - position;
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        if (wanted > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(wanted, 2 * buffer.length));
+        }
+        while (limit < wanted && !endOfFile) {
+            int bytesRead = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+            if (bytesRead < 0) {
+                endOfFile = true;
+            } else {
+                limit += bytesRead;
+            }
+        }
+        return limit - position;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_LENGTH; shift += 7) {
+            if (position == limit) {
+                break;
+            }
+            byte b = buffer[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt keyed run " + filePath + ": malformed record length");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,114 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.readers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Random access into a sorted run file of canonical integer lines ("value\n"), as written by the run writers.
+ * Supports sampling keys at byte positions and binary-searching the byte offset of a key,
+ * using a few small positional reads per probe.
+ */
+public class SortedRunIndex implements Closeable {
+    private static final int PROBE_SIZE = 32; // Covers a whole integer line from any position inside the previous one
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+
+    public SortedRunIndex(String filePath) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Finds the offset of the first line starting at or after the given position.
+     *
+     * @param position A byte position within the run.
+     * @return The offset of the line start, or the run size if no line starts at or after the position.
+     * @throws IOException If an I/O error occurs.
+     */
+    public long lineStartAtOrAfter(long position) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+        long searchPosition = position - 1; // A line break right before the position makes it a line start
+        while (searchPosition < size) {
+            int bytesRead = readProbe(searchPosition);
+            for (int i = 0; i < bytesRead; i++) {
+                if (probe.get(i) == '\n') {
+                    return searchPosition + i + 1;
+                }
+            }
+            searchPosition += bytesRead;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the record of the line starting at the given offset.
+     *
+     * @param lineStart The offset of a line start within the run.
+     * @return The record value of the line.
+     * @throws IOException If an I/O error occurs.
+     */
+    public int recordAt(long lineStart) throws IOException {
+        int bytesRead = readProbe(lineStart);
+        boolean negative = bytesRead > 0 && probe.get(0) == '-';
+        long magnitude = 0;
+        for (int i = negative ? 1 : 0; i < bytesRead; i++) {
+            byte b = probe.get(i);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            magnitude = magnitude * 10 + (b - '0');
+        }
+        return (int) (negative ? -magnitude : magnitude);
+    }
+
+    /**
+     * Binary-searches the offset of the first line whose record is greater than or equal to the key.
+     *
+     * @param key The key to search.
+     * @return The offset of the first line with a record of at least the key, or the run size if there is none.
+     * @throws IOException If an I/O error occurs.
+     */
+    public long firstOffsetAtLeast(int key) throws IOException {
+        long low = 0; // Always a line start; the answer lies within [low, high]
+        long high = size;
+        while (low < high) {
+            long lineStart = lineStartAtOrAfter(low + (high - low) / 2);
+            if (lineStart >= high) {
+                // No line starts in the upper half, so only a few lines are left: scan them
+                while (low < high && recordAt(low) < key) {
+                    low = lineStartAtOrAfter(low + 1);
+                }
+                return Math.min(low, high);
+            }
+            if (recordAt(lineStart) >= key) {
+                high = lineStart;
+            } else {
+                low = lineStartAtOrAfter(lineStart + 1);
+            }
+        }
+        return low;
+    }
+
+    private int readProbe(long position) throws IOException {
+        probe.clear();
+        int bytesRead = channel.read(probe, position);
+        return Math.max(bytesRead, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -5,20 +5,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class CSVNumberOfRecordsValidator {
-    private static final int MIN_RECORDS = 50;
-    private static final int MAX_RECORDS = 10000000;
+    private static final long MIN_RECORDS = 50;
 
     private static final Logger logger = LoggerFactory.getLogger(CSVNumberOfRecordsValidator.class);
 
-    public static boolean isNumberOfRecordsInRange(int numberOfRecords, String inputDirPath) {
-        if (numberOfRecords < MIN_RECORDS || numberOfRecords > MAX_RECORDS) {
-            logger.warn("Illegal Number of records {} given out of the allowed range ({}, {}).", numberOfRecords, MIN_RECORDS, MAX_RECORDS);
+    /**
+     * Checks the number of records is at least the minimum and fits the disk space of the directory.
+     * There is no fixed upper limit, since the sort is bounded by disk space rather than memory.
+     *
+     * @param numberOfRecords The number of records to generate and sort.
+     * @param inputDirPath    The path of the input file, whose directory holds the generated input, runs and output.
+     * @return true if the number of records can be processed, false otherwise.
+     */
+    public static boolean isNumberOfRecordsInRange(long numberOfRecords, String inputDirPath) {
+        if (numberOfRecords < MIN_RECORDS) {
+            logger.warn("Illegal Number of records {} given below the allowed minimum of {}.", numberOfRecords, MIN_RECORDS);
             return false;
         }
         try {
             long calculatedMaxRecords = SystemSpecsEvaluator.calculateMaxRecords(inputDirPath);
             if (numberOfRecords > calculatedMaxRecords) {
-                logger.warn("Number of records {} exceeds the system's capacity of {} based on directory '{}'.", numberOfRecords, calculatedMaxRecords, inputDirPath);
+                logger.warn("Number of records {} exceeds the disk capacity of {} records based on directory '{}'.", numberOfRecords, calculatedMaxRecords, inputDirPath);
                 return false;
             }
             return true;
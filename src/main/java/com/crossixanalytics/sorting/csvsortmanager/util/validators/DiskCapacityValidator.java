@@ -0,0 +1,49 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.validators;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Validates that the disk holding the sorted runs and the output can take a sort of an existing input file.
+ */
+public class DiskCapacityValidator {
+    private static final Logger logger = LoggerFactory.getLogger(DiskCapacityValidator.class);
+    private static final double DISK_SPACE_HEADROOM = 1.1; // Runs are rewritten in canonical form, which can be slightly larger
+
+    /**
+     * Checks the input file exists and the output directory has room for the sorted runs (about the size of the input)
+     * plus the output. When the output replaces the input, the output reuses the input's space.
+     *
+     * @param inputFilePath  Path to the existing input file.
+     * @param outputFilePath Path to the output file; the runs are written next to it.
+     * @return true if the input is a readable file and the disk has enough usable space, false otherwise.
+     */
+    public static boolean hasCapacityForSort(String inputFilePath, String outputFilePath) {
+        Path inputPath = Paths.get(inputFilePath).toAbsolutePath().normalize();
+        Path outputPath = Paths.get(outputFilePath).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(inputPath) || !Files.isReadable(inputPath)) {
+            logger.warn("Input file '{}' does not exist or is not readable.", inputFilePath);
+            return false;
+        }
+        try {
+            long inputFileSize = Files.size(inputPath);
+            boolean outputReplacesInput = Files.exists(outputPath) && Files.isSameFile(inputPath, outputPath);
+            long requiredSpace = (long) (inputFileSize * (outputReplacesInput ? 1 : 2) * DISK_SPACE_HEADROOM);
+            long usableSpace = Files.getFileStore(outputPath.getParent()).getUsableSpace();
+            if (requiredSpace > usableSpace) {
+                logger.warn("Sorting '{}' of {} bytes needs about {} bytes of disk space for runs and output, but only {} bytes are usable at '{}'.",
+                        inputFilePath, inputFileSize, requiredSpace, usableSpace, outputPath.getParent());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Error evaluating the disk capacity for sorting '{}' into '{}': {}", inputFilePath, outputFilePath, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.writers;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.DirectIntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes integer records as CSV lines ("value\n") without allocating per record.
+ * Each value is formatted as ASCII digits directly into a reusable heap byte buffer,
+ * which is flushed to the underlying channel in large writes once it fills up. The buffer stays on the heap:
+ * file channels copy it through their per-thread cached direct buffer, whereas a direct buffer per writer - one per
+ * run, merge output and generator segment - would be zeroed on allocation, only freed by GC, and compete with
+ * off-heap partitions for the direct memory limit.
+ */
+public class IntRecordWriter implements Closeable {
+    private static final int MIN_BUFFER_SIZE = 64;
+    private static final int MAX_RECORD_LENGTH = 12; // "-2147483648\n"
+    private static final byte[] MIN_VALUE_BYTES = Integer.toString(Integer.MIN_VALUE).getBytes();
+
+    private final WritableByteChannel channel;
+    protected final ByteBuffer buffer;
+    private final byte[] digits = new byte[MAX_RECORD_LENGTH];
+    private long bytesWritten;
+
+    public IntRecordWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, MIN_BUFFER_SIZE));
+    }
+
+    /**
+     * Opens a writer over a new (or truncated) file.
+     *
+     * @param filePath   The path of the file to write to.
+     * @param bufferSize The size in bytes of the output buffer.
+     * @return A writer over the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static IntRecordWriter open(String filePath, int bufferSize) throws IOException {
+        return new IntRecordWriter(openChannel(filePath), bufferSize);
+    }
+
+    private static FileChannel openChannel(String filePath) throws IOException {
+        return FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Opens a writer over a new (or truncated) file, writing the records in the given run format.
+     * Binary runs only accept records in ascending order.
+     *
+     * @param filePath   The path of the file to write to.
+     * @param bufferSize The size in bytes of the output buffer.
+     * @param runFormat  The format of the records in the file.
+     * @return A writer over the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static IntRecordWriter open(String filePath, int bufferSize, RunFormat runFormat) throws IOException {
+        if (runFormat == RunFormat.BINARY) {
+            return new DeltaVarintRecordWriter(openChannel(filePath), bufferSize);
+        }
+        return open(filePath, bufferSize);
+    }
+
+    /**
+     * Opens a writer which writes into a shared file channel starting at the given position, using positional writes.
+     * Closing the writer flushes it but leaves the shared channel open, so several writers can fill
+     * disjoint regions of the same file concurrently.
+     *
+     * @param channel    The shared channel of the file to write to.
+     * @param position   The file position of the first byte to write.
+     * @param bufferSize The size in bytes of the output buffer.
+     * @return A writer over the region of the file starting at the position.
+     */
+    public static IntRecordWriter openAt(FileChannel channel, long position, int bufferSize) {
+        return new IntRecordWriter(new PositionalWriteChannel(channel, position), bufferSize);
+    }
+
+    /**
+     * Appends a single record followed by a line break.
+     *
+     * @param record The record value to write.
+     * @throws IOException If an I/O error occurs while flushing.
+     */
+    public void writeRecord(int record) throws IOException {
+        if (buffer.remaining() < MAX_RECORD_LENGTH) {
+            flush();
+        }
+        if (record == Integer.MIN_VALUE) {
+            buffer.put(MIN_VALUE_BYTES);
+        } else {
+            int value = record;
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int position = digits.length;
+            do {
+                digits[--position] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            buffer.put(digits, position, digits.length - position);
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Calculates the number of bytes {@link #writeRecord(int)} writes for a record, including its line break.
+     *
+     * @param record The record value.
+     * @return The length in bytes of the record's line.
+     */
+    public static int recordLength(int record) {
+        if (record == Integer.MIN_VALUE) {
+            return MAX_RECORD_LENGTH;
+        }
+        int length = record < 0 ? 2 : 1;
+        int value = Math.abs(record);
+        do {
+            length++;
+            value /= 10;
+        } while (value != 0);
+        return length;
+    }
+
+    /**
+     * Appends all the records of a buffer, each followed by a line break.
+     *
+     * @param records The records to write.
+     * @throws IOException If an I/O error occurs while flushing.
+     */
+    public void writeRecords(IntRecordBuffer records) throws IOException {
+        int size = records.size();
+        if (records.isDirect()) {
+            IntBuffer directValues = ((DirectIntRecordBuffer) records).getDirectRecords();
+            for (int i = 0; i < size; i++) {
+                writeRecord(directValues.get(i));
+            }
+            return;
+        }
+        int[] values = records.getRecords();
+        for (int i = 0; i < size; i++) {
+            writeRecord(values[i]);
+        }
+    }
+
+    /**
+     * Writes all buffered bytes to the underlying channel.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Adapts positional writes on a shared file channel to a sequential channel; closing it does not close the file.
+     */
+    private static final class PositionalWriteChannel implements WritableByteChannel {
+        private final FileChannel channel;
+        private long position;
+        private boolean open = true;
+
+        PositionalWriteChannel(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int bytesWritten = channel.write(source, position);
+            position += bytesWritten;
+            return bytesWritten;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open && channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
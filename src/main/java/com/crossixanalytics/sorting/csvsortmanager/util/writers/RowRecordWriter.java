@@ -0,0 +1,138 @@
+package com.crossixanalytics.sorting.csvsortmanager.util.writers;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RowRecordBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes CSV rows through a reusable heap byte buffer, flushed to the file in large writes once it fills up.
+ * A keyed writer writes a sorted run in the keyed run format: each record as the varint length of its normalized key,
+ * the varint length of its row, the key and the row, so merging the run compares the keys without parsing the rows.
+ * A text writer writes the rows alone, each followed by a line break, for the final output.
+ */
+public class RowRecordWriter implements Closeable {
+    private static final int MIN_BUFFER_SIZE = 64;
+    private static final int MAX_VARINT_LENGTH = 5;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean keyed;
+    private long bytesWritten;
+
+    /**
+     * Opens a writer over a new (or truncated) file.
+     *
+     * @param filePath   The path of the file to write to.
+     * @param bufferSize The size in bytes of the output buffer.
+     * @param keyed      Set to true to write the keyed run format, false to write text rows.
+     * @throws IOException If the file cannot be opened.
+     */
+    public RowRecordWriter(String filePath, int bufferSize, boolean keyed) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, MIN_BUFFER_SIZE));
+        this.keyed = keyed;
+    }
+
+    /**
+     * Appends a record whose row immediately follows its normalized key; a text writer only writes the row and a line break.
+     *
+     * @param data      The bytes holding the key and the row.
+     * @param keyOffset The offset of the key's first byte.
+     * @param keyLength The length of the key.
+     * @param rowLength The length of the row, which starts right after the key.
+     * @throws IOException If an I/O error occurs while flushing.
+     */
+    public void writeRecord(byte[] data, int keyOffset, int keyLength, int rowLength) throws IOException {
+        if (keyed) {
+            if (buffer.remaining() < 2 * MAX_VARINT_LENGTH) {
+                flush();
+            }
+            putVarint(keyLength);
+            putVarint(rowLength);
+            put(data, keyOffset, keyLength + rowLength);
+        } else {
+            put(data, keyOffset + keyLength, rowLength);
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) '\n');
+        }
+    }
+
+    /**
+     * Appends all the records of a buffer in the given order.
+     *
+     * @param records The records to write.
+     * @param order   The indexes of the records in the order to write them, as returned by a row sorter.
+     * @throws IOException If an I/O error occurs while flushing.
+     */
+    public void writeRecords(RowRecordBuffer records, int[] order) throws IOException {
+        byte[] data = records.getData();
+        for (int i = 0; i < records.size(); i++) {
+            int index = order[i];
+            writeRecord(data, records.getKeyOffset(index), records.getKeyLength(index), records.getRowLength(index));
+        }
+    }
+
+    /**
+     * Appends raw bytes, such as the header row of the output.
+     *
+     * @param bytes  The bytes to write.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @throws IOException If an I/O error occurs while flushing.
+     */
+    public void put(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.remaining()) {
+            flush();
+            if (length > buffer.capacity()) {
+                ByteBuffer source = ByteBuffer.wrap(bytes, offset, length);
+                while (source.hasRemaining()) {
+                    bytesWritten += channel.write(source);
+                }
+                return;
+            }
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes all buffered bytes to the file.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileReaderImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class CSVFileReaderImplTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadCSVRecordRange() throws Exception {
+        File file = temporaryFolder.newFile("test.csv");
+        String content = "17\r\n-3\r\n\r\n 250 \r\nnot-a-number\r\n-2147483648\r\n2147483647";
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        int secondPartitionStart = content.indexOf(" 250");
+
+        CSVFileReaderImpl reader = new CSVFileReaderImpl();
+        IntRecordBuffer records = new IntRecordBuffer();
+        reader.readCSVRecordRange(file.getPath(), 0, secondPartitionStart, records);
+        assertArrayEquals(new int[]{17, -3}, Arrays.copyOf(records.getRecords(), records.size()));
+
+        reader.readCSVRecordRange(file.getPath(), secondPartitionStart, file.length(), records);
+        assertArrayEquals(new int[]{250, Integer.MIN_VALUE, Integer.MAX_VALUE}, Arrays.copyOf(records.getRecords(), records.size()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVLoserTreeFileMergerImpl;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CSVLoserTreeFileMergerImplTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMergeCSVFiles() throws Exception {
+        Random random = new Random(7);
+        for (int runCount : new int[]{1, 2, 5, 20}) {
+            List<String> sortedFiles = new ArrayList<>();
+            List<Integer> expected = new ArrayList<>();
+            for (int run = 0; run < runCount; run++) {
+                int[] records = new int[run % 4 == 3 ? 0 : random.nextInt(300)]; // Some runs are empty
+                for (int i = 0; i < records.length; i++) {
+                    records[i] = random.nextInt(100) - 50; // Plenty of duplicates across runs
+                }
+                Arrays.sort(records);
+                StringBuilder content = new StringBuilder();
+                for (int record : records) {
+                    content.append(record).append('\n');
+                    expected.add(record);
+                }
+                File runFile = temporaryFolder.newFile("run_" + runCount + "_" + run + ".csv");
+                Files.write(runFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+                sortedFiles.add(runFile.getPath());
+            }
+            expected.sort(null);
+
+            File mergedFile = new File(temporaryFolder.getRoot(), "merged_" + runCount + ".csv");
+            // A tiny read buffer makes records span refills of the run readers
+            new CSVLoserTreeFileMergerImpl(16, 64).mergeCSVFiles(sortedFiles, mergedFile.getPath());
+
+            List<Integer> merged = new ArrayList<>();
+            for (String line : Files.readAllLines(mergedFile.toPath())) {
+                merged.add(Integer.parseInt(line));
+            }
+            assertEquals(expected, merged);
+        }
+    }
+
+    @Test
+    public void testMergeBinaryRuns() throws Exception {
+        Random random = new Random(11);
+        List<String> sortedFiles = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int run = 0; run < 6; run++) {
+            int[] records = new int[random.nextInt(500)];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = random.nextInt();
+            }
+            records[0] = run % 2 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            Arrays.sort(records);
+            File runFile = temporaryFolder.newFile("run_" + run + IOConstants.BINARY_RUN_FILE_TYPE);
+            try (IntRecordWriter writer = IntRecordWriter.open(runFile.getPath(), 64, RunFormat.BINARY)) {
+                for (int record : records) {
+                    writer.writeRecord(record);
+                    expected.add(record);
+                }
+            }
+            sortedFiles.add(runFile.getPath());
+        }
+        expected.sort(null);
+
+        // Binary to binary, as in an intermediate pass, then binary to text, as in the final pass
+        File intermediateFile = new File(temporaryFolder.getRoot(), "temp_1_0" + IOConstants.BINARY_RUN_FILE_TYPE);
+        new CSVLoserTreeFileMergerImpl(16, 64, RunFormat.BINARY, RunFormat.BINARY).mergeCSVFiles(sortedFiles, intermediateFile.getPath());
+        File mergedFile = new File(temporaryFolder.getRoot(), "merged.csv");
+        new CSVLoserTreeFileMergerImpl(16, 64, RunFormat.BINARY, RunFormat.TEXT)
+                .mergeCSVFiles(Collections.singletonList(intermediateFile.getPath()), mergedFile.getPath());
+
+        List<Integer> merged = new ArrayList<>();
+        for (String line : Files.readAllLines(mergedFile.toPath())) {
+            merged.add(Integer.parseInt(line));
+        }
+        assertEquals(expected, merged);
+    }
+
+    @Test
+    public void testMergeWithPrefetch() throws Exception {
+        Random random = new Random(13);
+        for (RunFormat runFormat : RunFormat.values()) {
+            List<String> sortedFiles = new ArrayList<>();
+            List<Integer> expected = new ArrayList<>();
+            for (int run = 0; run < 8; run++) {
+                int[] records = new int[run == 5 ? 0 : 5000 + random.nextInt(20000)];
+                for (int i = 0; i < records.length; i++) {
+                    records[i] = random.nextInt();
+                }
+                Arrays.sort(records);
+                File runFile = temporaryFolder.newFile("prefetch_run_" + runFormat + "_" + run + runFormat.getFileType());
+                try (IntRecordWriter writer = IntRecordWriter.open(runFile.getPath(), 1024, runFormat)) {
+                    for (int record : records) {
+                        writer.writeRecord(record);
+                        expected.add(record);
+                    }
+                }
+                sortedFiles.add(runFile.getPath());
+            }
+            expected.sort(null);
+
+            // A small budget makes every run go through many background refills of its two buffers
+            File mergedFile = new File(temporaryFolder.getRoot(), "prefetch_merged_" + runFormat + ".csv");
+            new CSVLoserTreeFileMergerImpl(16, 1024, runFormat, RunFormat.TEXT, 1 << 16).mergeCSVFiles(sortedFiles, mergedFile.getPath());
+
+            List<Integer> merged = new ArrayList<>();
+            for (String line : Files.readAllLines(mergedFile.toPath())) {
+                merged.add(Integer.parseInt(line));
+            }
+            assertEquals(expected, merged);
+        }
+    }
+}
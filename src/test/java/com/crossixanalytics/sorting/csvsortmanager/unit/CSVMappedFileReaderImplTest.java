@@ -0,0 +1,57 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVMappedFileReaderImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CSVMappedFileReaderImplTest {
+    private static final String CONTENT = "17\r\n-3\r\n\r\n 250 \r\nnot-a-number\r\n-2147483648\n2147483647";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadCSVRecordRange() throws Exception {
+        File file = createTestFile();
+        int secondPartitionStart = CONTENT.indexOf(" 250");
+
+        CSVMappedFileReaderImpl reader = new CSVMappedFileReaderImpl();
+        IntRecordBuffer records = new IntRecordBuffer();
+        reader.readCSVRecordRange(file.getPath(), 0, secondPartitionStart, records);
+        assertArrayEquals(new int[]{17, -3}, Arrays.copyOf(records.getRecords(), records.size()));
+
+        reader.readCSVRecordRange(file.getPath(), secondPartitionStart, file.length(), records);
+        assertArrayEquals(new int[]{250, Integer.MIN_VALUE, Integer.MAX_VALUE}, Arrays.copyOf(records.getRecords(), records.size()));
+    }
+
+    @Test
+    public void testReadCSVRecordsByCount() throws Exception {
+        File file = createTestFile();
+
+        CSVMappedFileReaderImpl reader = new CSVMappedFileReaderImpl();
+        IntRecordBuffer records = new IntRecordBuffer();
+        long nextOffset = reader.readCSVRecords(file.getPath(), 2, 0, records);
+        assertArrayEquals(new int[]{17, -3}, Arrays.copyOf(records.getRecords(), records.size()));
+        assertEquals(CONTENT.indexOf("\r\n\r\n") + 2, nextOffset);
+
+        nextOffset = reader.readCSVRecords(file.getPath(), 10, nextOffset, records);
+        assertArrayEquals(new int[]{250, Integer.MIN_VALUE, Integer.MAX_VALUE}, Arrays.copyOf(records.getRecords(), records.size()));
+        assertEquals(file.length(), nextOffset);
+    }
+
+    private File createTestFile() throws Exception {
+        File file = temporaryFolder.newFile("test.csv");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
@@ -0,0 +1,78 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.KeyDistribution;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileReaderImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVParallelFileGeneratorImpl;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CSVParallelFileGeneratorImplTest {
+    private static final long SEED = 42L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSeedReproducesFileAcrossThreadCounts() throws Exception {
+        int numberOfRecords = (1 << 20) + 1000; // spans two segments
+        File singleThreadedFile = generate(1, KeyDistribution.UNIFORM, numberOfRecords);
+        File multiThreadedFile = generate(3, KeyDistribution.UNIFORM, numberOfRecords);
+
+        assertArrayEquals(Files.readAllBytes(singleThreadedFile.toPath()), Files.readAllBytes(multiThreadedFile.toPath()));
+        assertEquals(numberOfRecords, readRecords(multiThreadedFile).length);
+    }
+
+    @Test
+    public void testSortedAndReverseDistributions() throws Exception {
+        int[] sortedRecords = readRecords(generate(2, KeyDistribution.SORTED, 5000));
+        int[] expectedSorted = sortedRecords.clone();
+        Arrays.sort(expectedSorted);
+        assertArrayEquals(expectedSorted, sortedRecords);
+
+        int[] reverseRecords = readRecords(generate(2, KeyDistribution.REVERSE, 5000));
+        assertEquals(5000, reverseRecords.length);
+        for (int i = 1; i < reverseRecords.length; i++) {
+            assertTrue(reverseRecords[i - 1] >= reverseRecords[i]);
+        }
+    }
+
+    @Test
+    public void testSkewedDistributionsRepeatKeys() throws Exception {
+        assertTrue(countDistinct(readRecords(generate(2, KeyDistribution.DUPLICATES, 20000))) <= 1024);
+        assertTrue(countDistinct(readRecords(generate(2, KeyDistribution.ZIPFIAN, 20000))) < 20000 / 2);
+    }
+
+    private File generate(int parallelism, KeyDistribution keyDistribution, int numberOfRecords) throws Exception {
+        File file = temporaryFolder.newFile();
+        new CSVParallelFileGeneratorImpl(parallelism, SEED, keyDistribution, IOConstants.WRITE_BUFFER_SIZE)
+                .createCSVFile(file.getPath(), numberOfRecords);
+        return file;
+    }
+
+    private int[] readRecords(File file) throws Exception {
+        IntRecordBuffer records = new IntRecordBuffer();
+        new CSVFileReaderImpl().readCSVRecordRange(file.getPath(), 0, file.length(), records);
+        return Arrays.copyOf(records.getRecords(), records.size());
+    }
+
+    private int countDistinct(int[] records) {
+        Set<Integer> distinct = new HashSet<>();
+        for (int record : records) {
+            distinct.add(record);
+        }
+        return distinct.size();
+    }
+}
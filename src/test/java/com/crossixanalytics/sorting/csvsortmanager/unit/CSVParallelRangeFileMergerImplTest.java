@@ -0,0 +1,52 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVLoserTreeFileMergerImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVParallelRangeFileMergerImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class CSVParallelRangeFileMergerImplTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testOutputIsByteIdenticalToSerialMerge() throws Exception {
+        Random random = new Random(11);
+        List<String> sortedFiles = new ArrayList<>();
+        for (int run = 0; run < 12; run++) {
+            int[] records = new int[run == 5 ? 0 : 1000 + random.nextInt(4000)];
+            for (int i = 0; i < records.length; i++) {
+                // Mix a narrow range full of duplicates with the full int range
+                records[i] = i % 3 == 0 ? random.nextInt() : random.nextInt(20) - 10;
+            }
+            Arrays.sort(records);
+            StringBuilder content = new StringBuilder();
+            for (int record : records) {
+                content.append(record).append('\n');
+            }
+            File runFile = temporaryFolder.newFile("sorted_file_part_" + run + ".csv");
+            Files.write(runFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+            sortedFiles.add(runFile.getPath());
+        }
+
+        File serialOutput = new File(temporaryFolder.getRoot(), "serial.csv");
+        new CSVLoserTreeFileMergerImpl().mergeCSVFiles(sortedFiles, serialOutput.getPath());
+        for (int parallelism : new int[]{1, 3, 8}) {
+            File parallelOutput = new File(temporaryFolder.getRoot(), "parallel_" + parallelism + ".csv");
+            new CSVParallelRangeFileMergerImpl(parallelism, 64, 128).mergeCSVFiles(sortedFiles, parallelOutput.getPath());
+
+            assertArrayEquals(Files.readAllBytes(serialOutput.toPath()), Files.readAllBytes(parallelOutput.toPath()));
+        }
+    }
+}
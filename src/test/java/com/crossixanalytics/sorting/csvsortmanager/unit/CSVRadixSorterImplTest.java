@@ -0,0 +1,64 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.DirectIntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVRadixSorterImpl;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class CSVRadixSorterImplTest {
+
+    @Test
+    public void testSortSingleCSVFileRecords() {
+        CSVRadixSorterImpl sorter = new CSVRadixSorterImpl();
+        Random random = new Random(42);
+        // The same sorter is reused to cover scratch buffer reuse across partitions of different sizes
+        for (int size : new int[]{10, 100000, 5000}) {
+            IntRecordBuffer records = new IntRecordBuffer();
+            int[] expected = new int[size];
+            for (int i = 0; i < size; i++) {
+                int value = i % 7 == 0 ? Integer.MIN_VALUE + i : i % 11 == 0 ? Integer.MAX_VALUE - i : random.nextInt();
+                records.add(value);
+                expected[i] = value;
+            }
+            Arrays.sort(expected);
+
+            sorter.sortSingleCSVFileRecords(records);
+
+            assertArrayEquals(expected, Arrays.copyOf(records.getRecords(), records.size()));
+        }
+    }
+
+    @Test
+    public void testSortDirectRecords() {
+        CSVRadixSorterImpl sorter = new CSVRadixSorterImpl();
+        Random random = new Random(43);
+        for (int size : new int[]{10, 100000, 5000}) {
+            // Starts below its size to cover growing an off-heap buffer
+            DirectIntRecordBuffer records = new DirectIntRecordBuffer(size / 3);
+            int[] expected = new int[size];
+            for (int i = 0; i < size; i++) {
+                int value = i % 7 == 0 ? Integer.MIN_VALUE + i : random.nextInt();
+                if (i % 2 == 0) {
+                    records.add(value);
+                } else {
+                    records.addAll(new int[]{value}, 0, 1);
+                }
+                expected[i] = value;
+            }
+            Arrays.sort(expected);
+
+            sorter.sortSingleCSVFileRecords(records);
+
+            int[] sorted = new int[records.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = records.get(i);
+            }
+            assertArrayEquals(expected, sorted);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RowRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeySpec;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVRowSorterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.SortKeyEncoder;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CSVRowSorterImplTest {
+
+    @Test
+    public void testSortRecords() {
+        CSVRowSorterImpl sorter = new CSVRowSorterImpl();
+        SortKeyEncoder encoder = new SortKeyEncoder(SortKeySpec.parse("0:string,1:long:desc"), (byte) ',');
+        Random random = new Random(5);
+        // Keys sharing long prefixes, short keys and duplicates exercise the fallback from prefixes to full keys;
+        // the same sorter is reused to cover its arrays' reuse across partitions of different sizes
+        for (int size : new int[]{10, 20000, 500}) {
+            RowRecordBuffer records = new RowRecordBuffer(16, 4);
+            List<String> rows = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String name = random.nextBoolean() ? "customer-" + random.nextInt(100) : random.nextInt(3) == 0 ? "" : "c" + random.nextInt(10);
+                String row = name + "," + random.nextInt(5) + "," + i;
+                byte[] bytes = row.getBytes(StandardCharsets.US_ASCII);
+                records.add(encoder.getKey(), encoder.encode(bytes, 0, bytes.length), bytes, 0, bytes.length);
+                rows.add(row);
+            }
+            Comparator<String> key = Comparator.<String, String>comparing(row -> row.split(",")[0])
+                    .thenComparing(row -> Integer.parseInt(row.split(",")[1]), Comparator.reverseOrder());
+            rows.sort(key); // Stable, like the sorter
+
+            int[] order = sorter.sortRecords(records);
+
+            for (int i = 0; i < size; i++) {
+                int index = order[i];
+                assertEquals(rows.get(i), new String(records.getData(), records.getRowOffset(index), records.getRowLength(index), StandardCharsets.US_ASCII));
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.CSVSortManagerApplication;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class CSVSortManagerApplicationTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private InputStream standardInput;
+    private PrintStream standardOutput;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Before
+    public void redirectStandardStreams() {
+        standardInput = System.in;
+        standardOutput = System.out;
+        System.setOut(new PrintStream(output, true));
+    }
+
+    @After
+    public void restoreStandardStreams() {
+        System.setIn(standardInput);
+        System.setOut(standardOutput);
+    }
+
+    @Test
+    public void testSortStandardInputToStandardOutput() {
+        System.setIn(new ByteArrayInputStream("3\n-1\n2\n".getBytes(StandardCharsets.US_ASCII)));
+
+        int exitCode = CSVSortManagerApplication.run(new String[]{"-f", "-"});
+
+        assertEquals(0, exitCode);
+        assertEquals("-1\n2\n3\n", new String(output.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testRejectedStreamSortExitsNonZero() {
+        System.setIn(new ByteArrayInputStream("b,1\na,2\n".getBytes(StandardCharsets.US_ASCII)));
+
+        int exitCode = CSVSortManagerApplication.run(new String[]{"-f", "-", "-k", "0"});
+
+        assertEquals(1, exitCode);
+        assertEquals("Nothing, not even the usage, is written to the sorted output", 0, output.size());
+    }
+
+    @Test
+    public void testFailedStreamSortExitsNonZero() {
+        String missingFilePath = temporaryFolder.getRoot().toPath().resolve("missing.csv").toString();
+
+        int exitCode = CSVSortManagerApplication.run(new String[]{"-f", missingFilePath, "-o", "-"});
+
+        assertEquals(1, exitCode);
+        assertEquals(0, output.size());
+    }
+}
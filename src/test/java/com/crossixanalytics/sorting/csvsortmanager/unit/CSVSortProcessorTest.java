@@ -1,20 +1,34 @@
 package com.crossixanalytics.sorting.csvsortmanager.unit;
 
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeySpec;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
 import com.crossixanalytics.sorting.csvsortmanager.processor.CSVSortProcessor;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class CSVSortProcessorTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final String BASE_DIR = "D:\\Documents\\Java Workspace\\csvsortmanager\\src\\test\\java\\com\\crossixanalytics\\sorting\\csvsortmanager\\unit\\";
 
     @Test
@@ -41,6 +55,138 @@ public class CSVSortProcessorTest {
         verifySortedFileContents(sortedFilePath.toString(), 100);
     }
 
+    @Test
+    public void testSortExistingCSVFile() throws Exception {
+        File inputFile = createExistingInputFile(1000);
+        File outputFile = new File(temporaryFolder.getRoot(), "sorted.csv");
+        CSVSortProcessor processor = new CSVSortProcessor(inputFile.getPath(), outputFile.getPath(), true, new SortOptions().setMemoryBudget(1024));
+        processor.processCSVFile();
+
+        verifySortedFileContents(outputFile.getPath(), 1000);
+        assertEquals("Run directory was not removed", 2, temporaryFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void testSortExistingCSVFileInMemory() throws Exception {
+        File inputFile = createExistingInputFile(100000);
+        File outputFile = new File(temporaryFolder.getRoot(), "sorted.csv");
+        for (boolean multiProcessing : new boolean[]{false, true}) {
+            CSVSortProcessor processor = new CSVSortProcessor(inputFile.getPath(), outputFile.getPath(), multiProcessing, new SortOptions().setMemoryBudget(16 << 20));
+            processor.processCSVFile();
+
+            verifySortedFileContents(outputFile.getPath(), 100000);
+            assertNotNull("Input fitting the memory budget should be sorted in memory", processor.getMetrics().findPhase("inMemorySort"));
+            assertNull("No runs should be generated", processor.getMetrics().findPhase("runGeneration"));
+        }
+    }
+
+    @Test
+    public void testSortUnderestimatedCSVFileInRuns() throws Exception {
+        // Long lines in the sampled first block make the estimate fit the budget, while the short lines after it do not
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 8000; i++) {
+            content.append(-1000000000 - random.nextInt(1000000000)).append('\n');
+        }
+        for (int i = 0; i < 200000; i++) {
+            content.append(random.nextInt(10)).append('\n');
+        }
+        File inputFile = temporaryFolder.newFile("underestimated.csv");
+        Files.write(inputFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+        File outputFile = new File(temporaryFolder.getRoot(), "sorted.csv");
+        for (boolean multiProcessing : new boolean[]{false, true}) {
+            CSVSortProcessor processor = new CSVSortProcessor(inputFile.getPath(), outputFile.getPath(), multiProcessing, new SortOptions().setMemoryBudget(512 * 1024));
+            processor.processCSVFile();
+
+            verifySortedFileContents(outputFile.getPath(), 208000);
+            assertNotNull("An input holding more records than estimated should fall back to runs", processor.getMetrics().findPhase("runGeneration"));
+        }
+    }
+
+    @Test
+    public void testSortExistingCSVFileOffHeap() throws Exception {
+        File inputFile = createExistingInputFile(1000);
+        File outputFile = new File(temporaryFolder.getRoot(), "sorted.csv");
+        for (boolean multiProcessing : new boolean[]{false, true}) {
+            CSVSortProcessor processor = new CSVSortProcessor(inputFile.getPath(), outputFile.getPath(), multiProcessing,
+                    new SortOptions().setOffHeapBudget(2048).setPresortednessScan(false));
+            processor.processCSVFile();
+
+            verifySortedFileContents(outputFile.getPath(), 1000);
+        }
+    }
+
+    @Test
+    public void testSortExistingCSVFileInPlace() throws Exception {
+        File inputFile = createExistingInputFile(1000);
+        CSVSortProcessor processor = new CSVSortProcessor(inputFile.getPath(), inputFile.getPath(), false, new SortOptions().setMemoryBudget(1024));
+        processor.processCSVFile();
+
+        verifySortedFileContents(inputFile.getPath(), 1000);
+    }
+
+    @Test
+    public void testSortPresortedCSVFiles() throws Exception {
+        StringBuilder reverse = new StringBuilder();
+        StringBuilder naturalRuns = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            reverse.append(1000 - i).append('\n');
+            naturalRuns.append(i % 250 * 4 + i / 250).append('\n');
+        }
+        for (String content : new String[]{reverse.toString(), naturalRuns.toString(), "+1\r\n2\r\n3\r\n"}) {
+            File inputFile = temporaryFolder.newFile();
+            Files.write(inputFile.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+            CSVSortProcessor processor = new CSVSortProcessor(inputFile.getPath(), inputFile.getPath(), false, new SortOptions());
+            processor.processCSVFile();
+
+            verifySortedFileContents(inputFile.getPath(), content.split("\n").length);
+        }
+    }
+
+    @Test
+    public void testSortCSVRowsByKeyColumns() throws Exception {
+        Random random = new Random(11);
+        List<String> rows = new ArrayList<>();
+        StringBuilder content = new StringBuilder("name,score,id\n");
+        for (int i = 0; i < 2000; i++) {
+            String row = "name" + random.nextInt(50) + "," + (random.nextInt(10) == 0 ? "" : String.valueOf(random.nextInt(100) - 50)) + "," + i;
+            rows.add(row);
+            content.append(row).append('\n');
+        }
+        File inputFile = temporaryFolder.newFile("rows.csv");
+        Files.write(inputFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+        File outputFile = new File(temporaryFolder.getRoot(), "sorted-rows.csv");
+
+        SortOptions sortOptions = new SortOptions().setKeySpec(SortKeySpec.parse("1:long:desc,0:string")).setHeaderRow(true).setMemoryBudget(4096);
+        CSVSortProcessor processor = new CSVSortProcessor(inputFile.getPath(), outputFile.getPath(), true, sortOptions);
+        processor.processCSVFile();
+
+        Comparator<String> score = Comparator.comparing(row -> row.split(",", -1)[1].isEmpty() ? null : Long.valueOf(row.split(",", -1)[1]),
+                Comparator.nullsLast(Comparator.<Long>reverseOrder()));
+        Comparator<String> key = score.thenComparing(row -> row.split(",", -1)[0]);
+        List<String> sortedRows = Files.readAllLines(outputFile.toPath(), StandardCharsets.US_ASCII);
+        assertEquals("name,score,id", sortedRows.get(0));
+        sortedRows = sortedRows.subList(1, sortedRows.size());
+        for (int i = 1; i < sortedRows.size(); i++) {
+            assertTrue("Rows are not sorted by their key", key.compare(sortedRows.get(i - 1), sortedRows.get(i)) <= 0);
+        }
+        List<String> outputRows = new ArrayList<>(sortedRows);
+        Collections.sort(rows);
+        Collections.sort(outputRows);
+        assertEquals("Rows were lost or altered", rows, outputRows);
+    }
+
+    private File createExistingInputFile(int numberOfRecords) throws Exception {
+        File inputFile = temporaryFolder.newFile("input.csv");
+        Random random = new Random(7);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < numberOfRecords; i++) {
+            content.append(random.nextInt()).append('\n');
+        }
+        Files.write(inputFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+        return inputFile;
+    }
+
     private void verifySortedFileContents(String filePath, int expectedRecordCount) throws Exception {
         List<Integer> records = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
@@ -0,0 +1,82 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.model.SortOptions;
+import com.crossixanalytics.sorting.csvsortmanager.processor.CSVStreamSortProcessor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CSVStreamSortProcessorTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSortStreamInMemory() throws Exception {
+        int[] values = randomValues(10000);
+        File spillDirectory = temporaryFolder.newFolder("spill");
+        CSVStreamSortProcessor processor = new CSVStreamSortProcessor(new SortOptions(), spillDirectory.toPath());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long records = processor.sort(toStream(values), output);
+
+        assertEquals(values.length, records);
+        assertSortedOutput(values, output);
+        assertNotNull("An input within the memory budget is sorted in memory", processor.getMetrics().findPhase("inMemorySort"));
+        assertNull(processor.getMetrics().findPhase("runGeneration"));
+        assertEquals("Nothing is spilled", 0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testSortStreamSpillingRuns() throws Exception {
+        int[] values = randomValues(200000);
+        File spillDirectory = temporaryFolder.newFolder("spill");
+        SortOptions sortOptions = new SortOptions().setMemoryBudget(256 * 1024).setRunFormat(RunFormat.BINARY);
+        CSVStreamSortProcessor processor = new CSVStreamSortProcessor(sortOptions, spillDirectory.toPath());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long records = processor.sort(toStream(values), output);
+
+        assertEquals(values.length, records);
+        assertSortedOutput(values, output);
+        assertNotNull("An input beyond the memory budget is spilled as runs", processor.getMetrics().findPhase("runGeneration"));
+        assertNotNull(processor.getMetrics().findPhase("merge"));
+        assertEquals("The spilled runs must be cleaned up", 0, spillDirectory.list().length);
+    }
+
+    private static int[] randomValues(int count) {
+        Random random = new Random(42);
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt();
+        }
+        return values;
+    }
+
+    private static ByteArrayInputStream toStream(int[] values) {
+        StringBuilder content = new StringBuilder();
+        for (int value : values) {
+            content.append(value).append('\n');
+        }
+        return new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void assertSortedOutput(int[] values, ByteArrayOutputStream output) {
+        int[] expected = values.clone();
+        Arrays.sort(expected);
+        String[] lines = new String(output.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+        assertEquals(expected.length, lines.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], Integer.parseInt(lines[i]));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.util.readers.IntRunReader;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeltaVarintRunReaderTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Random random = new Random(5);
+        int[] records = new int[10000];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = i % 10 == 0 ? random.nextInt(3) : random.nextInt(); // Mixes duplicates with wide gaps
+        }
+        records[0] = Integer.MIN_VALUE;
+        records[1] = Integer.MAX_VALUE;
+        Arrays.sort(records);
+
+        File runFile = writeBinaryRun(records);
+        assertTrue("Binary run is not smaller than text", runFile.length() < 6L * records.length);
+        // A tiny read chunk splits varints between refills
+        assertArrayEquals(records, readBinaryRun(runFile, 16, records.length));
+    }
+
+    @Test
+    public void testEmptyRun() throws Exception {
+        File runFile = writeBinaryRun(new int[0]);
+        assertEquals(0, runFile.length());
+        assertEquals(0, readBinaryRun(runFile, 16, 0).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedRecordsAreRejected() throws Exception {
+        writeBinaryRun(new int[]{5, 4});
+    }
+
+    @Test
+    public void testTruncatedRunIsDetected() throws Exception {
+        File runFile = temporaryFolder.newFile();
+        Files.write(runFile.toPath(), new byte[]{(byte) 0x81, (byte) 0x80});
+        try (IntRunReader reader = IntRunReader.open(runFile.getPath(), 16, RunFormat.BINARY)) {
+            reader.hasNext();
+            fail("Truncated varint was not detected");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    private File writeBinaryRun(int[] records) throws IOException {
+        File runFile = temporaryFolder.newFile();
+        try (IntRecordWriter writer = IntRecordWriter.open(runFile.getPath(), 64, RunFormat.BINARY)) {
+            for (int record : records) {
+                writer.writeRecord(record);
+            }
+        }
+        return runFile;
+    }
+
+    private int[] readBinaryRun(File runFile, int bufferSize, int expectedCount) throws IOException {
+        int[] records = new int[expectedCount];
+        int count = 0;
+        try (IntRunReader reader = IntRunReader.open(runFile.getPath(), bufferSize, RunFormat.BINARY)) {
+            while (reader.hasNext()) {
+                records[count++] = reader.next();
+            }
+        }
+        assertEquals(expectedCount, count);
+        return records;
+    }
+}
@@ -0,0 +1,56 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.util.writers.IntRecordWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class IntRecordWriterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteRecords() throws Exception {
+        int[] records = {Integer.MIN_VALUE, -2147483647, -10, -1, 0, 7, 10, 1000000, Integer.MAX_VALUE};
+        File outputFile = temporaryFolder.newFile("records.csv");
+
+        IntRecordWriter writer = IntRecordWriter.open(outputFile.getPath(), 1024);
+        for (int record : records) {
+            writer.writeRecord(record);
+        }
+        writer.close();
+
+        String expected = "-2147483648\n-2147483647\n-10\n-1\n0\n7\n10\n1000000\n2147483647\n";
+        assertEquals(expected, new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.US_ASCII));
+        assertEquals(expected.length(), writer.getBytesWritten());
+        for (int record : records) {
+            assertEquals(Integer.toString(record).length() + 1, IntRecordWriter.recordLength(record));
+        }
+    }
+
+    @Test
+    public void testBufferSmallerThanARecord() throws Exception {
+        // The buffer is flushed many times over, before every record which might not fit the remaining space
+        IntRecordBuffer records = new IntRecordBuffer();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            int record = i % 2 == 0 ? Integer.MIN_VALUE + i : -i * 7919;
+            records.add(record);
+            expected.append(record).append('\n');
+        }
+        File outputFile = temporaryFolder.newFile("records.csv");
+
+        try (IntRecordWriter writer = IntRecordWriter.open(outputFile.getPath(), 1)) {
+            writer.writeRecords(records);
+        }
+
+        assertEquals(expected.toString(), new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,69 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.processor.MergeScheduler;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVLoserTreeFileMergerImpl;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MergeSchedulerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMultiPassMerge() throws Exception {
+        List<String> sortedFiles = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int run = 0; run < 10; run++) {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 50; i++) {
+                content.append(i * 10 + run).append('\n');
+            }
+            File runFile = temporaryFolder.newFile("sorted_file_part_" + run + ".csv");
+            Files.write(runFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+            sortedFiles.add(runFile.getPath());
+        }
+        for (int value = 0; value < 500; value++) {
+            expected.add(Integer.toString(value));
+        }
+
+        File tempDirectory = temporaryFolder.newFolder("merge");
+        File outputFile = new File(temporaryFolder.getRoot(), "final_sorted.csv");
+        CSVLoserTreeFileMergerImpl merger = new CSVLoserTreeFileMergerImpl();
+        MergeScheduler scheduler = new MergeScheduler(merger, merger, 3, 2, tempDirectory.toPath(), IOConstants.FILE_TYPE, null, null);
+        scheduler.merge(sortedFiles, outputFile.getPath());
+
+        assertEquals(expected, Files.readAllLines(outputFile.toPath()));
+        assertEquals("10 runs with fan-in 3 need ceil(log3(10)) = 3 passes", 3, scheduler.getBytesRewrittenPerPass().size());
+        assertEquals("Intermediate files must be cleaned up", 0, tempDirectory.list().length);
+    }
+
+    @Test
+    public void testMergeToFanIn() throws Exception {
+        List<String> sortedFiles = new ArrayList<>();
+        for (int run = 0; run < 10; run++) {
+            File runFile = temporaryFolder.newFile("sorted_file_part_" + run + ".csv");
+            Files.write(runFile.toPath(), (run + "\n").getBytes(StandardCharsets.US_ASCII));
+            sortedFiles.add(runFile.getPath());
+        }
+
+        File tempDirectory = temporaryFolder.newFolder("merge");
+        CSVLoserTreeFileMergerImpl merger = new CSVLoserTreeFileMergerImpl();
+        MergeScheduler scheduler = new MergeScheduler(merger, merger, 3, 2, tempDirectory.toPath(), IOConstants.FILE_TYPE, null, null);
+        List<String> finalRuns = scheduler.mergeToFanIn(sortedFiles);
+
+        assertEquals("The final merge is left with a full fan-in", 3, finalRuns.size());
+        assertEquals("Two intermediate passes for 3 passes in total", 2, scheduler.getBytesRewrittenPerPass().size());
+        assertEquals("Only the intermediate files of the final merge are left", tempDirectory.list().length,
+                finalRuns.stream().filter(run -> run.startsWith(tempDirectory.getPath())).count());
+    }
+}
@@ -0,0 +1,72 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.Presortedness;
+import com.crossixanalytics.sorting.csvsortmanager.util.evaluators.PresortednessEvaluator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class PresortednessEvaluatorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSortedFile() throws Exception {
+        Presortedness presortedness = evaluate("-5\n0\n0\n3\n2147483647\n", 8);
+
+        assertEquals(Presortedness.Kind.SORTED, presortedness.getKind());
+        assertArrayEquals(new long[]{0}, presortedness.getNaturalRunOffsets());
+        assertTrue("Writer formatted file should be canonical", presortedness.isCanonical());
+    }
+
+    @Test
+    public void testNonCanonicalSortedFile() throws Exception {
+        assertFalse(evaluate("1\r\n2\r\n3\r\n", 8).isCanonical());
+        assertFalse(evaluate("1\n02\n3\n", 8).isCanonical());
+        assertFalse(evaluate("+1\n2\n3\n", 8).isCanonical());
+        assertFalse(evaluate("1\n\n2\n", 8).isCanonical());
+        assertFalse(evaluate("1\n2\n3", 8).isCanonical());
+        assertEquals(Presortedness.Kind.SORTED, evaluate("1\n2\n3", 8).getKind());
+    }
+
+    @Test
+    public void testReverseSortedFile() throws Exception {
+        Presortedness presortedness = evaluate("9\n7\n7\n-1\n-2147483648\n", 1);
+
+        assertEquals(Presortedness.Kind.REVERSE_SORTED, presortedness.getKind());
+    }
+
+    @Test
+    public void testNaturalRuns() throws Exception {
+        Presortedness presortedness = evaluate("1\n5\n9\n2\n3\n10\n-4\n8\n", 8);
+
+        assertEquals(Presortedness.Kind.NATURAL_RUNS, presortedness.getKind());
+        assertArrayEquals(new long[]{0, 6, 13}, presortedness.getNaturalRunOffsets());
+    }
+
+    @Test
+    public void testTooManyNaturalRuns() throws Exception {
+        Presortedness presortedness = evaluate("1\n5\n9\n2\n3\n10\n-4\n8\n", 2);
+
+        assertEquals(Presortedness.Kind.UNSORTED, presortedness.getKind());
+    }
+
+    @Test
+    public void testMalformedFile() throws Exception {
+        assertEquals(Presortedness.Kind.UNSORTED, evaluate("1\n2,3\n4\n", 8).getKind());
+        assertEquals(Presortedness.Kind.UNSORTED, evaluate("1\n2147483648\n", 8).getKind());
+    }
+
+    private Presortedness evaluate(String content, int maxNaturalRuns) throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return PresortednessEvaluator.evaluate(file.getPath(), maxNaturalRuns);
+    }
+}
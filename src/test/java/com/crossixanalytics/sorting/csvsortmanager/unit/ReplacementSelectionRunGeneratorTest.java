@@ -0,0 +1,97 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.RunFormat;
+import com.crossixanalytics.sorting.csvsortmanager.processor.ReplacementSelectionRunGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplacementSelectionRunGeneratorTest {
+    private static final int HEAP_CAPACITY = 100;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRandomInputMakesRunsOfAboutTwiceTheHeap() throws Exception {
+        Random random = new Random(3);
+        int[] records = new int[10000];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = random.nextInt(1000) - 500; // Duplicates must stay in the current run
+        }
+
+        List<String> runs = generateRuns(records);
+        assertTrue("Runs are not longer than the heap: " + runs.size(), runs.size() < records.length / (1.5 * HEAP_CAPACITY));
+        assertRunsHoldSortedRecords(runs, records);
+    }
+
+    @Test
+    public void testPresortedAndReverseInput() throws Exception {
+        int[] ascending = new int[1000];
+        int[] descending = new int[1000];
+        for (int i = 0; i < ascending.length; i++) {
+            ascending[i] = i;
+            descending[i] = -i;
+        }
+
+        List<String> ascendingRuns = generateRuns(ascending);
+        assertEquals(1, ascendingRuns.size());
+        assertRunsHoldSortedRecords(ascendingRuns, ascending);
+
+        List<String> descendingRuns = generateRuns(descending); // Worst case: every run holds exactly the heap
+        assertEquals(descending.length / HEAP_CAPACITY, descendingRuns.size());
+        assertRunsHoldSortedRecords(descendingRuns, descending);
+    }
+
+    @Test
+    public void testEmptyInput() throws Exception {
+        assertEquals(0, generateRuns(new int[0]).size());
+    }
+
+    private List<String> generateRuns(int[] records) throws Exception {
+        File inputFile = temporaryFolder.newFile();
+        StringBuilder content = new StringBuilder();
+        for (int record : records) {
+            content.append(record).append('\n');
+        }
+        Files.write(inputFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        File outputDir = temporaryFolder.newFolder();
+        ReplacementSelectionRunGenerator runGenerator = new ReplacementSelectionRunGenerator(HEAP_CAPACITY, 64, 64, RunFormat.TEXT);
+        List<String> runs = runGenerator.generateRuns(inputFile.getPath(), outputDir.toPath());
+        assertEquals(records.length, runGenerator.getRecordsRead());
+        return runs;
+    }
+
+    private void assertRunsHoldSortedRecords(List<String> runs, int[] records) throws Exception {
+        List<Integer> expected = new ArrayList<>();
+        for (int record : records) {
+            expected.add(record);
+        }
+        expected.sort(null);
+
+        List<Integer> actual = new ArrayList<>();
+        for (String run : runs) {
+            int previous = Integer.MIN_VALUE;
+            for (String line : Files.readAllLines(Paths.get(run))) {
+                int record = Integer.parseInt(line);
+                assertTrue("Run " + run + " is not sorted", record >= previous);
+                previous = record;
+                actual.add(record);
+            }
+        }
+        actual.sort(null);
+        assertEquals(expected, actual);
+    }
+}
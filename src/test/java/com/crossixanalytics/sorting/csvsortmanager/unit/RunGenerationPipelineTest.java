@@ -0,0 +1,143 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.IntRecordBuffer;
+import com.crossixanalytics.sorting.csvsortmanager.processor.RunGenerationPipeline;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileReaderImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVFileWriterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.implementations.CSVSingleFileSorterImpl;
+import com.crossixanalytics.sorting.csvsortmanager.service.interfaces.CSVFileWriter;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RunGenerationPipelineTest {
+    private static final int LINES_PER_PARTITION = 100;
+    private static final int LINE_LENGTH = 5; // Four digits and a line break
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void testGenerateRuns() throws Exception {
+        File inputFile = createInputFile(8);
+        long[] boundaries = partitionBoundaries(8);
+        boundaries = insertEmptyPartition(boundaries, 3);
+        File outputDir = temporaryFolder.newFolder("runs");
+        AtomicInteger buffersCreated = new AtomicInteger();
+        RunGenerationPipeline pipeline = new RunGenerationPipeline(new CSVFileReaderImpl(), CSVSingleFileSorterImpl::new, new CSVFileWriterImpl(),
+                2, 1, IOConstants.FILE_TYPE, null, capacity -> {
+                    buffersCreated.incrementAndGet();
+                    return new IntRecordBuffer(capacity);
+                });
+
+        List<String> runs = pipeline.generateRuns(inputFile.getPath(), boundaries, LINES_PER_PARTITION, outputDir.toPath(), null);
+
+        assertEquals("The empty partition is skipped", 8, runs.size());
+        assertEquals(8 * LINES_PER_PARTITION, pipeline.getRecordsRead());
+        assertEquals("The partitions are held in a fixed pool of buffers", pipeline.getBufferCount(), buffersCreated.get());
+        List<Integer> allRecords = new ArrayList<>();
+        for (String run : runs) {
+            List<Integer> records = readRecords(run);
+            assertEquals(LINES_PER_PARTITION, records.size());
+            for (int i = 1; i < records.size(); i++) {
+                assertTrue("Run " + run + " is not sorted", records.get(i) >= records.get(i - 1));
+            }
+            allRecords.addAll(records);
+        }
+        allRecords.sort(null);
+        for (int i = 0; i < allRecords.size(); i++) {
+            assertEquals(i, (int) allRecords.get(i));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFailingWriterStopsThePipeline() throws Exception {
+        File inputFile = createInputFile(20);
+        File outputDir = temporaryFolder.newFolder("runs");
+        CSVFileWriterImpl runWriter = new CSVFileWriterImpl();
+        AtomicInteger writes = new AtomicInteger();
+        CSVFileWriter failingWriter = new CSVFileWriter() {
+            @Override
+            public void writeSortedRecords(String filePath, List<Integer> records) throws IOException {
+                runWriter.writeSortedRecords(filePath, records);
+            }
+
+            @Override
+            public void writeSortedRecords(String filePath, IntRecordBuffer records) throws IOException {
+                if (writes.incrementAndGet() == 3) {
+                    throw new IOException("Disk full");
+                }
+                runWriter.writeSortedRecords(filePath, records);
+            }
+        };
+        RunGenerationPipeline pipeline = new RunGenerationPipeline(new CSVFileReaderImpl(), CSVSingleFileSorterImpl::new, failingWriter,
+                2, 1, IOConstants.FILE_TYPE, null, IntRecordBuffer::new);
+
+        try {
+            pipeline.generateRuns(inputFile.getPath(), partitionBoundaries(20), LINES_PER_PARTITION, outputDir.toPath(), null);
+            fail("The failure of the writer stage was not propagated");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IOException);
+            assertEquals("Disk full", expected.getCause().getMessage());
+        }
+        assertEquals("No partition is written after the failure", 3, writes.get());
+    }
+
+    /**
+     * Writes the values 0 to (partitions x LINES_PER_PARTITION - 1) in a shuffled order, as fixed length lines.
+     */
+    private File createInputFile(int partitions) throws IOException {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < partitions * LINES_PER_PARTITION; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, new Random(42));
+        StringBuilder content = new StringBuilder();
+        for (int value : values) {
+            content.append(String.format("%04d", value)).append('\n');
+        }
+        File inputFile = temporaryFolder.newFile("input.csv");
+        Files.write(inputFile.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+        return inputFile;
+    }
+
+    private static long[] partitionBoundaries(int partitions) {
+        long[] boundaries = new long[partitions + 1];
+        for (int i = 0; i <= partitions; i++) {
+            boundaries[i] = (long) i * LINES_PER_PARTITION * LINE_LENGTH;
+        }
+        return boundaries;
+    }
+
+    private static long[] insertEmptyPartition(long[] boundaries, int index) {
+        long[] withEmptyPartition = new long[boundaries.length + 1];
+        System.arraycopy(boundaries, 0, withEmptyPartition, 0, index + 1);
+        System.arraycopy(boundaries, index, withEmptyPartition, index + 1, boundaries.length - index);
+        return withEmptyPartition;
+    }
+
+    private static List<Integer> readRecords(String filePath) throws IOException {
+        List<Integer> records = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(filePath))) {
+            records.add(Integer.parseInt(line));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,121 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.model.SortKeySpec;
+import com.crossixanalytics.sorting.csvsortmanager.util.parsers.SortKeyEncoder;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SortKeyEncoderTest {
+
+    @Test
+    public void testParseKeySpec() {
+        SortKeySpec keySpec = SortKeySpec.parse("2:long:desc, 0 ,1:date");
+
+        assertEquals("2:long:desc,0:string:asc,1:date:asc", keySpec.toString());
+        assertEquals(2, keySpec.getMaxColumnIndex());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalidKeySpec() {
+        SortKeySpec.parse("1:integer");
+    }
+
+    @Test
+    public void testLongKeys() {
+        assertAscending("0:long", "-9223372036854775808", "-10", "-9", "0", "+7", " 8 ", "10", "9223372036854775807");
+        assertAscending("0:long:desc", "10", "8", "-1");
+        assertAscending("0:long", "", "-1");
+        assertAscending("0:long:desc", "-1", "");
+    }
+
+    @Test
+    public void testDoubleKeys() {
+        assertAscending("0:double", "-Infinity", "-1e10", "-2.5", "-0.5", "0", "1e-3", "0.5", "2", "1e10", "Infinity");
+        assertAscending("0:double:desc", "2", "1.5", "-1.5");
+        assertEquals(0, compare("0:double", "-0.0", "0"));
+    }
+
+    @Test
+    public void testDateKeys() {
+        assertAscending("0:date", "1969-12-31", "1970-01-01", "1970-01-01T00:00:00.5", "1970-01-01 00:00:01", "2024-02-29");
+        assertAscending("0:date:desc", "2024-02-29T10:00", "2024-02-29", "1999-01-01");
+    }
+
+    @Test
+    public void testStringKeys() {
+        assertAscending("0:string", "", "A", "a", "a\u0000", "a\u0000b", "ab", "b", "é");
+        assertAscending("0:string:desc", "b", "ab", "a", "");
+    }
+
+    @Test
+    public void testQuotedAndMissingFields() {
+        assertAscending("1:string,0:long", "2,\"a\"\"\"", "1,\"a,b\"", "0,\"b\",x", "1,b");
+        assertEquals(0, compare("1:string", "1,\"x\"", "2,x"));
+        assertEquals(0, compare("2:long", "1", "1,2,"));
+        assertEquals(0, compare("0:long", "5\r", "5"));
+    }
+
+    @Test
+    public void testMultipleKeyColumns() {
+        assertAscending("1:long:desc,0:string", "b,3", "a,2", "b,2", "a,1", "a,");
+    }
+
+    @Test
+    public void testInvalidValuesSortAsNulls() {
+        SortKeyEncoder encoder = new SortKeyEncoder(SortKeySpec.parse("0:long,1:date"), (byte) ',');
+        byte[] invalid = key(encoder, "12x,2024-13-01");
+        byte[] nulls = key(encoder, ",");
+
+        assertArrayEquals(nulls, invalid);
+        assertEquals(2, encoder.getInvalidValues());
+        key(encoder, "99999999999999999999,");
+        assertEquals(3, encoder.getInvalidValues());
+    }
+
+    @Test
+    public void testTabDelimiter() {
+        SortKeyEncoder encoder = new SortKeyEncoder(SortKeySpec.parse("1:long"), (byte) '\t');
+
+        assertTrue(compare(key(encoder, "a,b\t2"), key(encoder, "a\t10")) < 0);
+    }
+
+    @Test
+    public void testKeyPrefixes() {
+        SortKeyEncoder encoder = new SortKeyEncoder(SortKeySpec.parse("0:string"), (byte) ',');
+        String[] rows = {"", "a", "ab", "abcdef", "abcdefg", "b\u00ff", "\u00ff"};
+        for (int i = 1; i < rows.length; i++) {
+            assertTrue(rows[i - 1] + " should have a lower prefix than " + rows[i], prefix(key(encoder, rows[i - 1])) < prefix(key(encoder, rows[i])));
+        }
+        assertEquals("The marker and 7 bytes fill the prefix", prefix(key(encoder, "abcdefg")), prefix(key(encoder, "abcdefgz")));
+        assertEquals(Long.MIN_VALUE, SortKeyEncoder.prefix(new byte[0], 0, 0));
+    }
+
+    private static void assertAscending(String keySpec, String... rows) {
+        for (int i = 1; i < rows.length; i++) {
+            assertTrue(rows[i - 1] + " should sort before " + rows[i] + " by " + keySpec, compare(keySpec, rows[i - 1], rows[i]) < 0);
+        }
+    }
+
+    private static int compare(String keySpec, String first, String second) {
+        SortKeyEncoder encoder = new SortKeyEncoder(SortKeySpec.parse(keySpec), (byte) ',');
+        return compare(key(encoder, first), key(encoder, second));
+    }
+
+    private static int compare(byte[] first, byte[] second) {
+        return SortKeyEncoder.compare(first, 0, first.length, second, 0, second.length);
+    }
+
+    private static long prefix(byte[] key) {
+        return SortKeyEncoder.prefix(key, 0, key.length);
+    }
+
+    private static byte[] key(SortKeyEncoder encoder, String row) {
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        int length = encoder.encode(bytes, 0, bytes.length);
+        return Arrays.copyOf(encoder.getKey(), length);
+    }
+}
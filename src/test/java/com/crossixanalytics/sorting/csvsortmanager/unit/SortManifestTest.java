@@ -0,0 +1,99 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.processor.SortManifest;
+import com.crossixanalytics.sorting.csvsortmanager.util.constants.IOConstants;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SortManifestTest {
+    private static final String JOB = "/data/input.csv|1000|1|TEXT|PARTITION";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testResumeCompletedWork() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        String run0 = writeFile("sorted_file_part_0.csv", "1\n2\n");
+        String run1 = writeFile("sorted_file_part_1.csv", "3\n");
+        String run2 = writeFile("sorted_file_part_2.csv", "4\n5\n");
+        String merged = writeFile("temp_1_0.csv", "1\n2\n3\n");
+        try (SortManifest manifest = SortManifest.open(directory, JOB, false)) {
+            manifest.recordPartitionBoundaries(new long[]{0, 10, 20, 30});
+            manifest.recordRun(0, 0, 10, 2, run0);
+            manifest.recordRun(1, 10, 20, 1, run1);
+            manifest.recordRun(2, 20, 30, 2, run2);
+            manifest.recordMerge(1, Arrays.asList(run0, run1), merged);
+        }
+        // A torn last entry of a JVM which died while appending it
+        Files.write(directory.resolve(IOConstants.MANIFEST_FILENAME), "run\t3\t30".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertTrue(SortManifest.exists(directory, JOB));
+        try (SortManifest manifest = SortManifest.open(directory, JOB, true)) {
+            assertArrayEquals(new long[]{0, 10, 20, 30}, manifest.getPartitionBoundaries());
+            assertEquals(run1, manifest.findCompletedRun(1, 10, 20).getFilePath());
+            assertEquals(2, manifest.findCompletedRun(2, 20, 30).getRecords());
+            assertNull("A different byte range must be sorted again", manifest.findCompletedRun(2, 20, 31));
+            assertNull(manifest.findCompletedRun(3, 30, 40));
+            assertEquals(Arrays.asList(run2, merged), manifest.applyCompletedMerges(Arrays.asList(run0, run1, run2)));
+            assertEquals(1, manifest.getLastMergePass());
+        }
+    }
+
+    @Test
+    public void testCorruptFilesAreNotReused() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        String run0 = writeFile("sorted_file_part_0.csv", "1\n2\n");
+        String run1 = writeFile("sorted_file_part_1.csv", "3\n");
+        String merged = writeFile("temp_1_0.csv", "1\n2\n3\n");
+        try (SortManifest manifest = SortManifest.open(directory, JOB, false)) {
+            manifest.recordRun(0, 0, 10, 2, run0);
+            manifest.recordMerge(1, Arrays.asList(run0, run1), merged);
+        }
+        writeFile("sorted_file_part_0.csv", "1\n3\n");
+        writeFile("temp_1_0.csv", "1\n2\n4\n");
+
+        try (SortManifest manifest = SortManifest.open(directory, JOB, true)) {
+            assertNull(manifest.findCompletedRun(0, 0, 10));
+            assertEquals(Arrays.asList(run0, run1), manifest.applyCompletedMerges(Arrays.asList(run0, run1)));
+        }
+    }
+
+    @Test
+    public void testOtherJobStartsOver() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        String run0 = writeFile("sorted_file_part_0.csv", "1\n");
+        try (SortManifest manifest = SortManifest.open(directory, JOB, false)) {
+            manifest.recordRun(0, 0, 10, 1, run0);
+        }
+
+        String otherJob = "/data/input.csv|1000|2|TEXT|PARTITION";
+        assertFalse(SortManifest.exists(directory, otherJob));
+        try (SortManifest manifest = SortManifest.open(directory, otherJob, true)) {
+            assertNull(manifest.findCompletedRun(0, 0, 10));
+        }
+        try (SortManifest manifest = SortManifest.open(directory, otherJob, true)) {
+            assertNull(manifest.getPartitionBoundaries());
+            assertEquals(Collections.singletonList(run0), manifest.applyCompletedMerges(Collections.singletonList(run0)));
+            manifest.complete();
+        }
+        assertFalse(Files.exists(directory.resolve(IOConstants.MANIFEST_FILENAME)));
+    }
+
+    private String writeFile(String name, String content) throws Exception {
+        File file = new File(temporaryFolder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return file.getPath();
+    }
+}
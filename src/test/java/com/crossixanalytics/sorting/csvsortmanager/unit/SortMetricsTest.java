@@ -0,0 +1,54 @@
+package com.crossixanalytics.sorting.csvsortmanager.unit;
+
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.PhaseMetrics;
+import com.crossixanalytics.sorting.csvsortmanager.util.metrics.SortMetrics;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SortMetricsTest {
+
+    @Test
+    public void testTasksAccumulateIntoTheirPhase() {
+        SortMetrics metrics = new SortMetrics();
+        metrics.startTask(SortMetrics.PARTITION_SORT).stop(100, 0, 0);
+        metrics.startTask(SortMetrics.PARTITION_SORT).stop(50, 0, 0);
+        metrics.startPhase("merge").stop(150, 1000, 1000);
+
+        PhaseMetrics sort = metrics.findPhase(SortMetrics.PARTITION_SORT);
+        assertEquals(2, sort.getCount());
+        assertEquals(150, sort.getRecords());
+        assertTrue(sort.getWallNanos() >= 0);
+        assertEquals(1000, metrics.findPhase("merge").getBytesWritten());
+        assertNull(metrics.findPhase("generate"));
+        assertEquals(2, metrics.getPhases().size());
+    }
+
+    @Test
+    public void testJsonSummary() {
+        SortMetrics metrics = new SortMetrics();
+        metrics.startPhase("total").stop(3, 0, 0);
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("input", "C:\\data\\\"input\".csv");
+        attributes.put("records", 3L);
+        attributes.put("multiProcessing", true);
+
+        String json = metrics.toJson(attributes);
+        assertTrue(json, json.startsWith("{\"input\":\"C:\\\\data\\\\\\\"input\\\".csv\",\"records\":3,\"multiProcessing\":true,\"phases\":[{\"name\":\"total\",\"count\":1,"));
+        assertTrue(json, json.contains("\"records\":3,\"bytesRead\":0,\"bytesWritten\":0"));
+        assertTrue(json, json.endsWith("}]}"));
+    }
+
+    @Test
+    public void testProgress() {
+        SortMetrics metrics = new SortMetrics();
+        assertNull(metrics.getProgress());
+        metrics.trackProgress("merge", "bytes", 200, () -> 50);
+        assertEquals("merge", metrics.getProgress().getPhase());
+        assertEquals(200, metrics.getProgress().getExpected());
+        assertEquals(50, metrics.getProgress().getDone());
+    }
+}